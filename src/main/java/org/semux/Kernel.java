@@ -34,6 +34,7 @@ import org.semux.core.SyncManager;
 import org.semux.core.Wallet;
 import org.semux.crypto.Hex;
 import org.semux.crypto.Key;
+import org.semux.crypto.VerificationPool;
 import org.semux.db.DatabaseFactory;
 import org.semux.db.DatabaseName;
 import org.semux.db.LeveldbDatabase;
@@ -46,6 +47,7 @@ import org.semux.net.NodeManager;
 import org.semux.net.PeerClient;
 import org.semux.net.PeerServer;
 import org.semux.util.Bytes;
+import org.semux.util.MetricRegistry;
 import org.semux.util.TimeUtil;
 import org.semux.vm.client.SemuxBlock;
 import org.slf4j.Logger;
@@ -102,6 +104,8 @@ public class Kernel {
     protected SemuxSync sync;
     protected SemuxBft bft;
 
+    protected final MetricRegistry metrics = new MetricRegistry();
+
     private final byte[] DUMMY_ADDRESS = new Key().toAddress();
 
     /**
@@ -143,13 +147,20 @@ public class Kernel {
         printSystemInfo();
         TimeUtil.startNtpProcess();
 
+        // ====================================
+        // initialize verification pool
+        // ====================================
+        VerificationPool.init(config.cryptoVerifyThreads());
+        VerificationPool.registerMetrics(metrics);
+
         // ====================================
         // initialize blockchain database
         // ====================================
-        dbFactory = new LeveldbFactory(config.chainDir());
+        dbFactory = new LeveldbFactory(config.chainDir(), metrics);
         chain = new BlockchainImpl(config, genesis, dbFactory);
         long number = chain.getLatestBlockNumber();
         logger.info("Latest block number = {}", number);
+        metrics.gauge("semux_chain_height", "The latest block number", () -> chain.getLatestBlockNumber());
 
         // ====================================
         // set up client
@@ -330,6 +341,11 @@ public class Kernel {
             lock.unlock();
         }
 
+        // fold the wallet journal into the wallet file, which is the one backed up
+        if (!wallet.isLocked() && !wallet.compactJournal()) {
+            logger.error("Failed to fold the journal into the wallet file");
+        }
+
         state = State.STOPPED;
     }
 
@@ -459,13 +475,31 @@ public class Kernel {
         return dbFactory;
     }
 
+    /**
+     * Returns the registry of node metrics.
+     *
+     * @return
+     */
+    public MetricRegistry getMetrics() {
+        return metrics;
+    }
+
     /**
      * Create an empty block.
      *
      * @return
      */
     public SemuxBlock createEmptyBlock() {
-        Block prevBlock = getBlockchain().getLatestBlock();
+        return createEmptyBlock(getBlockchain().getLatestBlock());
+    }
+
+    /**
+     * Create an empty block on top of the given block.
+     *
+     * @param prevBlock
+     * @return
+     */
+    public SemuxBlock createEmptyBlock(Block prevBlock) {
         BlockHeader blockHeader = new BlockHeader(
                 prevBlock.getNumber() + 1,
                 DUMMY_ADDRESS,
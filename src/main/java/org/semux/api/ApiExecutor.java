@@ -0,0 +1,372 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.api;
+
+import static javax.ws.rs.core.Response.Status.INTERNAL_SERVER_ERROR;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javax.ws.rs.core.Response;
+
+import org.semux.api.http.HttpHandler;
+import org.semux.config.Config;
+import org.semux.util.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes API routes on a bounded worker pool, so that slow routes (database
+ * scans, VM calls, lock contention) don't block the network event loops.
+ * <p>
+ * Every route additionally has a concurrency limit, so that a single slow route
+ * can't occupy all workers. Requests beyond either limit are rejected
+ * immediately rather than queued without bound. The route limits also apply to
+ * requests served as part of another one, which wait for a permit instead, see
+ * {@link #invoke(String, Supplier)} and {@link #invokeAll(List, List)}.
+ */
+public class ApiExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApiExecutor.class);
+
+    private static final ThreadFactory factory = new ThreadFactory() {
+        final AtomicInteger cnt = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            return new Thread(r, "api-exec-" + cnt.getAndIncrement());
+        }
+    };
+
+    /**
+     * The time nested invocations wait for a permit of their route, in
+     * milliseconds.
+     */
+    private static final long PERMIT_TIMEOUT = 10_000;
+
+    private final ThreadPoolExecutor executor;
+
+    private final int maxRouteConcurrency;
+    private final Map<String, Integer> routeConcurrency;
+
+    private final Map<String, RouteStats> stats = new ConcurrentHashMap<>();
+
+    private final long permitTimeout;
+
+    public ApiExecutor(Config config) {
+        this(config, PERMIT_TIMEOUT);
+    }
+
+    /**
+     * Creates an executor whose nested invocations wait up to the given time for
+     * a permit of their route.
+     *
+     * @param config
+     * @param permitTimeout
+     *            in milliseconds
+     */
+    ApiExecutor(Config config, long permitTimeout) {
+        int threads = config.apiMaxThreads();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(config.apiMaxQueueSize()), factory);
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.maxRouteConcurrency = config.apiMaxRouteConcurrency();
+        this.routeConcurrency = config.apiRouteConcurrency();
+        this.permitTimeout = permitTimeout;
+    }
+
+    /**
+     * Submits a route invocation.
+     *
+     * @param route
+     *            the route name
+     * @param task
+     *            the route invocation
+     * @param callback
+     *            the consumer of the response, called on the worker thread
+     * @return true if the task has been accepted, or false if the route or the
+     *         executor is saturated
+     */
+    public boolean submit(String route, Supplier<Response> task, Consumer<Response> callback) {
+        RouteStats s = getRouteStats(route);
+
+        if (!s.permits.tryAcquire()) {
+            s.rejected.increment();
+            return false;
+        }
+
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                s.queueWait.observe(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queuedAt));
+                callback.accept(run(s, task));
+            });
+        } catch (RejectedExecutionException e) {
+            s.permits.release();
+            s.rejected.increment();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Invokes a route on the calling thread, under the concurrency limit of the
+     * route. This is for requests served as part of another one, e.g. batched
+     * requests, which already run on a worker. It waits up to
+     * {@link #PERMIT_TIMEOUT} for a permit of the route.
+     *
+     * @param route
+     *            the route name
+     * @param task
+     *            the route invocation
+     * @return the response, or null if no permit is available in time
+     */
+    public Response invoke(String route, Supplier<Response> task) {
+        RouteStats s = getRouteStats(route);
+
+        if (!acquire(s, Collections.emptyList())) {
+            s.rejected.increment();
+            return null;
+        }
+
+        return run(s, task);
+    }
+
+    /**
+     * Invokes several routes in parallel on the workers, and waits for all of
+     * them. Each invocation runs under the concurrency limit of its own route:
+     * invocations are dispatched in order, each once a permit of its route is
+     * available, so that at most the permitted number of them are in flight.
+     * <p>
+     * While waiting for a permit, the calling thread runs the dispatched
+     * invocations no worker has picked up, so that the call completes even if
+     * all workers are busy, e.g. with other batches waiting for theirs.
+     *
+     * @param routes
+     *            the route names
+     * @param tasks
+     *            the route invocations, in the same order
+     * @return the responses in the same order, with null for the ones which got
+     *         no permit in time
+     */
+    public List<Response> invokeAll(List<String> routes, List<Supplier<Response>> tasks) {
+        AtomicReferenceArray<Response> responses = new AtomicReferenceArray<>(tasks.size());
+        CountDownLatch done = new CountDownLatch(tasks.size());
+
+        List<Invocation> dispatched = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            RouteStats s = getRouteStats(routes.get(i));
+            if (!acquire(s, dispatched)) {
+                s.rejected.increment();
+                done.countDown();
+                continue;
+            }
+
+            Invocation inv = new Invocation(i, s, tasks.get(i), responses, done);
+            dispatched.add(inv);
+
+            long queuedAt = System.nanoTime();
+            try {
+                executor.execute(() -> {
+                    if (inv.claim()) {
+                        s.queueWait.observe(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queuedAt));
+                        inv.run();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // the queue is full, run by the calling thread
+                if (inv.claim()) {
+                    inv.run();
+                }
+            }
+        }
+
+        for (Invocation inv : dispatched) {
+            if (inv.claim()) {
+                inv.run();
+            }
+        }
+
+        // the rest has been picked up by workers, and is running
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<Response> result = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            result.add(responses.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Acquires a permit of the route, waiting up to the permit timeout. While
+     * waiting, runs the given invocations which no worker has picked up yet, as
+     * they may hold the permits being waited for.
+     *
+     * @return whether the permit is acquired
+     */
+    private boolean acquire(RouteStats s, List<Invocation> dispatched) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(permitTimeout);
+        while (!s.permits.tryAcquire()) {
+            Invocation pending = dispatched.stream().filter(Invocation::claim).findFirst().orElse(null);
+            if (pending != null) {
+                pending.run();
+                continue;
+            }
+
+            long wait = deadline - System.nanoTime();
+            try {
+                return wait > 0 && s.permits.tryAcquire(wait, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs a task holding a permit of the route, and releases the permit.
+     */
+    private static Response run(RouteStats s, Supplier<Response> task) {
+        long startedAt = System.nanoTime();
+        try {
+            return task.get();
+        } catch (Exception e) {
+            logger.warn("Internal error", e);
+            return Response.status(INTERNAL_SERVER_ERROR)
+                    .entity(HttpHandler.INTERNAL_SERVER_ERROR_RESPONSE).build();
+        } finally {
+            s.execTime.observe(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+            s.permits.release();
+        }
+    }
+
+    private RouteStats getRouteStats(String route) {
+        return stats.computeIfAbsent(route,
+                r -> new RouteStats(routeConcurrency.getOrDefault(r, maxRouteConcurrency)));
+    }
+
+    /**
+     * Returns the statistics of the routes invoked so far.
+     *
+     * @return
+     */
+    public Map<String, RouteStats> getRouteStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    /**
+     * Stops accepting new requests; the running ones are allowed to complete.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * A route invocation of {@link #invokeAll(List, List)}, holding a permit of
+     * the route, which is run by whichever thread claims it first.
+     */
+    private static class Invocation {
+        final int index;
+        final RouteStats stats;
+        final Supplier<Response> task;
+        final AtomicReferenceArray<Response> responses;
+        final CountDownLatch done;
+        final AtomicBoolean claimed = new AtomicBoolean(false);
+
+        Invocation(int index, RouteStats stats, Supplier<Response> task, AtomicReferenceArray<Response> responses,
+                CountDownLatch done) {
+            this.index = index;
+            this.stats = stats;
+            this.task = task;
+            this.responses = responses;
+            this.done = done;
+        }
+
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        void run() {
+            try {
+                responses.set(index, ApiExecutor.run(stats, task));
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+
+    /**
+     * Execution statistics of a route.
+     */
+    public static class RouteStats {
+        private final Semaphore permits;
+        private final Histogram queueWait = new Histogram();
+        private final Histogram execTime = new Histogram();
+        private final LongAdder rejected = new LongAdder();
+
+        RouteStats(int maxConcurrency) {
+            this.permits = new Semaphore(maxConcurrency);
+        }
+
+        /**
+         * Returns the time requests spent waiting for a worker, in milliseconds.
+         *
+         * @return
+         */
+        public Histogram getQueueWait() {
+            return queueWait;
+        }
+
+        /**
+         * Returns the execution time of the route, in milliseconds.
+         *
+         * @return
+         */
+        public Histogram getExecTime() {
+            return execTime;
+        }
+
+        /**
+         * Returns the number of requests rejected because of saturation.
+         *
+         * @return
+         */
+        public long getRejected() {
+            return rejected.sum();
+        }
+    }
+}
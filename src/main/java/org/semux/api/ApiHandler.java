@@ -6,6 +6,8 @@
  */
 package org.semux.api;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import javax.ws.rs.core.Response;
@@ -34,4 +36,47 @@ public interface ApiHandler {
     Response service(HttpMethod method, String path, Map<String, String> params, HttpHeaders headers);
 
     boolean isAuthRequired(HttpMethod method, String path);
+
+    /**
+     * Returns the name of the route serving the request, which identifies it for
+     * concurrency limits and statistics.
+     *
+     * @param method
+     *            the method
+     * @param path
+     *            the path
+     * @return the route name, or null if there is no such route
+     */
+    default String getRouteName(HttpMethod method, String path) {
+        return path;
+    }
+
+    /**
+     * Returns whether the successful responses of the route never change, e.g.
+     * the ones about finalized blocks and transactions, so that they can be
+     * cached.
+     *
+     * @param method
+     *            the method
+     * @param path
+     *            the path
+     * @return
+     */
+    default boolean isImmutable(HttpMethod method, String path) {
+        return false;
+    }
+
+    /**
+     * Returns the names of the parameters declared by the route serving the
+     * request. Other parameters are ignored by the route.
+     *
+     * @param method
+     *            the method
+     * @param path
+     *            the path
+     * @return
+     */
+    default List<String> getParamNames(HttpMethod method, String path) {
+        return Collections.emptyList();
+    }
 }
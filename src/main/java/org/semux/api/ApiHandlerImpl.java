@@ -6,15 +6,31 @@
  */
 package org.semux.api;
 
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.Status.FORBIDDEN;
 import static javax.ws.rs.core.Response.Status.INTERNAL_SERVER_ERROR;
 import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+import static javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -28,7 +44,6 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Response;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
 import org.semux.Kernel;
 import org.semux.api.http.HttpHandler;
 import org.semux.api.v2.SemuxApiImpl;
@@ -43,6 +58,11 @@ import org.semux.util.exception.UnreachableException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
 
@@ -56,8 +76,24 @@ public class ApiHandlerImpl implements ApiHandler {
 
     private static final Pattern VERSIONED_PATH = Pattern.compile("/(v[.0-9]+)(/.*)");
 
+    /**
+     * The path of the batch route, which is served by the handler itself rather
+     * than by an API implementation.
+     */
+    public static final String BATCH_PATH = "/batch";
+
+    private static final int MAX_BATCH_SIZE = 100;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    // routes which only return finalized data
+    private static final Set<String> IMMUTABLE_ROUTES = new HashSet<>(Arrays.asList(
+            "/block-by-hash", "/block-by-number", "/transaction", "/transaction-result"));
+
     private final Map<ApiVersion, Map<ImmutablePair<HttpMethod, String>, Route>> routes = new HashMap<>();
 
+    private volatile ApiExecutor executor;
+
     public ApiHandlerImpl(Kernel kernel) {
         Map<ImmutablePair<HttpMethod, String>, Route> routesV2 = new HashMap<>();
         SemuxApi implV2 = new SemuxApiImpl(kernel);
@@ -72,6 +108,16 @@ public class ApiHandlerImpl implements ApiHandler {
         this.routes.put(ApiVersion.v2_5_0, routesV2);
     }
 
+    /**
+     * Sets the executor on which batched requests run, under the limits of their
+     * own routes. Without one, batched requests run sequentially and unlimited.
+     *
+     * @param executor
+     */
+    public void setExecutor(ApiExecutor executor) {
+        this.executor = executor;
+    }
+
     private void load(Map<ImmutablePair<HttpMethod, String>, Route> routes, SemuxApi impl,
             String[] services, boolean isPublic) {
         for (String service : services) {
@@ -100,6 +146,11 @@ public class ApiHandlerImpl implements ApiHandler {
 
     @Override
     public Response service(HttpMethod method, String path, Map<String, String> params, HttpHeaders headers) {
+        ApiVersion batchVersion = matchBatch(method, path);
+        if (batchVersion != null) {
+            return serviceBatch(batchVersion, params.get("requests"));
+        }
+
         Route route = matchRoute(method, path);
         if (route == null) {
             return Response.status(NOT_FOUND).entity(HttpHandler.NOT_FOUND_RESPONSE).build();
@@ -108,7 +159,7 @@ public class ApiHandlerImpl implements ApiHandler {
         // invoke the params
         try {
             return (Response) route.invoke(params);
-        } catch (Exception e) {
+        } catch (Throwable e) {
             logger.warn("Internal error", e);
             return Response.status(INTERNAL_SERVER_ERROR).entity(HttpHandler.INTERNAL_SERVER_ERROR_RESPONSE).build();
         }
@@ -120,6 +171,130 @@ public class ApiHandlerImpl implements ApiHandler {
         return route != null && !route.isPublic;
     }
 
+    /**
+     * Serves a batch of requests, given as a JSON array of
+     * <code>{"method": "GET", "path": "/block-by-number", "params": {...}}</code>
+     * entries. The entries run in parallel on the API workers if they are all
+     * reads, otherwise sequentially in order. Either way, each entry waits for a
+     * permit of its own route, and is answered with 503 only if none is available
+     * in time.
+     * <p>
+     * Only public routes can be batched, as the batch itself doesn't require
+     * authentication.
+     */
+    private Response serviceBatch(ApiVersion version, String requests) {
+        List<BatchEntry> entries;
+        try {
+            entries = requests == null ? null
+                    : objectMapper.readValue(requests, new TypeReference<List<BatchEntry>>() {
+                    });
+        } catch (IOException e) {
+            entries = null;
+        }
+        if (entries == null || entries.isEmpty() || entries.size() > MAX_BATCH_SIZE) {
+            return Response.status(BAD_REQUEST).entity(HttpHandler.BAD_REQUEST_RESPONSE).build();
+        }
+
+        ApiExecutor e = executor;
+        boolean readOnly = entries.stream().allMatch(entry -> HttpMethod.GET.equals(entry.httpMethod()));
+
+        List<Response> responses = new ArrayList<>(Collections.nCopies(entries.size(), null));
+        List<Integer> indexes = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<Supplier<Response>> tasks = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            BatchEntry entry = entries.get(i);
+            Route route = entry.path == null || entry.httpMethod() == null ? null
+                    : routes.get(version).get(ImmutablePair.of(entry.httpMethod(), entry.path));
+
+            if (route == null) {
+                responses.set(i, Response.status(NOT_FOUND).entity(HttpHandler.NOT_FOUND_RESPONSE).build());
+            } else if (!route.isPublic) {
+                responses.set(i, Response.status(FORBIDDEN).entity(HttpHandler.FORBIDDEN_RESPONSE).build());
+            } else {
+                Map<String, String> params = entry.params == null ? Collections.emptyMap() : entry.params;
+                indexes.add(i);
+                names.add(route.path);
+                tasks.add(() -> invoke(route, params));
+            }
+        }
+
+        List<Response> results;
+        if (e == null) {
+            results = tasks.stream().map(Supplier::get).collect(Collectors.toList());
+        } else if (readOnly) {
+            results = e.invokeAll(names, tasks);
+        } else {
+            results = new ArrayList<>();
+            for (int i = 0; i < tasks.size(); i++) {
+                results.add(e.invoke(names.get(i), tasks.get(i)));
+            }
+        }
+        for (int i = 0; i < indexes.size(); i++) {
+            Response response = results.get(i);
+            responses.set(indexes.get(i), response != null ? response
+                    : Response.status(SERVICE_UNAVAILABLE).entity(HttpHandler.SERVICE_UNAVAILABLE_RESPONSE).build());
+        }
+
+        List<Map<String, Object>> result = responses.stream()
+                .map(ApiHandlerImpl::toBatchResult)
+                .collect(Collectors.toList());
+
+        return Response.ok().entity(result).build();
+    }
+
+    private static Map<String, Object> toBatchResult(Response response) {
+        // error responses are pre-serialized JSON strings
+        Object body = response.getEntity();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("status", response.getStatus());
+        result.put("body", body instanceof String ? new RawValue((String) body) : body);
+        return result;
+    }
+
+    private static Response invoke(Route route, Map<String, String> params) {
+        try {
+            return (Response) route.invoke(params);
+        } catch (Throwable e) {
+            logger.warn("Internal error", e);
+            return Response.status(INTERNAL_SERVER_ERROR).entity(HttpHandler.INTERNAL_SERVER_ERROR_RESPONSE).build();
+        }
+    }
+
+    @Override
+    public boolean isImmutable(HttpMethod method, String path) {
+        Route route = matchRoute(method, path);
+        return route != null && route.httpMethod == HttpMethod.GET && IMMUTABLE_ROUTES.contains(route.path);
+    }
+
+    @Override
+    public List<String> getParamNames(HttpMethod method, String path) {
+        Route route = matchRoute(method, path);
+        return route == null ? Collections.emptyList() : Arrays.asList(route.paramNames);
+    }
+
+    @Override
+    public String getRouteName(HttpMethod method, String path) {
+        if (matchBatch(method, path) != null) {
+            return BATCH_PATH;
+        }
+
+        Route route = matchRoute(method, path);
+        return route == null ? null : route.path;
+    }
+
+    /**
+     * Matches the batch route, returning its version.
+     */
+    private ApiVersion matchBatch(HttpMethod method, String path) {
+        Matcher m = VERSIONED_PATH.matcher(path);
+        if (HttpMethod.POST.equals(method) && m.matches() && BATCH_PATH.equals(m.group(2))
+                && routes.containsKey(ApiVersion.of(m.group(1)))) {
+            return ApiVersion.of(m.group(1));
+        }
+        return null;
+    }
+
     /**
      * Matches route by [version, method, path]
      */
@@ -177,63 +352,83 @@ public class ApiHandlerImpl implements ApiHandler {
                     logger.trace("Loaded route: {} {}", httpMethod, path);
                 }
             }
-        } catch (SecurityException | NoSuchMethodException e) {
+        } catch (SecurityException | NoSuchMethodException | IllegalAccessException e) {
             throw new UnreachableException(e);
         }
 
         return result;
     }
 
-    private class Route {
+    /**
+     * A request of a batch.
+     */
+    private static class BatchEntry {
+        @JsonProperty("method")
+        String method = "GET";
+
+        @JsonProperty("path")
+        String path;
+
+        @JsonProperty("params")
+        Map<String, String> params;
 
-        final Object semuxApi;
+        HttpMethod httpMethod() {
+            try {
+                return method == null ? null : HttpMethod.valueOf(method.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * A route, compiled at startup into a method handle and a list of parameter
+     * converters, so that dispatching a request doesn't involve reflection.
+     */
+    private static class Route {
 
-        @SuppressWarnings("unused")
         final HttpMethod httpMethod;
 
-        @SuppressWarnings("unused")
         final String path;
 
-        @SuppressWarnings("unused")
-        final Method methodInterface;
+        final String[] paramNames;
 
-        final Method methodImpl;
+        final List<Function<String, Object>> paramConverters;
 
-        final List<Pair<QueryParam, Class<?>>> queryParams;
+        // (Object[]) -> Object, bound to the API implementation
+        final MethodHandle handle;
 
         final boolean isPublic;
 
         Route(Object semuxApi, HttpMethod httpMethod, String path, Method methodInterface, Method methodImpl,
-                boolean isPublic) {
-            this.semuxApi = semuxApi;
+                boolean isPublic) throws IllegalAccessException {
             this.httpMethod = httpMethod;
             this.path = path;
-            this.methodInterface = methodInterface;
-            this.methodImpl = methodImpl;
-            this.queryParams = Arrays
-                    .stream(methodInterface.getParameters())
-                    .map(p -> new ImmutablePair<QueryParam, Class<?>>(p.getAnnotation(QueryParam.class), p.getType()))
-                    .collect(Collectors.toList());
-            this.isPublic = isPublic;
-        }
 
-        Object invoke(Map<String, String> params) throws Exception {
-            Object[] args = queryParams.stream().map(p -> {
-                String param = params.getOrDefault(p.getLeft().value(), null);
-
-                if (param == null) {
-                    return null;
-                }
+            Parameter[] params = methodInterface.getParameters();
+            this.paramNames = new String[params.length];
+            this.paramConverters = new ArrayList<>(params.length);
+            for (int i = 0; i < params.length; i++) {
+                QueryParam queryParam = params[i].getAnnotation(QueryParam.class);
+                paramNames[i] = queryParam != null ? queryParam.value() : params[i].getName();
+                paramConverters.add(params[i].getType().equals(Boolean.class) ? Boolean::parseBoolean : p -> p);
+            }
 
-                // convert params
-                if (p.getRight().equals(Boolean.class)) {
-                    return Boolean.parseBoolean(param);
-                }
+            this.handle = MethodHandles.publicLookup().unreflect(methodImpl)
+                    .bindTo(semuxApi)
+                    .asSpreader(Object[].class, params.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+            this.isPublic = isPublic;
+        }
 
-                return param;
-            }).toArray();
+        Object invoke(Map<String, String> params) throws Throwable {
+            Object[] args = new Object[paramNames.length];
+            for (int i = 0; i < args.length; i++) {
+                String param = params.get(paramNames[i]);
+                args[i] = param == null ? null : paramConverters.get(i).apply(param);
+            }
 
-            return this.methodImpl.invoke(semuxApi, args);
+            return (Object) handle.invokeExact(args);
         }
     }
 }
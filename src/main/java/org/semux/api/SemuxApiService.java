@@ -6,12 +6,22 @@
  */
 package org.semux.api;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.semux.Kernel;
+import org.semux.api.http.EventStreamHub;
 import org.semux.api.http.HttpChannelInitializer;
+import org.semux.api.http.HttpCompressor;
 import org.semux.api.http.HttpHandler;
+import org.semux.api.http.ResponseCache;
+import org.semux.config.Config;
+import org.semux.util.MetricRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,6 +32,7 @@ import io.netty.channel.EventLoopGroup;
 import io.netty.channel.FixedRecvByteBufAllocator;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpContentCompressor;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 
@@ -47,7 +58,10 @@ public class SemuxApiService {
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
 
-    private ApiHandler apiHandler;
+    private ApiHandlerImpl apiHandler;
+    private ApiExecutor apiExecutor;
+    private ResponseCache responseCache;
+    private EventStreamHub eventStreamHub;
 
     private String ip;
     private int port;
@@ -55,6 +69,14 @@ public class SemuxApiService {
     public SemuxApiService(Kernel kernel) {
         this.kernel = kernel;
         this.apiHandler = new ApiHandlerImpl(kernel);
+
+        MetricRegistry metrics = kernel.getMetrics();
+        metrics.histograms("semux_api_route_exec_ms", "Execution time of API routes in milliseconds", "route",
+                () -> routeStats(ApiExecutor.RouteStats::getExecTime));
+        metrics.histograms("semux_api_route_queue_wait_ms", "Queue wait of API routes in milliseconds", "route",
+                () -> routeStats(ApiExecutor.RouteStats::getQueueWait));
+        metrics.gauges("semux_api_route_rejected", "Number of API requests rejected by the route limits", "route",
+                () -> routeStats(ApiExecutor.RouteStats::getRejected));
     }
 
     /**
@@ -86,6 +108,14 @@ public class SemuxApiService {
         try {
             this.ip = ip;
             this.port = port;
+            apiExecutor = new ApiExecutor(kernel.getConfig());
+            this.apiHandler.setExecutor(apiExecutor);
+            long cacheSize = kernel.getConfig().apiResponseCacheSize();
+            responseCache = cacheSize > 0 ? new ResponseCache(cacheSize) : null;
+            if (isEventStreamEnabled(kernel.getConfig())) {
+                eventStreamHub = new EventStreamHub(kernel);
+                eventStreamHub.start();
+            }
             bossGroup = new NioEventLoopGroup(1, factory);
             workerGroup = new NioEventLoopGroup(0, factory);
 
@@ -93,7 +123,16 @@ public class SemuxApiService {
             b.group(bossGroup, workerGroup).channel(NioServerSocketChannel.class)
                     .handler(new LoggingHandler(LogLevel.INFO)).childHandler(new HttpChannelInitializer() {
                         public HttpHandler initHandler() {
-                            return new HttpHandler(kernel, apiHandler);
+                            return new HttpHandler(kernel, apiHandler, apiExecutor, responseCache, eventStreamHub);
+                        }
+
+                        @Override
+                        public HttpContentCompressor initCompressor() {
+                            Config config = kernel.getConfig();
+                            return config.apiCompressionLevel() > 0
+                                    ? new HttpCompressor(config.apiCompressionLevel(), config.apiCompressionMinSize(),
+                                            config.apiCompressionExcludedTypes())
+                                    : null;
                         }
                     });
 
@@ -122,6 +161,11 @@ public class SemuxApiService {
 
                 workerGroup.shutdownGracefully();
                 bossGroup.shutdownGracefully();
+                apiExecutor.shutdown();
+                if (eventStreamHub != null) {
+                    eventStreamHub.stop();
+                    eventStreamHub = null;
+                }
 
                 // workerGroup.terminationFuture().sync();
                 // bossGroup.terminationFuture().sync();
@@ -134,6 +178,45 @@ public class SemuxApiService {
         }
     }
 
+    /**
+     * Returns the executor of API routes, if started.
+     *
+     * @return
+     */
+    public ApiExecutor getApiExecutor() {
+        return apiExecutor;
+    }
+
+    /**
+     * Returns a statistic of every route, or an empty map if the server is not
+     * started.
+     *
+     * @param stat
+     * @return
+     */
+    private <T> Map<String, T> routeStats(Function<ApiExecutor.RouteStats, T> stat) {
+        ApiExecutor executor = apiExecutor;
+        if (executor == null) {
+            return Collections.emptyMap();
+        }
+
+        return executor.getRouteStats().entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> stat.apply(e.getValue())));
+    }
+
+    /**
+     * Returns whether the event stream is enabled, i.e. the blockchain service is
+     * enabled and there is room for at least one subscriber.
+     *
+     * @param config
+     * @return
+     */
+    private static boolean isEventStreamEnabled(Config config) {
+        return config.apiMaxEventSubscribers() > 0
+                && Stream.concat(Stream.of(config.apiPublicServices()), Stream.of(config.apiPrivateServices()))
+                        .anyMatch("blockchain"::equals);
+    }
+
     public String getIp() {
         return ip;
     }
@@ -0,0 +1,360 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.api.http;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.CACHE_CONTROL;
+import static io.netty.handler.codec.http.HttpHeaderNames.CONNECTION;
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
+import static io.netty.handler.codec.http.HttpHeaderValues.KEEP_ALIVE;
+import static io.netty.handler.codec.http.HttpHeaderValues.NO_CACHE;
+import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.semux.Kernel;
+import org.semux.api.v2.TypeFactory;
+import org.semux.core.Block;
+import org.semux.core.BlockchainListener;
+import org.semux.core.Transaction;
+import org.semux.core.event.PendingTransactionAddedEvent;
+import org.semux.crypto.CryptoException;
+import org.semux.crypto.Hex;
+import org.semux.crypto.Key;
+import org.semux.event.PubSubEvent;
+import org.semux.event.PubSubFactory;
+import org.semux.event.PubSubSubscriber;
+import org.semux.util.ByteArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
+
+/**
+ * Pushes new blocks, pending transactions and account activity to API clients
+ * as Server-Sent Events, so that they don't have to poll for them.
+ *
+ * <pre>
+ * GET /events?topics=blocks,transactions,accounts&amp;address=0x...,0x...
+ *
+ * event: block
+ * data: {"number":"1","hash":"0x..",...}
+ *
+ * event: transaction
+ * data: {"hash":"0x..","type":"TRANSFER",...}
+ *
+ * event: account
+ * data: {"address":"0x..","pending":false,"blockNumber":"1","transaction":{...}}
+ * </pre>
+ *
+ * Every event is serialized once and shared by all subscribers. Each subscriber
+ * may have a bounded number of events not yet written to its socket; a
+ * subscriber that falls behind is disconnected.
+ */
+public class EventStreamHub implements BlockchainListener, PubSubSubscriber {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventStreamHub.class);
+
+    public static final String TOPIC_BLOCKS = "blocks";
+    public static final String TOPIC_TRANSACTIONS = "transactions";
+    public static final String TOPIC_ACCOUNTS = "accounts";
+
+    private static final Set<String> TOPICS = new HashSet<>(
+            Arrays.asList(TOPIC_BLOCKS, TOPIC_TRANSACTIONS, TOPIC_ACCOUNTS));
+
+    private static final int MAX_ADDRESSES = 100;
+    private static final long HEARTBEAT_INTERVAL = 15;
+
+    private static final byte[] HEARTBEAT = ": ping\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Kernel kernel;
+    private final boolean isPublic;
+    private final int maxSubscribers;
+    private final int bufferSize;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // serializes and dispatches events in order, off the consensus and sync threads
+    private final ScheduledExecutorService exec = Executors.newSingleThreadScheduledExecutor(
+            r -> new Thread(r, "api-events"));
+
+    private volatile boolean isRunning;
+
+    public EventStreamHub(Kernel kernel) {
+        this.kernel = kernel;
+        this.isPublic = Arrays.asList(kernel.getConfig().apiPublicServices()).contains("blockchain");
+        this.maxSubscribers = kernel.getConfig().apiMaxEventSubscribers();
+        this.bufferSize = kernel.getConfig().apiEventBufferSize();
+    }
+
+    /**
+     * Starts listening to blockchain and pending pool events.
+     */
+    public void start() {
+        isRunning = true;
+        kernel.getBlockchain().addListener(this);
+        PubSubFactory.getDefault().subscribe(this, PendingTransactionAddedEvent.class);
+        exec.scheduleAtFixedRate(() -> broadcast(HEARTBEAT), HEARTBEAT_INTERVAL, HEARTBEAT_INTERVAL,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops pushing events and closes all streams.
+     */
+    public void stop() {
+        isRunning = false;
+        PubSubFactory.getDefault().unsubscribeAll(this);
+        exec.shutdownNow();
+
+        subscribers.forEach(s -> s.channel.close());
+        subscribers.clear();
+    }
+
+    /**
+     * Starts an event stream on the channel of an HTTP request.
+     *
+     * @param ctx
+     *            the channel handler context
+     * @param params
+     *            the request parameters, i.e. topics and address
+     * @return false if there are too many subscribers
+     * @throws IllegalArgumentException
+     *             if the parameters are invalid
+     */
+    public boolean subscribe(ChannelHandlerContext ctx, Map<String, String> params) {
+        Set<String> topics = new HashSet<>();
+        Set<ByteArray> addresses = new HashSet<>();
+
+        String address = params.get("address");
+        if (address != null && !address.trim().isEmpty()) {
+            for (String a : address.split(",")) {
+                byte[] bytes;
+                try {
+                    bytes = Hex.decode0x(a.trim());
+                } catch (CryptoException e) {
+                    throw new IllegalArgumentException("Invalid address: " + a);
+                }
+                if (bytes.length != Key.ADDRESS_LEN) {
+                    throw new IllegalArgumentException("Invalid address: " + a);
+                }
+                addresses.add(ByteArray.of(bytes));
+            }
+            if (addresses.size() > MAX_ADDRESSES) {
+                throw new IllegalArgumentException("Too many addresses, the max is " + MAX_ADDRESSES);
+            }
+        }
+
+        String topic = params.get("topics");
+        if (topic == null || topic.trim().isEmpty()) {
+            topics.add(addresses.isEmpty() ? TOPIC_BLOCKS : TOPIC_ACCOUNTS);
+        } else {
+            for (String t : topic.split(",")) {
+                if (!TOPICS.contains(t.trim())) {
+                    throw new IllegalArgumentException("Invalid topic: " + t);
+                }
+                topics.add(t.trim());
+            }
+        }
+        if (topics.contains(TOPIC_ACCOUNTS) && addresses.isEmpty()) {
+            throw new IllegalArgumentException("Account events require at least one address");
+        }
+
+        if (!isRunning || subscribers.size() >= maxSubscribers) {
+            return false;
+        }
+
+        HttpResponse resp = new DefaultHttpResponse(HTTP_1_1, OK);
+        resp.headers().set(CONTENT_TYPE, "text/event-stream; charset=UTF-8");
+        resp.headers().set(CACHE_CONTROL, NO_CACHE);
+        resp.headers().set(CONNECTION, KEEP_ALIVE);
+        HttpUtil.setTransferEncodingChunked(resp, true);
+        ctx.writeAndFlush(resp);
+
+        Subscriber subscriber = new Subscriber(ctx.channel(), topics, addresses);
+        subscribers.add(subscriber);
+        ctx.channel().closeFuture().addListener(f -> subscribers.remove(subscriber));
+
+        logger.debug("New event subscriber: channel = {}, topics = {}, addresses = {}", ctx.channel(), topics,
+                addresses.size());
+        return true;
+    }
+
+    /**
+     * Returns whether the event stream is accessible without authentication,
+     * i.e. the blockchain service is public.
+     *
+     * @return
+     */
+    public boolean isPublic() {
+        return isPublic;
+    }
+
+    /**
+     * Returns the number of active subscribers.
+     *
+     * @return
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void onBlockAdded(Block block) {
+        if (isRunning && !subscribers.isEmpty()) {
+            exec.execute(() -> publishBlock(block));
+        }
+    }
+
+    @Override
+    public void onPubSubEvent(PubSubEvent event) {
+        if (event instanceof PendingTransactionAddedEvent && isRunning && !subscribers.isEmpty()) {
+            Transaction tx = ((PendingTransactionAddedEvent) event).transaction;
+            exec.execute(() -> publishTransaction(tx));
+        }
+    }
+
+    protected void publishBlock(Block block) {
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("number", String.valueOf(block.getNumber()));
+        header.put("hash", Hex.encode0x(block.getHash()));
+        header.put("parentHash", Hex.encode0x(block.getParentHash()));
+        header.put("coinbase", Hex.encode0x(block.getCoinbase()));
+        header.put("timestamp", String.valueOf(block.getTimestamp()));
+        header.put("view", block.getView());
+        header.put("transactions", block.getTransactions().size());
+
+        byte[] frame = frame("block", header);
+        for (Subscriber s : subscribers) {
+            if (s.topics.contains(TOPIC_BLOCKS)) {
+                send(s, frame);
+            }
+        }
+
+        publishAccountActivity(block.getTransactions(), block.getNumber());
+    }
+
+    protected void publishTransaction(Transaction tx) {
+        byte[] frame = frame("transaction", TypeFactory.transactionType(tx));
+        for (Subscriber s : subscribers) {
+            if (s.topics.contains(TOPIC_TRANSACTIONS)) {
+                send(s, frame);
+            }
+        }
+
+        publishAccountActivity(Collections.singletonList(tx), -1);
+    }
+
+    private void publishAccountActivity(Iterable<Transaction> transactions, long blockNumber) {
+        if (subscribers.stream().noneMatch(s -> s.topics.contains(TOPIC_ACCOUNTS))) {
+            return;
+        }
+
+        for (Transaction tx : transactions) {
+            for (byte[] address : new byte[][] { tx.getFrom(), tx.getTo() }) {
+                ByteArray key = ByteArray.of(address);
+                Set<Subscriber> matched = subscribers.stream()
+                        .filter(s -> s.topics.contains(TOPIC_ACCOUNTS) && s.addresses.contains(key))
+                        .collect(Collectors.toSet());
+                if (matched.isEmpty()) {
+                    continue;
+                }
+
+                Map<String, Object> activity = new LinkedHashMap<>();
+                activity.put("address", Hex.encode0x(address));
+                activity.put("pending", blockNumber < 0);
+                if (blockNumber >= 0) {
+                    activity.put("blockNumber", String.valueOf(blockNumber));
+                }
+                activity.put("transaction", TypeFactory.transactionType(tx));
+
+                byte[] frame = frame("account", activity);
+                matched.forEach(s -> send(s, frame));
+
+                if (Arrays.equals(tx.getFrom(), tx.getTo())) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private void broadcast(byte[] frame) {
+        subscribers.forEach(s -> send(s, frame));
+    }
+
+    private void send(Subscriber s, byte[] frame) {
+        if (!s.send(frame, bufferSize)) {
+            logger.debug("Dropping slow event subscriber: channel = {}", s.channel);
+            subscribers.remove(s);
+            s.channel.close();
+        }
+    }
+
+    private static byte[] frame(String event, Object data) {
+        try {
+            return ("event: " + event + "\ndata: " + objectMapper.writeValueAsString(data) + "\n\n")
+                    .getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * An open event stream.
+     */
+    private static class Subscriber {
+        final Channel channel;
+        final Set<String> topics;
+        final Set<ByteArray> addresses;
+
+        // events passed to the channel but not yet written to the socket
+        final AtomicInteger pending = new AtomicInteger(0);
+
+        Subscriber(Channel channel, Set<String> topics, Set<ByteArray> addresses) {
+            this.channel = channel;
+            this.topics = topics;
+            this.addresses = addresses;
+        }
+
+        /**
+         * Writes an event.
+         *
+         * @return false if the subscriber has too many events pending
+         */
+        boolean send(byte[] frame, int bufferSize) {
+            if (pending.incrementAndGet() > bufferSize) {
+                return false;
+            }
+
+            channel.writeAndFlush(new DefaultHttpContent(Unpooled.wrappedBuffer(frame)))
+                    .addListener(f -> pending.decrementAndGet());
+            return true;
+        }
+    }
+}
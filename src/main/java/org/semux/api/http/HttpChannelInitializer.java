@@ -9,6 +9,7 @@ package org.semux.api.http;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.HttpContentCompressor;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.codec.http.HttpServerKeepAliveHandler;
@@ -21,6 +22,10 @@ public abstract class HttpChannelInitializer extends ChannelInitializer<SocketCh
         ChannelPipeline p = ch.pipeline();
         p.addLast(new HttpServerCodec(HttpConstants.MAX_INITIAL_LINE_LENGTH, HttpConstants.MAX_HEADER_SIZE,
                 HttpConstants.MAX_CHUNK_SIZE));
+        HttpContentCompressor compressor = initCompressor();
+        if (compressor != null) {
+            p.addLast(compressor);
+        }
         p.addLast(new HttpServerKeepAliveHandler());
         p.addLast(new HttpObjectAggregator(HttpConstants.MAX_BODY_SIZE));
         p.addLast(new ChunkedWriteHandler());
@@ -28,4 +33,13 @@ public abstract class HttpChannelInitializer extends ChannelInitializer<SocketCh
     }
 
     public abstract HttpHandler initHandler();
+
+    /**
+     * Returns the response compressor of a new channel.
+     *
+     * @return the compressor, or null if responses are not compressed
+     */
+    public HttpContentCompressor initCompressor() {
+        return null;
+    }
 }
@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.api.http;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponse;
+
+/**
+ * Compresses API responses with gzip or deflate, as negotiated by the
+ * Accept-Encoding request header.
+ */
+public class HttpCompressor extends HttpContentCompressor {
+
+    private final Set<String> excludedTypes;
+
+    /**
+     * Creates a compressor.
+     *
+     * @param level
+     *            the compression level, 1 (fastest) to 9 (best compression)
+     * @param minSize
+     *            the min size in bytes of response bodies to compress; only
+     *            applies to responses whose size is known in advance
+     * @param excludedTypes
+     *            the content types which are not compressed, e.g. images
+     */
+    public HttpCompressor(int level, int minSize, String[] excludedTypes) {
+        super(level, 15, 8, minSize);
+        this.excludedTypes = Arrays.stream(excludedTypes)
+                .map(t -> t.trim().toLowerCase(Locale.ROOT))
+                .filter(t -> !t.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    protected Result beginEncode(HttpResponse headers, String acceptEncoding) throws Exception {
+        headers.headers().set(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING);
+
+        String contentType = headers.headers().get(HttpHeaderNames.CONTENT_TYPE);
+        if (contentType != null) {
+            String mimeType = contentType.split(";")[0].trim().toLowerCase(Locale.ROOT);
+            if (excludedTypes.contains(mimeType)) {
+                return null;
+            }
+        }
+
+        Result result = super.beginEncode(headers, acceptEncoding);
+
+        // a strong entity tag identifies one representation, so it's suffixed
+        // with the content coding
+        String etag = headers.headers().get(HttpHeaderNames.ETAG);
+        if (result != null && etag != null && etag.endsWith("\"") && !etag.startsWith("W/")) {
+            headers.headers().set(HttpHeaderNames.ETAG,
+                    etag.substring(0, etag.length() - 1) + "-" + result.targetContentEncoding() + "\"");
+        }
+
+        return result;
+    }
+}
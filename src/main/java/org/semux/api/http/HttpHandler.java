@@ -13,13 +13,20 @@ import static io.netty.handler.codec.http.HttpHeaderValues.KEEP_ALIVE;
 import static io.netty.handler.codec.http.HttpResponseStatus.BAD_REQUEST;
 import static io.netty.handler.codec.http.HttpResponseStatus.INTERNAL_SERVER_ERROR;
 import static io.netty.handler.codec.http.HttpResponseStatus.NOT_FOUND;
+import static io.netty.handler.codec.http.HttpResponseStatus.NOT_MODIFIED;
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static io.netty.handler.codec.http.HttpResponseStatus.SERVICE_UNAVAILABLE;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.nio.charset.Charset;
 import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,17 +37,21 @@ import javax.ws.rs.core.Response;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.semux.Kernel;
+import org.semux.api.ApiExecutor;
 import org.semux.api.ApiHandler;
 import org.semux.config.Config;
 import org.semux.util.BasicAuth;
 import org.semux.util.Bytes;
+import org.semux.util.MetricRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
@@ -71,30 +82,58 @@ public class HttpHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
     public static final String NOT_FOUND_RESPONSE = "{\"success\":false,\"message\":\"404 Not Found\"}";
     public static final String BAD_REQUEST_RESPONSE = "{\"success\":false,\"message\":\"400 Bad Request\"}";
     public static final String FORBIDDEN_RESPONSE = "{\"success\":false,\"message\":\"403 Forbidden\"}";
+    public static final String SERVICE_UNAVAILABLE_RESPONSE = "{\"success\":false,\"message\":\"503 Service Unavailable\"}";
 
     private static final Charset CHARSET = CharsetUtil.UTF_8;
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final ObjectWriter jsonWriter = objectMapper.writer();
+    private static final ObjectWriter prettyJsonWriter = objectMapper.writerWithDefaultPrettyPrinter();
     private static final MimetypesFileTypeMap mimeTypesMap = new MimetypesFileTypeMap(
             HttpHandler.class.getResourceAsStream("/org/semux/api/mime.types"));
 
     private static final String JSON_CONTENT_TYPE = "application/json; charset=UTF-8";
+    private static final String METRICS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final String METRICS_PATH = "/metrics";
 
     private static final Pattern STATIC_FILE_PATTERN = Pattern.compile("^.+\\.(html|json|js|css|png|yml)$");
+    private static final Pattern EVENTS_PATTERN = Pattern.compile("^/(v[.0-9]+/)?events$");
 
     private final Config config;
     private final ApiHandler apiHandler;
+    private final ApiExecutor apiExecutor;
+    private final ResponseCache responseCache;
+    private final EventStreamHub eventStreamHub;
+    private final MetricRegistry metrics;
 
-    private Boolean isKeepAlive = false;
+    // HTTP/1.1 requires the responses of pipelined requests to be sent in order,
+    // so the requests of a connection are served one at a time, and the ones
+    // arriving while a route is executed asynchronously are queued
+    private final Deque<FullHttpRequest> pending = new ArrayDeque<>();
+    private boolean busy = false;
+
+    // once an event stream is opened, the rest of the connection belongs to it,
+    // and the requests still arriving on it are dropped
+    private boolean streaming = false;
 
     /**
      * Construct a HTTP handler.
      *
      * @param kernel
      * @param apiHandler
+     * @param apiExecutor
+     * @param responseCache
+     *            the cache of immutable responses, or null if disabled
+     * @param eventStreamHub
+     *            the event stream hub, or null if disabled
      */
-    public HttpHandler(Kernel kernel, ApiHandler apiHandler) {
+    public HttpHandler(Kernel kernel, ApiHandler apiHandler, ApiExecutor apiExecutor, ResponseCache responseCache,
+            EventStreamHub eventStreamHub) {
         this.config = kernel.getConfig();
         this.apiHandler = apiHandler;
+        this.apiExecutor = apiExecutor;
+        this.responseCache = responseCache;
+        this.eventStreamHub = eventStreamHub;
+        this.metrics = kernel.getMetrics();
     }
 
     /**
@@ -104,10 +143,21 @@ public class HttpHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
      *            semux config instance.
      * @param apiHandler
      *            a customized ApiHandler for testing purpose.
+     * @param apiExecutor
+     *            the executor of API routes.
+     * @param responseCache
+     *            the cache of immutable responses, or null if disabled.
+     * @param eventStreamHub
+     *            the event stream hub, or null if disabled.
      */
-    protected HttpHandler(Config config, ApiHandler apiHandler) {
+    protected HttpHandler(Config config, ApiHandler apiHandler, ApiExecutor apiExecutor,
+            ResponseCache responseCache, EventStreamHub eventStreamHub) {
         this.config = config;
         this.apiHandler = apiHandler;
+        this.apiExecutor = apiExecutor;
+        this.responseCache = responseCache;
+        this.eventStreamHub = eventStreamHub;
+        this.metrics = null;
     }
 
     @Override
@@ -115,35 +165,67 @@ public class HttpHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
         ctx.flush();
     }
 
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        FullHttpRequest msg;
+        while ((msg = pending.poll()) != null) {
+            msg.release();
+        }
+        super.channelInactive(ctx);
+    }
+
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest msg) {
+        if (streaming) {
+            return;
+        }
+        if (busy) {
+            pending.add(msg.retain());
+            return;
+        }
+        serve(ctx, msg);
+    }
+
+    /**
+     * Serves the queued requests, once the response of the previous one has been
+     * written. Called on the event loop.
+     */
+    private void serveNext(ChannelHandlerContext ctx) {
+        busy = false;
+        FullHttpRequest msg;
+        while (!busy && (msg = pending.poll()) != null) {
+            try {
+                serve(ctx, msg);
+            } finally {
+                msg.release();
+            }
+        }
+        if (!busy) {
+            ctx.channel().config().setAutoRead(true);
+        }
+    }
+
+    private void serve(ChannelHandlerContext ctx, FullHttpRequest msg) {
         URI uri = URI.create(msg.uri());
 
         // copy collection to ensure it is writable
         Map<String, List<String>> params = new HashMap<>(new QueryStringDecoder(msg.uri(), CHARSET).parameters());
         HttpHeaders headers = msg.headers();
-        ByteBuf body = Unpooled.buffer(HttpConstants.MAX_BODY_SIZE);
+
+        // check if keep-alive is supported
+        boolean keepAlive = HttpUtil.isKeepAlive(msg);
 
         // check decoding result
         if (!msg.decoderResult().isSuccess()) {
-            writeJsonResponse(ctx, BAD_REQUEST, BAD_REQUEST_RESPONSE);
+            writeJsonResponse(ctx, BAD_REQUEST, BAD_REQUEST_RESPONSE, keepAlive);
             return;
         }
 
-        // check if keep-alive is supported
-        isKeepAlive = HttpUtil.isKeepAlive(msg);
-
-        // read request body
+        // parse parameter from request body, which has been aggregated already
         ByteBuf content = msg.content();
-        int length = content.readableBytes();
-        if (length > 0) {
-            body.writeBytes(content, length);
-        }
-
-        // parse parameter from request body
-        if (body.readableBytes() > 0) {
+        if (content.isReadable()) {
             // FIXME: assuming "application/x-www-form-urlencoded"
-            QueryStringDecoder decoder = new QueryStringDecoder("?" + body.toString(CHARSET));
+            QueryStringDecoder decoder = new QueryStringDecoder(content.toString(CHARSET), CHARSET, false);
             Map<String, List<String>> map = decoder.parameters();
             for (Map.Entry<String, List<String>> entry : map.entrySet()) {
                 if (params.containsKey(entry.getKey())) {
@@ -168,34 +250,104 @@ public class HttpHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
         ChannelFuture lastContentFuture;
         String path = uri.getPath();
         if ("/".equals(path)) {
-            lastContentFuture = writeStaticFile(ctx, "/org/semux/api/index.html");
+            lastContentFuture = writeStaticFile(ctx, "/org/semux/api/index.html", keepAlive);
 
         } else if (STATIC_FILE_PATTERN.matcher(path).matches()) {
             if (path.startsWith("/swagger-ui/")) {
                 lastContentFuture = writeStaticFile(ctx,
-                        "/META-INF/resources/webjars/swagger-ui/3.22.2" + path.substring(11));
+                        "/META-INF/resources/webjars/swagger-ui/3.22.2" + path.substring(11), keepAlive);
             } else {
-                lastContentFuture = writeStaticFile(ctx, "/org/semux/api" + path);
+                lastContentFuture = writeStaticFile(ctx, "/org/semux/api" + path, keepAlive);
+            }
+
+        } else if (metrics != null && METRICS_PATH.equals(path)) {
+            // metrics are public only if the node service is
+            if (!Arrays.asList(config.apiPublicServices()).contains("node") && !checkBasicAuth(headers)) {
+                writeUnauthorized(ctx);
+                return;
+            }
+
+            ByteBuf buf = ctx.alloc().buffer();
+            buf.writeCharSequence(metrics.export(), CHARSET);
+            lastContentFuture = writeResponse(ctx, METRICS_CONTENT_TYPE, OK, buf, keepAlive);
+
+        } else if (eventStreamHub != null && EVENTS_PATTERN.matcher(path).matches()) {
+            if (!eventStreamHub.isPublic() && !checkBasicAuth(headers)) {
+                writeUnauthorized(ctx);
+                return;
+            }
+
+            // the connection is kept open until the client or the hub closes it
+            try {
+                if (eventStreamHub.subscribe(ctx, map)) {
+                    streaming = true;
+                    busy = true;
+                    FullHttpRequest queued;
+                    while ((queued = pending.poll()) != null) {
+                        queued.release();
+                    }
+                    // keep reading, so that a closed connection is noticed
+                    ctx.channel().config().setAutoRead(true);
+                    return;
+                }
+                lastContentFuture = writeJsonResponse(ctx, SERVICE_UNAVAILABLE, SERVICE_UNAVAILABLE_RESPONSE,
+                        keepAlive);
+            } catch (IllegalArgumentException e) {
+                lastContentFuture = writeJsonResponse(ctx, BAD_REQUEST, BAD_REQUEST_RESPONSE, keepAlive);
             }
 
         } else {
             // check basic access authentication
             if (apiHandler.isAuthRequired(msg.method(), path) && !checkBasicAuth(headers)) {
-                FullHttpResponse resp = new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.UNAUTHORIZED);
-                resp.headers().set(HttpHeaderNames.WWW_AUTHENTICATE, "Basic realm=\"Semux RESTful API\"");
-                resp.headers().set(HttpHeaderNames.CONTENT_LENGTH, resp.content().readableBytes());
-
-                ctx.writeAndFlush(resp);
+                writeUnauthorized(ctx);
                 return;
             }
 
             // do the service
             boolean prettyPrint = Boolean.parseBoolean(map.get("pretty"));
-            Response response = apiHandler.service(msg.method(), path, map, headers);
-            lastContentFuture = writeApiResponse(ctx, prettyPrint, response);
+            HttpMethod method = msg.method();
+            String route = apiHandler.getRouteName(method, path);
+
+            // immutable resources are served from the response cache
+            String ifNoneMatch = headers.get(HttpHeaderNames.IF_NONE_MATCH);
+            String cacheKey = route != null && responseCache != null && apiHandler.isImmutable(method, path)
+                    && !apiHandler.isAuthRequired(method, path)
+                            ? ResponseCache.key(route, apiHandler.getParamNames(method, path), map, prettyPrint)
+                            : null;
+            ResponseCache.Entry cached = cacheKey == null ? null : responseCache.get(cacheKey);
+
+            if (cached != null) {
+                lastContentFuture = writeCachedResponse(ctx, cached, ifNoneMatch, keepAlive);
+            } else if (route == null) {
+                Response response = apiHandler.service(method, path, map, headers);
+                lastContentFuture = writeApiResponse(ctx, prettyPrint, response, keepAlive);
+            } else {
+                // hand over to the API executor, and hold back the following requests
+                // of this connection until the response is written
+                busy = true;
+                ctx.channel().config().setAutoRead(false);
+                boolean accepted = apiExecutor.submit(route,
+                        () -> apiHandler.service(method, path, map, headers),
+                        response -> ctx.executor().execute(() -> {
+                            ChannelFuture future = writeApiResponse(ctx, prettyPrint, response, cacheKey,
+                                    ifNoneMatch, keepAlive);
+                            if (!keepAlive) {
+                                future.addListener(ChannelFutureListener.CLOSE);
+                            }
+                            serveNext(ctx);
+                        }));
+                if (accepted) {
+                    return;
+                }
+
+                busy = false;
+                ctx.channel().config().setAutoRead(true);
+                lastContentFuture = writeJsonResponse(ctx, SERVICE_UNAVAILABLE, SERVICE_UNAVAILABLE_RESPONSE,
+                        keepAlive);
+            }
         }
 
-        if (!isKeepAlive) {
+        if (!keepAlive) {
             lastContentFuture.addListener(ChannelFutureListener.CLOSE);
         }
     }
@@ -203,7 +355,16 @@ public class HttpHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
         logger.error("Exception in API http handler", cause);
-        writeJsonResponse(ctx, INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR_RESPONSE);
+        writeJsonResponse(ctx, INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR_RESPONSE, false)
+                .addListener(ChannelFutureListener.CLOSE);
+    }
+
+    private void writeUnauthorized(ChannelHandlerContext ctx) {
+        FullHttpResponse resp = new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.UNAUTHORIZED);
+        resp.headers().set(HttpHeaderNames.WWW_AUTHENTICATE, "Basic realm=\"Semux RESTful API\"");
+        resp.headers().set(HttpHeaderNames.CONTENT_LENGTH, resp.content().readableBytes());
+
+        ctx.writeAndFlush(resp);
     }
 
     private boolean checkBasicAuth(HttpHeaders headers) {
@@ -214,14 +375,14 @@ public class HttpHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
                 && MessageDigest.isEqual(Bytes.of(auth.getRight()), Bytes.of(config.apiPassword()));
     }
 
-    private ChannelFuture writeStaticFile(ChannelHandlerContext ctx, String resourceFullPath) {
+    private ChannelFuture writeStaticFile(ChannelHandlerContext ctx, String resourceFullPath, boolean keepAlive) {
         InputStream inputStream = getClass().getResourceAsStream(resourceFullPath);
         if (inputStream == null) {
-            return writeJsonResponse(ctx, NOT_FOUND, NOT_FOUND_RESPONSE);
+            return writeJsonResponse(ctx, NOT_FOUND, NOT_FOUND_RESPONSE, keepAlive);
         }
 
         DefaultHttpResponse resp = new DefaultHttpResponse(HTTP_1_1, OK);
-        resp.headers().set(CONNECTION, isKeepAlive ? KEEP_ALIVE : CLOSE);
+        resp.headers().set(CONNECTION, keepAlive ? KEEP_ALIVE : CLOSE);
         resp.headers().set(CONTENT_TYPE, mimeTypesMap.getContentType(resourceFullPath));
         HttpUtil.setTransferEncodingChunked(resp, true);
         ctx.write(resp);
@@ -229,43 +390,76 @@ public class HttpHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
         return ctx.writeAndFlush(new HttpChunkedInput(new ChunkedStream(inputStream)));
     }
 
-    private ChannelFuture writeApiResponse(ChannelHandlerContext ctx, Boolean prettyPrint, Response response) {
+    private ChannelFuture writeApiResponse(ChannelHandlerContext ctx, Boolean prettyPrint, Response response,
+            boolean keepAlive) {
+        return writeApiResponse(ctx, prettyPrint, response, null, null, keepAlive);
+    }
+
+    private ChannelFuture writeApiResponse(ChannelHandlerContext ctx, Boolean prettyPrint, Response response,
+            String cacheKey, String ifNoneMatch, boolean keepAlive) {
         HttpResponseStatus status = HttpResponseStatus.valueOf(response.getStatus());
-        String responseBody;
 
         Object entity = response.getEntity();
         if (entity instanceof String) {
-            responseBody = (String) entity;
-        } else {
+            return writeJsonResponse(ctx, status, (String) entity, keepAlive);
+        }
+
+        // successful responses of immutable resources are kept as bytes
+        if (cacheKey != null && status.equals(OK)) {
             try {
-                if (prettyPrint) {
-                    responseBody = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(entity);
-                } else {
-                    responseBody = objectMapper.writeValueAsString(entity);
-                }
+                byte[] body = (prettyPrint ? prettyJsonWriter : jsonWriter).writeValueAsBytes(entity);
+                return writeCachedResponse(ctx, responseCache.put(cacheKey, body), ifNoneMatch, keepAlive);
             } catch (JsonProcessingException e) {
-                status = INTERNAL_SERVER_ERROR;
-                responseBody = INTERNAL_SERVER_ERROR_RESPONSE;
+                return writeJsonResponse(ctx, INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR_RESPONSE, keepAlive);
             }
         }
 
-        return writeJsonResponse(ctx, status, responseBody);
+        // serialize straight into a pooled buffer, without an intermediate string
+        ByteBuf buf = ctx.alloc().buffer();
+        try (ByteBufOutputStream out = new ByteBufOutputStream(buf)) {
+            (prettyPrint ? prettyJsonWriter : jsonWriter).writeValue((OutputStream) out, entity);
+        } catch (IOException e) {
+            buf.release();
+            return writeJsonResponse(ctx, INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR_RESPONSE, keepAlive);
+        }
+
+        return writeResponse(ctx, JSON_CONTENT_TYPE, status, buf, keepAlive);
     }
 
-    private ChannelFuture writeJsonResponse(ChannelHandlerContext ctx, HttpResponseStatus status, String responseBody) {
-        return writeResponse(ctx, JSON_CONTENT_TYPE, status, responseBody);
+    private ChannelFuture writeCachedResponse(ChannelHandlerContext ctx, ResponseCache.Entry entry,
+            String ifNoneMatch, boolean keepAlive) {
+        FullHttpResponse resp;
+        if (entry.matches(ifNoneMatch)) {
+            resp = new DefaultFullHttpResponse(HTTP_1_1, NOT_MODIFIED);
+        } else {
+            resp = new DefaultFullHttpResponse(HTTP_1_1, OK, Unpooled.wrappedBuffer(entry.getBody()));
+            resp.headers().set(CONTENT_TYPE, JSON_CONTENT_TYPE);
+            HttpUtil.setTransferEncodingChunked(resp, true);
+        }
+
+        resp.headers().set(CONNECTION, keepAlive ? KEEP_ALIVE : CLOSE);
+        resp.headers().set(HttpHeaderNames.ETAG, entry.getEtag());
+        resp.headers().set(HttpHeaderNames.CACHE_CONTROL, ResponseCache.CACHE_CONTROL_IMMUTABLE);
+
+        return ctx.writeAndFlush(resp);
+    }
+
+    private ChannelFuture writeJsonResponse(ChannelHandlerContext ctx, HttpResponseStatus status, String responseBody,
+            boolean keepAlive) {
+        ByteBuf buf = ctx.alloc().buffer();
+        if (responseBody != null) {
+            buf.writeCharSequence(responseBody, CHARSET);
+        }
+        return writeResponse(ctx, JSON_CONTENT_TYPE, status, buf, keepAlive);
     }
 
     private ChannelFuture writeResponse(ChannelHandlerContext ctx, String contentType, HttpResponseStatus status,
-            String responseBody) {
+            ByteBuf responseBody, boolean keepAlive) {
         // construct a HTTP response
-        FullHttpResponse resp = new DefaultFullHttpResponse(
-                HTTP_1_1,
-                status,
-                Unpooled.copiedBuffer(responseBody == null ? "" : responseBody, CHARSET));
+        FullHttpResponse resp = new DefaultFullHttpResponse(HTTP_1_1, status, responseBody);
 
         // set response headers
-        resp.headers().set(CONNECTION, isKeepAlive ? KEEP_ALIVE : CLOSE);
+        resp.headers().set(CONNECTION, keepAlive ? KEEP_ALIVE : CLOSE);
         resp.headers().set(CONTENT_TYPE, contentType);
         HttpUtil.setTransferEncodingChunked(resp, true);
 
@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.api.http;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.semux.crypto.Hash;
+import org.semux.crypto.Hex;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * A size-bounded cache of serialized API responses for immutable resources,
+ * e.g. finalized blocks and transactions.
+ */
+public class ResponseCache {
+
+    /**
+     * The Cache-Control header value of immutable resources.
+     */
+    public static final String CACHE_CONTROL_IMMUTABLE = "public, max-age=31536000, immutable";
+
+    // entity tag suffixes of compressed representations, see HttpCompressor
+    private static final String[] ENCODING_SUFFIXES = { "-gzip\"", "-deflate\"" };
+
+    private final Cache<String, Entry> cache;
+
+    /**
+     * Creates a response cache.
+     *
+     * @param maxBytes
+     *            the max total size of cached response bodies
+     */
+    public ResponseCache(long maxBytes) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String k, Entry v) -> k.length() + v.body.length)
+                .build();
+    }
+
+    /**
+     * Returns the cache key of a request. Only the parameters declared by the
+     * route are part of it, so that unknown ones can't be used to bypass the
+     * cache.
+     *
+     * @param route
+     * @param paramNames
+     *            the parameters declared by the route
+     * @param params
+     * @param prettyPrint
+     * @return
+     */
+    public static String key(String route, List<String> paramNames, Map<String, String> params,
+            boolean prettyPrint) {
+        Map<String, String> declared = new TreeMap<>();
+        for (String name : paramNames) {
+            String value = params.get(name);
+            if (value != null) {
+                declared.put(name, value);
+            }
+        }
+        return route + declared + (prettyPrint ? "#pretty" : "");
+    }
+
+    public Entry get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Adds a response body to the cache.
+     *
+     * @param key
+     * @param body
+     * @return the cache entry
+     */
+    public Entry put(String key, byte[] body) {
+        Entry entry = new Entry(body);
+        cache.put(key, entry);
+        return entry;
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * A cached response.
+     */
+    public static class Entry {
+        private final byte[] body;
+        private final String etag;
+
+        Entry(byte[] body) {
+            this.body = body;
+            this.etag = "\"" + Hex.encode(Hash.h256(body)) + "\"";
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        /**
+         * Returns the strong entity tag of the response.
+         *
+         * @return
+         */
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * Returns whether the value of an If-None-Match header matches this
+         * response.
+         *
+         * @param ifNoneMatch
+         * @return
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                for (String suffix : ENCODING_SUFFIXES) {
+                    if (tag.endsWith(suffix)) {
+                        tag = tag.substring(0, tag.length() - suffix.length()) + "\"";
+                    }
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,355 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.api.v2;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.ethereum.vm.util.HashUtil;
+import org.semux.Kernel;
+import org.semux.Network;
+import org.semux.api.util.TransactionBuilder;
+import org.semux.api.v2.model.TransactionResultType;
+import org.semux.config.Config;
+import org.semux.core.Block;
+import org.semux.core.Blockchain;
+import org.semux.core.Transaction;
+import org.semux.core.TransactionExecutor;
+import org.semux.core.TransactionResult;
+import org.semux.core.TransactionType;
+import org.semux.core.state.AccountState;
+import org.semux.core.state.DelegateState;
+import org.semux.core.state.StateSnapshot;
+import org.semux.util.ByteArray;
+import org.semux.vm.client.SemuxBlock;
+import org.semux.vm.client.SemuxBlockStore;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Executes read-only calls, i.e. <code>localCall</code>,
+ * <code>localCreate</code> and <code>estimateGas</code>, against a snapshot of
+ * the state at the latest block.
+ * <p>
+ * The snapshot is backed by database snapshots, see
+ * {@link Blockchain#snapshotState()}, so a call sees the same state from start
+ * to end even if blocks are imported meanwhile. It is shared by all calls until
+ * a new block is imported, and released once the last call on it finishes.
+ * Each call runs on its own track of the snapshot, so calls never touch the
+ * chain state and can run concurrently. Calls are not signed, and identical
+ * calls on the same block are answered from a cache.
+ */
+public class LocalCallExecutor {
+
+    /**
+     * The maximum number of call results cached per block.
+     */
+    private static final int MAX_CACHED_RESULTS = 1024;
+
+    /**
+     * The minimum gas of a call.
+     */
+    private static final long MIN_GAS = 21_000;
+
+    /**
+     * The relative gap, in per mille, at which the gas estimation stops.
+     */
+    private static final long ESTIMATE_TOLERANCE = 15;
+
+    private final Kernel kernel;
+
+    private volatile Snapshot snapshot;
+
+    public LocalCallExecutor(Kernel kernel) {
+        this.kernel = kernel;
+    }
+
+    /**
+     * Executes a call from the coinbase account on the latest state.
+     *
+     * @param type
+     *            CALL or CREATE
+     * @param to
+     * @param value
+     * @param data
+     * @param gas
+     * @param gasPrice
+     * @return
+     * @throws IllegalArgumentException
+     *             if any parameter is invalid
+     */
+    public TransactionResultType call(TransactionType type, String to, String value, String data, String gas,
+            String gasPrice) {
+        Snapshot s = acquireSnapshot();
+        try {
+            return call(s, type, to, value, data,
+                    gas != null ? gas : Long.toString(kernel.getConfig().spec().maxBlockGasLimit()), gasPrice);
+        } finally {
+            s.release();
+        }
+    }
+
+    /**
+     * Estimates the lowest gas limit under which a call succeeds, by a binary
+     * search between the gas used and the given upper bound.
+     * <p>
+     * The gas used is a lower bound, and is usually the answer, so it is tried
+     * first. Otherwise, the search stops once the bounds are within
+     * {@link #ESTIMATE_TOLERANCE} of each other, returning the upper one.
+     *
+     * @param to
+     * @param value
+     * @param data
+     * @param gas
+     *            the upper bound, or null for the block gas limit
+     * @param gasPrice
+     * @return
+     * @throws IllegalArgumentException
+     *             if any parameter is invalid
+     */
+    public GasEstimate estimateGas(String to, String value, String data, String gas, String gasPrice) {
+        Snapshot s = acquireSnapshot();
+        try {
+            return estimateGas(s, to, value, data, gas, gasPrice);
+        } finally {
+            s.release();
+        }
+    }
+
+    private GasEstimate estimateGas(Snapshot s, String to, String value, String data, String gas,
+            String gasPrice) {
+        long hi = gas != null ? parseGas(gas) : kernel.getConfig().spec().maxBlockGasLimit();
+
+        // fails even with the upper bound, report the gas used by the failure
+        TransactionResultType result = call(s, TransactionType.CALL, to, value, data, Long.toString(hi), gasPrice);
+        int iterations = 1;
+        if (!isSuccess(result)) {
+            return new GasEstimate(Long.parseLong(result.getGasUsed()), iterations, result);
+        }
+
+        long lo = Math.max(MIN_GAS, Long.parseLong(result.getGasUsed())) - 1;
+        while (hi - lo > 1 && (hi - lo) * 1000 > hi * ESTIMATE_TOLERANCE) {
+            // try the lower bound first, then bisect
+            long mid = iterations == 1 ? lo + 1 : lo + (hi - lo) / 2;
+            TransactionResultType r = call(s, TransactionType.CALL, to, value, data, Long.toString(mid), gasPrice);
+            iterations++;
+
+            if (isSuccess(r)) {
+                hi = mid;
+                result = r;
+            } else {
+                lo = mid;
+            }
+        }
+
+        return new GasEstimate(hi, iterations, result);
+    }
+
+    private TransactionResultType call(Snapshot s, TransactionType type, String to, String value, String data,
+            String gas, String gasPrice) {
+        Config config = kernel.getConfig();
+        byte[] sender = kernel.getCoinbase().toAddress();
+
+        // the nonce and timestamp are fixed for the block, so that identical calls
+        // have identical encodings
+        Transaction tx = new TransactionBuilder(kernel)
+                .withType(type)
+                .withTo(to)
+                .withValue(value)
+                .withData(data)
+                .withGas(gas)
+                .withGasPrice(gasPrice != null ? gasPrice : config.poolMinGasPrice().toString())
+                .withNonce(Long.toString(s.state.getAccountState().getAccount(sender).getNonce()))
+                .withTimestamp(Long.toString(s.block.getTimestamp()))
+                .buildUnsigned();
+
+        return s.results.get(ByteArray.of(tx.getEncoded()), k -> execute(s, new LocalTransaction(tx, sender)));
+    }
+
+    private TransactionResultType execute(Snapshot s, Transaction tx) {
+        AccountState asTrack = s.state.getAccountState().track();
+        DelegateState dsTrack = s.state.getDelegateState().track();
+
+        // make sure the sender has enough balance
+        asTrack.adjustAvailable(tx.getFrom(),
+                tx.getValue().add(tx.getFee()).add(tx.getGasPrice().multiply(tx.getGas())));
+
+        TransactionResult result = s.executor.execute(tx, asTrack, dsTrack, s.block, 0);
+
+        byte[] contractAddress = tx.getType() == TransactionType.CREATE
+                ? HashUtil.calcNewAddress(tx.getFrom(), tx.getNonce())
+                : null;
+        return TypeFactory.transactionResultType(result, tx.getFee(), contractAddress, s.block.getNumber());
+    }
+
+    private static boolean isSuccess(TransactionResultType result) {
+        return TransactionResult.Code.SUCCESS.name().equals(result.getCode());
+    }
+
+    private static long parseGas(String gas) {
+        try {
+            return Long.parseLong(gas);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter `gas` is not a valid number");
+        }
+    }
+
+    /**
+     * Returns the snapshot of the latest block, taking a new one if a block has
+     * been imported since the last call. The snapshot may be released at any time
+     * unless acquired, see {@link #acquireSnapshot()}.
+     *
+     * @return
+     */
+    protected Snapshot getSnapshot() {
+        Blockchain chain = kernel.getBlockchain();
+
+        Snapshot s = snapshot;
+        if (s != null && s.number == chain.getLatestBlockNumber()) {
+            return s;
+        }
+
+        synchronized (this) {
+            s = snapshot;
+            if (s == null || s.number != chain.getLatestBlockNumber()) {
+                StateSnapshot state = chain.snapshotState();
+                Block latest = state.getBlock();
+                Snapshot old = s;
+
+                s = new Snapshot(latest.getNumber(), kernel.createEmptyBlock(latest), state,
+                        new TransactionExecutor(kernel.getConfig(), new SemuxBlockStore(chain), chain.isVMEnabled(),
+                                chain.isVotingPrecompiledUpgraded()));
+                snapshot = s;
+
+                if (old != null) {
+                    old.release();
+                }
+            }
+            return s;
+        }
+    }
+
+    /**
+     * Returns the snapshot of the latest block, which is kept open until released
+     * by the caller.
+     *
+     * @return
+     */
+    private Snapshot acquireSnapshot() {
+        while (true) {
+            Snapshot s = getSnapshot();
+            if (s.acquire()) {
+                return s;
+            }
+            // replaced and released meanwhile, retry
+        }
+    }
+
+    protected static class Snapshot {
+        final long number;
+        final SemuxBlock block;
+        final StateSnapshot state;
+        final TransactionExecutor executor;
+        final Cache<ByteArray, TransactionResultType> results = Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_RESULTS).build();
+
+        // one reference is held by the executor until the snapshot is replaced
+        private final AtomicInteger refs = new AtomicInteger(1);
+
+        Snapshot(long number, SemuxBlock block, StateSnapshot state, TransactionExecutor executor) {
+            this.number = number;
+            this.block = block;
+            this.state = state;
+            this.executor = executor;
+        }
+
+        /**
+         * Takes a reference to this snapshot, unless it has been released.
+         *
+         * @return whether the reference is taken
+         */
+        boolean acquire() {
+            int n;
+            do {
+                n = refs.get();
+                if (n == 0) {
+                    return false;
+                }
+            } while (!refs.compareAndSet(n, n + 1));
+            return true;
+        }
+
+        /**
+         * Drops a reference to this snapshot, and closes it with the last one.
+         */
+        void release() {
+            if (refs.decrementAndGet() == 0) {
+                state.close();
+            }
+        }
+    }
+
+    /**
+     * The result of a gas estimation.
+     */
+    public static class GasEstimate {
+        private final long gas;
+        private final int iterations;
+        private final TransactionResultType result;
+
+        public GasEstimate(long gas, int iterations, TransactionResultType result) {
+            this.gas = gas;
+            this.iterations = iterations;
+            this.result = result;
+        }
+
+        /**
+         * Returns the estimated gas limit.
+         *
+         * @return
+         */
+        public long getGas() {
+            return gas;
+        }
+
+        /**
+         * Returns the number of executions taken by the estimation.
+         *
+         * @return
+         */
+        public int getIterations() {
+            return iterations;
+        }
+
+        /**
+         * Returns the result of the call under the estimated gas limit.
+         *
+         * @return
+         */
+        public TransactionResultType getResult() {
+            return result;
+        }
+    }
+
+    /**
+     * An unsigned transaction with a known sender.
+     */
+    private static class LocalTransaction extends Transaction {
+        private final byte[] from;
+
+        LocalTransaction(Transaction tx, byte[] from) {
+            super(Network.of(tx.getNetworkId()), tx.getType(), tx.getTo(), tx.getValue(), tx.getFee(), tx.getNonce(),
+                    tx.getTimestamp(), tx.getData(), tx.getGas(), tx.getGasPrice());
+            this.from = from;
+        }
+
+        @Override
+        public byte[] getFrom() {
+            return from;
+        }
+    }
+}
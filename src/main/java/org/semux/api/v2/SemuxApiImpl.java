@@ -10,8 +10,6 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
 
 import java.io.File;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.net.UnknownHostException;
 import java.nio.charset.Charset;
 import java.security.spec.InvalidKeySpecException;
@@ -26,13 +24,13 @@ import javax.ws.rs.core.Response;
 
 import org.apache.commons.validator.routines.DomainValidator;
 import org.apache.commons.validator.routines.InetAddressValidator;
-import org.ethereum.vm.client.BlockStore;
 import org.ethereum.vm.util.HashUtil;
 import org.semux.Kernel;
 import org.semux.api.util.TransactionBuilder;
 import org.semux.api.v2.model.AddNodeResponse;
 import org.semux.api.v2.model.AddToBlacklistResponse;
 import org.semux.api.v2.model.AddToWhitelistResponse;
+import org.semux.api.v2.model.ApiHandlerResponse;
 import org.semux.api.v2.model.ComposeRawTransactionResponse;
 import org.semux.api.v2.model.CreateAccountResponse;
 import org.semux.api.v2.model.DeleteAccountResponse;
@@ -48,6 +46,7 @@ import org.semux.api.v2.model.GetAccountTransactionsResponse;
 import org.semux.api.v2.model.GetAccountVotesResponse;
 import org.semux.api.v2.model.GetAccountsResponse;
 import org.semux.api.v2.model.GetBlockResponse;
+import org.semux.api.v2.model.GetBlocksResponse;
 import org.semux.api.v2.model.GetDelegateResponse;
 import org.semux.api.v2.model.GetDelegatesResponse;
 import org.semux.api.v2.model.GetInfoResponse;
@@ -69,22 +68,17 @@ import org.semux.api.v2.model.SyncingStatusType;
 import org.semux.api.v2.model.TransactionResultType;
 import org.semux.api.v2.model.VerifyMessageResponse;
 import org.semux.api.v2.server.SemuxApi;
-import org.semux.config.Config;
-import org.semux.core.Amount;
 import org.semux.core.Block;
 import org.semux.core.Blockchain;
 import org.semux.core.BlockchainImpl;
 import org.semux.core.PendingManager;
 import org.semux.core.SyncManager;
 import org.semux.core.Transaction;
-import org.semux.core.TransactionExecutor;
 import org.semux.core.TransactionResult;
 import org.semux.core.TransactionType;
 import org.semux.core.exception.WalletLockedException;
 import org.semux.core.state.Account;
-import org.semux.core.state.AccountState;
 import org.semux.core.state.Delegate;
-import org.semux.core.state.DelegateState;
 import org.semux.crypto.CryptoException;
 import org.semux.crypto.Hash;
 import org.semux.crypto.Hex;
@@ -92,8 +86,6 @@ import org.semux.crypto.Key;
 import org.semux.crypto.cache.PublicKeyCache;
 import org.semux.net.NodeManager;
 import org.semux.net.filter.SemuxIpFilter;
-import org.semux.vm.client.SemuxBlock;
-import org.semux.vm.client.SemuxBlockStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -105,10 +97,14 @@ public final class SemuxApiImpl implements SemuxApi {
 
     private static final Charset CHARSET = UTF_8;
 
+    private static final int MAX_BLOCKS_PER_REQUEST = 100;
+
     private final Kernel kernel;
+    private final LocalCallExecutor localCalls;
 
     public SemuxApiImpl(Kernel kernel) {
         this.kernel = kernel;
+        this.localCalls = new LocalCallExecutor(kernel);
     }
 
     @Override
@@ -226,7 +222,7 @@ public final class SemuxApiImpl implements SemuxApi {
             int transactionCount = kernel.getBlockchain().getTransactionCount(account.getAddress());
             int internalTransactionCount = kernel.getBlockchain().getInternalTransactionCount(account.getAddress());
             int pendingTransactionCount = (int) kernel.getPendingManager()
-                    .getPendingTransactions().parallelStream()
+                    .getPendingTransactions().stream()
                     .map(pendingTransaction -> pendingTransaction.transaction)
                     .filter(tx -> Arrays.equals(tx.getFrom(), addressBytes) || Arrays.equals(tx.getTo(), addressBytes))
                     .count();
@@ -304,7 +300,7 @@ public final class SemuxApiImpl implements SemuxApi {
             }
 
             GetAccountTransactionsResponse resp = new GetAccountTransactionsResponse();
-            resp.setResult(kernel.getBlockchain().getTransactions(addressBytes, fromInt, toInt).parallelStream()
+            resp.setResult(kernel.getBlockchain().getTransactions(addressBytes, fromInt, toInt).stream()
                     .map(TypeFactory::transactionType)
                     .collect(Collectors.toList()));
             return success(resp);
@@ -325,7 +321,7 @@ public final class SemuxApiImpl implements SemuxApi {
             }
 
             GetAccountInternalTransactionsResponse resp = new GetAccountInternalTransactionsResponse();
-            resp.setResult(kernel.getBlockchain().getInternalTransactions(addressBytes, fromInt, toInt).parallelStream()
+            resp.setResult(kernel.getBlockchain().getInternalTransactions(addressBytes, fromInt, toInt).stream()
                     .map(TypeFactory::internalTransactionType)
                     .collect(Collectors.toList()));
             return success(resp);
@@ -347,7 +343,7 @@ public final class SemuxApiImpl implements SemuxApi {
 
             GetAccountPendingTransactionsResponse resp = new GetAccountPendingTransactionsResponse();
             resp.setResult(kernel.getPendingManager()
-                    .getPendingTransactions().parallelStream()
+                    .getPendingTransactions().stream()
                     .map(pendingTransaction -> pendingTransaction.transaction)
                     .filter(tx -> Arrays.equals(tx.getFrom(), addressBytes) || Arrays.equals(tx.getTo(), addressBytes))
                     .skip(fromInt)
@@ -411,6 +407,30 @@ public final class SemuxApiImpl implements SemuxApi {
         }
     }
 
+    @Override
+    public Response getBlocks(String from, String to) {
+        try {
+            long fromLong = parseInt(from, true, "from");
+            long toLong = parseInt(to, true, "to");
+
+            if (toLong <= fromLong) {
+                return badRequest("Parameter `to` must be greater than `from`");
+            }
+            if (toLong - fromLong > MAX_BLOCKS_PER_REQUEST) {
+                return badRequest("At most " + MAX_BLOCKS_PER_REQUEST + " blocks can be requested at a time");
+            }
+
+            Blockchain chain = kernel.getBlockchain();
+            GetBlocksResponse resp = new GetBlocksResponse();
+            resp.setResult(chain.getBlocks(fromLong, toLong).stream()
+                    .map(block -> TypeFactory.blockType(block, chain.getCoinbaseTransaction(block.getNumber())))
+                    .collect(Collectors.toList()));
+            return success(resp);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+    }
+
     @Override
     public Response getDelegate(String address) {
         try {
@@ -439,7 +459,7 @@ public final class SemuxApiImpl implements SemuxApi {
         Blockchain chain = kernel.getBlockchain();
         Set<String> validators = new HashSet<>(chain.getValidators());
 
-        resp.setResult(chain.getDelegateState().getDelegates().parallelStream()
+        resp.setResult(chain.getDelegateState().getDelegates().stream()
                 .map(delegate -> TypeFactory.delegateType(
                         chain.getValidatorStats(delegate.getAddress()),
                         delegate,
@@ -477,7 +497,7 @@ public final class SemuxApiImpl implements SemuxApi {
     @Override
     public Response getPeers() {
         GetPeersResponse resp = new GetPeersResponse();
-        resp.setResult(kernel.getChannelManager().getActivePeers().parallelStream()
+        resp.setResult(kernel.getChannelManager().getActivePeers().stream()
                 .map(TypeFactory::peerType)
                 .collect(Collectors.toList()));
 
@@ -487,7 +507,7 @@ public final class SemuxApiImpl implements SemuxApi {
     @Override
     public Response getPendingTransactions() {
         GetPendingTransactionsResponse resp = new GetPendingTransactionsResponse();
-        resp.result(kernel.getPendingManager().getPendingTransactions().parallelStream()
+        resp.result(kernel.getPendingManager().getPendingTransactions().stream()
                 .map(pendingTransaction -> pendingTransaction.transaction)
                 .map(TypeFactory::transactionType)
                 .collect(Collectors.toList()));
@@ -549,7 +569,7 @@ public final class SemuxApiImpl implements SemuxApi {
     @Override
     public Response getValidators() {
         GetValidatorsResponse resp = new GetValidatorsResponse();
-        resp.setResult(kernel.getBlockchain().getValidators().parallelStream()
+        resp.setResult(kernel.getBlockchain().getValidators().stream()
                 .map(v -> Hex.PREF + v).collect(Collectors.toList()));
 
         return success(resp);
@@ -577,7 +597,7 @@ public final class SemuxApiImpl implements SemuxApi {
             byte[] delegateBytes = parseAddress(delegate, true, "delegate");
 
             GetVotesResponse resp = new GetVotesResponse();
-            resp.setResult(kernel.getBlockchain().getDelegateState().getVotes(delegateBytes).entrySet().parallelStream()
+            resp.setResult(kernel.getBlockchain().getDelegateState().getVotes(delegateBytes).entrySet().stream()
                     .collect(Collectors.toMap(
                             entry -> Hex.PREF + entry.getKey().toString(),
                             entry -> TypeFactory.encodeAmount(entry.getValue()))));
@@ -590,7 +610,7 @@ public final class SemuxApiImpl implements SemuxApi {
     @Override
     public Response getAccounts() {
         GetAccountsResponse resp = new GetAccountsResponse();
-        resp.setResult(kernel.getWallet().getAccounts().parallelStream()
+        resp.setResult(kernel.getWallet().getAccounts().stream()
                 .map(acc -> Hex.PREF + acc.toAddressString())
                 .collect(Collectors.toList()));
 
@@ -705,7 +725,7 @@ public final class SemuxApiImpl implements SemuxApi {
 
     @Override
     public Response localCall(String to, String value, String data, String gas, String gasPrice) {
-        TransactionResultType result = doLocalTransaction(TransactionType.CALL, to, value, data, gas, gasPrice);
+        TransactionResultType result = localCalls.call(TransactionType.CALL, to, value, data, gas, gasPrice);
 
         LocalCallResponse resp = new LocalCallResponse();
         resp.setResult(result);
@@ -714,7 +734,7 @@ public final class SemuxApiImpl implements SemuxApi {
 
     @Override
     public Response localCreate(String value, String data, String gas, String gasPrice) {
-        TransactionResultType result = doLocalTransaction(TransactionType.CREATE, null, value, data, gas, gasPrice);
+        TransactionResultType result = localCalls.call(TransactionType.CREATE, null, value, data, gas, gasPrice);
 
         LocalCallResponse resp = new LocalCallResponse();
         resp.setResult(result);
@@ -723,10 +743,11 @@ public final class SemuxApiImpl implements SemuxApi {
 
     @Override
     public Response estimateGas(String to, String value, String data, String gas, String gasPrice) {
-        TransactionResultType result = doLocalTransaction(TransactionType.CALL, to, value, data, gas, gasPrice);
+        LocalCallExecutor.GasEstimate estimate = localCalls.estimateGas(to, value, data, gas, gasPrice);
 
         EstimateGasResponse resp = new EstimateGasResponse();
-        resp.setResult(result.getGasUsed());
+        resp.setResult(Long.toString(estimate.getGas()));
+        resp.setIterations(estimate.getIterations());
         return success(resp);
     }
 
@@ -778,6 +799,9 @@ public final class SemuxApiImpl implements SemuxApi {
             result.setStartingHeight(String.valueOf(progress.getStartingHeight()));
             result.setCurrentHeight(String.valueOf(progress.getCurrentHeight()));
             result.setTargetHeight(String.valueOf(progress.getTargetHeight()));
+            result.setPeers(progress.getPeerStats().stream()
+                    .map(TypeFactory::syncingPeerType)
+                    .collect(Collectors.toList()));
         } else {
             result.setSyncing(false);
         }
@@ -793,15 +817,9 @@ public final class SemuxApiImpl implements SemuxApi {
      * @param resp
      * @return
      */
-    private <T> Response success(T resp) {
-        try {
-            Method setSuccess = resp.getClass().getMethod("setSuccess", Boolean.class);
-            Method setMessage = resp.getClass().getMethod("setMessage", String.class);
-            setSuccess.invoke(resp, Boolean.TRUE);
-            setMessage.invoke(resp, "Success");
-        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-            throw new RuntimeException(e);
-        }
+    private Response success(ApiHandlerResponse resp) {
+        resp.setSuccess(Boolean.TRUE);
+        resp.setMessage("Success");
 
         return Response.ok().entity(resp).build();
     }
@@ -886,48 +904,6 @@ public final class SemuxApiImpl implements SemuxApi {
         }
     }
 
-    private TransactionResultType doLocalTransaction(TransactionType type, String to, String value, String data,
-            String gas, String gasPrice) {
-        long blockGasLimit = kernel.getConfig().spec().maxBlockGasLimit();
-        Amount minGasPrice = kernel.getConfig().poolMinGasPrice();
-
-        // NOTE: The only limitation now is that we can't specify the sender.
-
-        // Setup the environment
-        Config config = kernel.getConfig();
-        Blockchain chain = kernel.getBlockchain();
-        AccountState asTrack = chain.getAccountState().track();
-        DelegateState dsTrack = chain.getDelegateState().track();
-
-        // create a transaction signed by the coinbase account
-        Key sender = kernel.getCoinbase();
-        Transaction tx = new TransactionBuilder(kernel)
-                .withType(type)
-                .withFrom(sender.toAddressString())
-                .withTo(to)
-                .withValue(value)
-                .withData(data)
-                .withGas(gas != null ? gas : Long.toString(blockGasLimit))
-                .withGasPrice(gasPrice != null ? gasPrice : minGasPrice.toString())
-                .buildSigned();
-
-        // make sure the sender has enough balance
-        asTrack.adjustAvailable(tx.getFrom(),
-                tx.getValue().add(tx.getFee()).add(tx.getGasPrice().multiply(tx.getGas())));
-
-        // execute the transaction
-        SemuxBlock block = kernel.createEmptyBlock();
-        BlockStore blockStore = new SemuxBlockStore(chain);
-        TransactionExecutor exec = new TransactionExecutor(config, blockStore, chain.isVMEnabled(),
-                chain.isVotingPrecompiledUpgraded());
-        TransactionResult result = exec.execute(tx, asTrack, dsTrack, block, 0);
-
-        byte[] contractAddress = type.equals(TransactionType.CREATE)
-                ? HashUtil.calcNewAddress(tx.getFrom(), tx.getNonce())
-                : null;
-        return TypeFactory.transactionResultType(result, tx.getFee(), contractAddress, block.getNumber());
-    }
-
     private static final String IP_ADDRESS_PATTERN = "^([01]?\\d\\d?|2[0-4]\\d|25[0-5])\\." +
             "([01]?\\d\\d?|2[0-4]\\d|25[0-5])\\." +
             "([01]?\\d\\d?|2[0-4]\\d|25[0-5])\\." +
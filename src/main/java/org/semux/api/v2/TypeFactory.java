@@ -26,6 +26,7 @@ import org.semux.api.v2.model.InfoType;
 import org.semux.api.v2.model.InternalTransactionType;
 import org.semux.api.v2.model.LogInfoType;
 import org.semux.api.v2.model.PeerType;
+import org.semux.api.v2.model.SyncingPeerType;
 import org.semux.api.v2.model.TransactionLimitsType;
 import org.semux.api.v2.model.TransactionResultType;
 import org.semux.api.v2.model.TransactionType;
@@ -33,6 +34,7 @@ import org.semux.core.Amount;
 import org.semux.core.Block;
 import org.semux.core.Blockchain;
 import org.semux.core.BlockchainImpl;
+import org.semux.core.SyncManager;
 import org.semux.core.Transaction;
 import org.semux.core.TransactionResult;
 import org.semux.core.state.Account;
@@ -91,7 +93,7 @@ public class TypeFactory {
         Set<String> validators = new HashSet<>(blockchain.getValidators());
         return blockchain.getDelegateState()
                 .getDelegates()
-                .parallelStream()
+                .stream()
                 .map(delegate -> accountVoteType(blockchain, address, delegate,
                         validators.contains(delegate.getAddressString())))
                 .filter(accountVote -> !accountVote.getVotes().equals("0"))
@@ -132,6 +134,18 @@ public class TypeFactory {
                 .capabilities(Arrays.asList(peer.getCapabilities()));
     }
 
+    public static SyncingPeerType syncingPeerType(SyncManager.PeerStats stats) {
+        return new SyncingPeerType()
+                .peerId(Hex.PREF + stats.getPeerId())
+                .blocksRequested(String.valueOf(stats.getBlocksRequested()))
+                .blocksReceived(String.valueOf(stats.getBlocksReceived()))
+                .timeouts(String.valueOf(stats.getTimeouts()))
+                .timeoutRate(stats.getTimeoutRate())
+                .latency(String.valueOf(Math.round(stats.getLatency())))
+                .bytesPerSecond(String.valueOf(Math.round(stats.getBytesPerSecond())))
+                .blocksPerSecond(stats.getBlocksPerSecond());
+    }
+
     public static TransactionLimitsType transactionLimitsType(Kernel kernel,
             org.semux.core.TransactionType transactionType) {
         return new TransactionLimitsType()
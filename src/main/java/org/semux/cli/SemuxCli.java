@@ -20,6 +20,7 @@ import org.semux.Launcher;
 import org.semux.config.Config;
 import org.semux.config.Constants;
 import org.semux.config.exception.ConfigException;
+import org.semux.core.BlockArchive;
 import org.semux.core.BlockchainImpl;
 import org.semux.core.Genesis;
 import org.semux.core.Wallet;
@@ -122,6 +123,20 @@ public class SemuxCli extends Launcher {
                 .hasArg(true).optionalArg(true).argName("to").type(String.class)
                 .build();
         addOption(reindexOption);
+
+        Option exportBlocksOption = Option.builder()
+                .longOpt(SemuxOption.EXPORT_BLOCKS.toString())
+                .desc(CliMessages.get("ExportBlocksDescription"))
+                .hasArgs().numberOfArgs(3).optionalArg(true).argName("file> <from> <to").type(String.class)
+                .build();
+        addOption(exportBlocksOption);
+
+        Option importBlocksOption = Option.builder()
+                .longOpt(SemuxOption.IMPORT_BLOCKS.toString())
+                .desc(CliMessages.get("ImportBlocksDescription"))
+                .hasArg(true).optionalArg(false).argName("file").type(String.class)
+                .build();
+        addOption(importBlocksOption);
     }
 
     public void start(String[] args) throws ParseException, IOException {
@@ -155,6 +170,32 @@ public class SemuxCli extends Launcher {
         } else if (cmd.hasOption(SemuxOption.REINDEX.toString())) {
             reindex(cmd.getOptionValue(SemuxOption.REINDEX.toString()));
 
+        } else if (cmd.hasOption(SemuxOption.EXPORT_BLOCKS.toString())) {
+            String[] values = cmd.getOptionValues(SemuxOption.EXPORT_BLOCKS.toString());
+            if (values == null || values.length == 0) {
+                logger.error(CliMessages.get("ExportBlocksMissingFile"));
+                exit(SystemUtil.Code.FAILED_TO_EXPORT_BLOCKS);
+                return;
+            }
+
+            long from;
+            long to;
+            try {
+                from = values.length > 1 ? Long.parseLong(values[1].trim()) : 1L;
+                to = values.length > 2 ? Long.parseLong(values[2].trim()) : Long.MAX_VALUE;
+            } catch (NumberFormatException e) {
+                from = to = -1L;
+            }
+            if (from < 1 || to < from) {
+                logger.error(CliMessages.get("ExportBlocksInvalidRange"));
+                exit(SystemUtil.Code.FAILED_TO_EXPORT_BLOCKS);
+                return;
+            }
+            exportBlocks(values[0].trim(), from, to);
+
+        } else if (cmd.hasOption(SemuxOption.IMPORT_BLOCKS.toString())) {
+            importBlocks(cmd.getOptionValue(SemuxOption.IMPORT_BLOCKS.toString()).trim());
+
         } else {
             start();
         }
@@ -176,6 +217,39 @@ public class SemuxCli extends Launcher {
         BlockchainImpl.upgrade(config, dbFactory, to == null ? Long.MAX_VALUE : Long.parseLong(to));
     }
 
+    protected void exportBlocks(String file, long from, long to) {
+        Config config = getConfig();
+        DatabaseFactory dbFactory = new LeveldbDatabase.LeveldbFactory(config.chainDir());
+        try {
+            BlockArchive.exportBlocks(config, dbFactory, new File(file), from, to);
+        } catch (IOException e) {
+            logger.error(CliMessages.get("ExportBlocksFailed", e.getMessage()));
+            exit(SystemUtil.Code.FAILED_TO_EXPORT_BLOCKS);
+        } finally {
+            dbFactory.close();
+        }
+    }
+
+    protected void importBlocks(String file) {
+        File archive = new File(file);
+        if (!archive.isFile()) {
+            logger.error(CliMessages.get("ImportBlocksFileNotFound", file));
+            exit(SystemUtil.Code.FAILED_TO_IMPORT_BLOCKS);
+            return;
+        }
+
+        Config config = getConfig();
+        DatabaseFactory dbFactory = new LeveldbDatabase.LeveldbFactory(config.chainDir());
+        try {
+            BlockArchive.importBlocks(config, dbFactory, archive);
+        } catch (IOException e) {
+            logger.error(CliMessages.get("ImportBlocksFailed", e.getMessage()));
+            exit(SystemUtil.Code.FAILED_TO_IMPORT_BLOCKS);
+        } finally {
+            dbFactory.close();
+        }
+    }
+
     protected void start() throws IOException {
         // create/unlock wallet
         Wallet wallet = loadWallet().exists() ? loadAndUnlockWallet() : createNewWallet();
@@ -255,7 +329,9 @@ public class SemuxCli extends Launcher {
             key = wallet.addAccountRandom();
         }
 
-        if (wallet.flush()) {
+        // the CLI exits right away, leave the keys in the wallet file rather than the
+        // journal
+        if (wallet.compactJournal()) {
             logger.info(CliMessages.get("NewAccountCreatedForAddress", key.toAddressString()));
             logger.info(CliMessages.get("PublicKey", Hex.encode(key.getPublicKey())));
         }
@@ -354,7 +430,7 @@ public class SemuxCli extends Launcher {
                 return;
             }
 
-            boolean walletFlushed = wallet.flush();
+            boolean walletFlushed = wallet.compactJournal();
             if (!walletFlushed) {
                 logger.error(CliMessages.get("WalletFileCannotBeUpdated"));
                 exit(SystemUtil.Code.FAILED_TO_WRITE_WALLET_FILE);
@@ -33,7 +33,11 @@ public enum SemuxOption {
 
     HD_WALLET("hdwallet"),
 
-    REINDEX("reindex");
+    REINDEX("reindex"),
+
+    EXPORT_BLOCKS("exportblocks"),
+
+    IMPORT_BLOCKS("importblocks");
 
     private final String name;
 
@@ -21,9 +21,11 @@ import java.io.FileInputStream;
 import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
@@ -122,6 +124,18 @@ public abstract class AbstractConfig implements Config, ChainSpec {
     protected String[] apiPrivateServices = {
             "node", "wallet"
     };
+    protected int apiMaxThreads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    protected int apiMaxQueueSize = 1024;
+    protected int apiMaxRouteConcurrency = 0; // half of the threads if not set
+    protected Map<String, Integer> apiRouteConcurrency = new HashMap<>();
+    protected long apiResponseCacheSize = 64L * 1024 * 1024;
+    protected int apiCompressionLevel = 6;
+    protected int apiCompressionMinSize = 1024;
+    protected String[] apiCompressionExcludedTypes = {
+            "image/png", "image/jpeg", "image/gif", "application/octet-stream", "text/event-stream"
+    };
+    protected int apiMaxEventSubscribers = 1024;
+    protected int apiEventBufferSize = 256;
 
     // =========================
     // BFT consensus
@@ -149,6 +163,11 @@ public abstract class AbstractConfig implements Config, ChainSpec {
     protected String uiUnit = "SEM";
     protected int uiFractionDigits = 9;
 
+    // =========================
+    // Crypto
+    // =========================
+    protected int cryptoVerifyThreads = Runtime.getRuntime().availableProcessors();
+
     // =========================
     // Forks
     // =========================
@@ -362,7 +381,8 @@ public abstract class AbstractConfig implements Config, ChainSpec {
 
     @Override
     public CapabilityTreeSet getClientCapabilities() {
-        return CapabilityTreeSet.of(Capability.SEMUX, Capability.FAST_SYNC);
+        return CapabilityTreeSet.of(Capability.SEMUX, Capability.FAST_SYNC, Capability.TX_GOSSIP,
+                Capability.RANGE_SYNC);
     }
 
     @Override
@@ -510,6 +530,56 @@ public abstract class AbstractConfig implements Config, ChainSpec {
         return apiPrivateServices;
     }
 
+    @Override
+    public int apiMaxThreads() {
+        return apiMaxThreads;
+    }
+
+    @Override
+    public int apiMaxQueueSize() {
+        return apiMaxQueueSize;
+    }
+
+    @Override
+    public int apiMaxRouteConcurrency() {
+        return apiMaxRouteConcurrency > 0 ? apiMaxRouteConcurrency : Math.max(1, apiMaxThreads / 2);
+    }
+
+    @Override
+    public Map<String, Integer> apiRouteConcurrency() {
+        return apiRouteConcurrency;
+    }
+
+    @Override
+    public long apiResponseCacheSize() {
+        return apiResponseCacheSize;
+    }
+
+    @Override
+    public int apiCompressionLevel() {
+        return apiCompressionLevel;
+    }
+
+    @Override
+    public int apiCompressionMinSize() {
+        return apiCompressionMinSize;
+    }
+
+    @Override
+    public String[] apiCompressionExcludedTypes() {
+        return apiCompressionExcludedTypes;
+    }
+
+    @Override
+    public int apiMaxEventSubscribers() {
+        return apiMaxEventSubscribers;
+    }
+
+    @Override
+    public int apiEventBufferSize() {
+        return apiEventBufferSize;
+    }
+
     @Override
     public long bftNewHeightTimeout() {
         return bftNewHeightTimeout;
@@ -584,6 +654,11 @@ public abstract class AbstractConfig implements Config, ChainSpec {
         return uiFractionDigits;
     }
 
+    @Override
+    public int cryptoVerifyThreads() {
+        return cryptoVerifyThreads;
+    }
+
     @Override
     public boolean forkUniformDistributionEnabled() {
         return forkUniformDistributionEnabled;
@@ -707,6 +782,44 @@ public abstract class AbstractConfig implements Config, ChainSpec {
                             .map(String::trim)
                             .toArray(String[]::new);
                     break;
+                case "api.maxThreads":
+                    apiMaxThreads = Integer.parseInt(props.getProperty(name).trim());
+                    break;
+                case "api.maxQueueSize":
+                    apiMaxQueueSize = Integer.parseInt(props.getProperty(name).trim());
+                    break;
+                case "api.maxRouteConcurrency":
+                    apiMaxRouteConcurrency = Integer.parseInt(props.getProperty(name).trim());
+                    break;
+                case "api.compressionLevel":
+                    apiCompressionLevel = Integer.parseInt(props.getProperty(name).trim());
+                    break;
+                case "api.compressionMinSize":
+                    apiCompressionMinSize = Integer.parseInt(props.getProperty(name).trim());
+                    break;
+                case "api.compressionExcludedTypes":
+                    apiCompressionExcludedTypes = Stream.of(props.getProperty(name).trim().split(","))
+                            .map(String::trim)
+                            .toArray(String[]::new);
+                    break;
+                case "api.maxEventSubscribers":
+                    apiMaxEventSubscribers = Integer.parseInt(props.getProperty(name).trim());
+                    break;
+                case "api.eventBufferSize":
+                    apiEventBufferSize = Integer.parseInt(props.getProperty(name).trim());
+                    break;
+                case "api.responseCacheSize":
+                    apiResponseCacheSize = Long.parseLong(props.getProperty(name).trim());
+                    break;
+                case "api.routeConcurrency":
+                    apiRouteConcurrency = new HashMap<>();
+                    for (String item : props.getProperty(name).trim().split(",")) {
+                        String[] pair = item.trim().split(":");
+                        if (pair.length == 2) {
+                            apiRouteConcurrency.put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+                        }
+                    }
+                    break;
                 case "ui.locale": {
                     // ui.locale must be in format of en_US ([language]_[country])
                     String[] localeComponents = props.getProperty(name).trim().split("_");
@@ -723,6 +836,10 @@ public abstract class AbstractConfig implements Config, ChainSpec {
                     uiFractionDigits = Integer.parseInt(props.getProperty(name).trim());
                     break;
                 }
+                case "crypto.verifyThreads": {
+                    cryptoVerifyThreads = Integer.parseInt(props.getProperty(name).trim());
+                    break;
+                }
                 case "txpool.maxTotalGasConsumed": {
                     poolMaxTotalGasConsumed = Integer.parseInt(props.getProperty(name).trim());
                     break;
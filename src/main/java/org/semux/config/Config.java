@@ -323,6 +323,83 @@ public interface Config {
      */
     String[] apiPrivateServices();
 
+    /**
+     * Returns the number of threads executing API requests.
+     *
+     * @return
+     */
+    int apiMaxThreads();
+
+    /**
+     * Returns the max number of API requests waiting for a thread, beyond which
+     * requests are rejected.
+     *
+     * @return
+     */
+    int apiMaxQueueSize();
+
+    /**
+     * Returns the default max number of concurrent requests of a single API
+     * route.
+     *
+     * @return
+     */
+    int apiMaxRouteConcurrency();
+
+    /**
+     * Returns the max number of concurrent requests of specific API routes,
+     * overriding {@link #apiMaxRouteConcurrency()}.
+     *
+     * @return
+     */
+    Map<String, Integer> apiRouteConcurrency();
+
+    /**
+     * Returns the max total size, in bytes, of cached responses of immutable API
+     * resources. Zero disables the cache.
+     *
+     * @return
+     */
+    long apiResponseCacheSize();
+
+    /**
+     * Returns the gzip/deflate level of API responses, from 1 to 9. Zero disables
+     * compression.
+     *
+     * @return
+     */
+    int apiCompressionLevel();
+
+    /**
+     * Returns the min size in bytes of API responses to compress.
+     *
+     * @return
+     */
+    int apiCompressionMinSize();
+
+    /**
+     * Returns the content types of API responses which are not compressed.
+     *
+     * @return
+     */
+    String[] apiCompressionExcludedTypes();
+
+    /**
+     * Returns the max number of clients subscribed to the event stream. Zero
+     * disables the event stream.
+     *
+     * @return
+     */
+    int apiMaxEventSubscribers();
+
+    /**
+     * Returns the max number of events queued for an event stream subscriber,
+     * beyond which the subscriber is disconnected.
+     *
+     * @return
+     */
+    int apiEventBufferSize();
+
     // =========================
     // BFT consensus
     // =========================
@@ -435,6 +512,18 @@ public interface Config {
      */
     int uiFractionDigits();
 
+    // =========================
+    // Crypto
+    // =========================
+
+    /**
+     * Returns the number of threads verifying the transactions and signatures of
+     * blocks, proposals and votes.
+     *
+     * @return
+     */
+    int cryptoVerifyThreads();
+
     // =========================
     // Forks
     // =========================
@@ -10,11 +10,15 @@ import static org.semux.core.Fork.UNIFORM_DISTRIBUTION;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.ethereum.vm.client.BlockStore;
@@ -34,7 +38,6 @@ import org.semux.core.TransactionExecutor;
 import org.semux.core.TransactionResult;
 import org.semux.core.state.AccountState;
 import org.semux.core.state.DelegateState;
-import org.semux.crypto.Hash;
 import org.semux.crypto.Hex;
 import org.semux.crypto.Key;
 import org.semux.crypto.Key.Signature;
@@ -50,7 +53,9 @@ import org.semux.net.msg.consensus.VoteMessage;
 import org.semux.util.ArrayUtil;
 import org.semux.util.ByteArray;
 import org.semux.util.Bytes;
+import org.semux.util.Histogram;
 import org.semux.util.MerkleUtil;
+import org.semux.util.MetricRegistry;
 import org.semux.util.SystemUtil;
 import org.semux.util.TimeUtil;
 import org.semux.vm.client.SemuxBlock;
@@ -105,6 +110,7 @@ public class SemuxBft implements BftManager {
 
     protected Timer timer;
     protected Broadcaster broadcaster;
+    protected VoteVerifier voteVerifier;
     protected BlockingQueue<Event> events = new LinkedBlockingQueue<>();
 
     protected Status status;
@@ -118,6 +124,7 @@ public class SemuxBft implements BftManager {
     protected Cache<ByteArray, Block> validBlocks = Caffeine.newBuilder().maximumSize(8).build();
 
     protected List<String> validators;
+    protected Set<ByteArray> validatorAddresses;
     protected List<Channel> activeValidators;
     protected long lastUpdate;
 
@@ -125,6 +132,10 @@ public class SemuxBft implements BftManager {
     protected VoteSet precommitVotes;
     protected VoteSet commitVotes;
 
+    protected Map<State, Histogram> stateTime = new EnumMap<>(State.class);
+    protected Histogram importTime;
+    protected long stateSince;
+
     public SemuxBft(Kernel kernel) {
         this.kernel = kernel;
         this.config = kernel.getConfig();
@@ -138,9 +149,30 @@ public class SemuxBft implements BftManager {
 
         this.timer = new Timer();
         this.broadcaster = new Broadcaster();
+        this.voteVerifier = new VoteVerifier(kernel.getMetrics());
 
         this.status = Status.STOPPED;
         this.state = State.NEW_HEIGHT;
+        this.stateSince = System.nanoTime();
+
+        for (State s : State.values()) {
+            stateTime.put(s, kernel.getMetrics().histogram("semux_bft_state_ms",
+                    "Time spent in each BFT state in milliseconds", "state", s.name().toLowerCase(Locale.ROOT)));
+        }
+        this.importTime = kernel.getMetrics().histogram("semux_block_import_ms",
+                "Time to validate and import a block in milliseconds", "source", "consensus");
+    }
+
+    /**
+     * Switches to the given state, recording the time spent in the previous one.
+     *
+     * @param next
+     */
+    protected void setState(State next) {
+        long now = System.nanoTime();
+        stateTime.get(state).observe(TimeUnit.NANOSECONDS.toMillis(now - stateSince));
+        state = next;
+        stateSince = now;
     }
 
     /**
@@ -221,6 +253,7 @@ public class SemuxBft implements BftManager {
             status = Status.RUNNING;
             timer.start();
             broadcaster.start();
+            voteVerifier.start();
             logger.info("Semux BFT manager started");
 
             enterNewHeight();
@@ -240,6 +273,7 @@ public class SemuxBft implements BftManager {
 
             timer.stop();
             broadcaster.stop();
+            voteVerifier.stop();
 
             status = Status.STOPPED;
             Event ev = new Event(Type.STOP);
@@ -258,7 +292,7 @@ public class SemuxBft implements BftManager {
      * Enter the NEW_HEIGHT state
      */
     protected void enterNewHeight() {
-        state = State.NEW_HEIGHT;
+        setState(State.NEW_HEIGHT);
 
         // update previous block
         Block prevBlock = chain.getLatestBlock();
@@ -296,7 +330,7 @@ public class SemuxBft implements BftManager {
      * Enter the PROPOSE state
      */
     protected void enterPropose() {
-        state = State.PROPOSE;
+        setState(State.PROPOSE);
         resetTimeout(config.bftProposeTimeout());
 
         updateValidators();
@@ -334,7 +368,7 @@ public class SemuxBft implements BftManager {
      * Enter the VALIDATE state
      */
     protected void enterValidate() {
-        state = State.VALIDATE;
+        setState(State.VALIDATE);
         resetTimeout(config.bftValidateTimeout());
         logger.info("Entered validate: proposal = {}, votes = {} {} {}", proposal != null, validateVotes,
                 precommitVotes, commitVotes);
@@ -357,7 +391,7 @@ public class SemuxBft implements BftManager {
      * Enter the PRE_COMMIT state
      */
     protected void enterPreCommit() {
-        state = State.PRE_COMMIT;
+        setState(State.PRE_COMMIT);
         resetTimeout(config.bftPreCommitTimeout());
         logger.info("Entered pre_commit: proposal = {}, votes = {} {} {}", proposal != null, validateVotes,
                 precommitVotes, commitVotes);
@@ -377,7 +411,7 @@ public class SemuxBft implements BftManager {
      * Enter the COMMIT state
      */
     protected void enterCommit() {
-        state = State.COMMIT;
+        setState(State.COMMIT);
         resetTimeout(config.bftCommitTimeout());
         logger.info("Entered commit: proposal = {}, votes = {} {} {}", proposal != null, validateVotes, precommitVotes,
                 commitVotes);
@@ -405,7 +439,7 @@ public class SemuxBft implements BftManager {
             return;
         }
 
-        state = State.FINALIZE;
+        setState(State.FINALIZE);
         resetTimeout(config.bftFinalizeTimeout());
         logger.info("Entered finalize: proposal = {}, votes = {} {} {}", proposal != null, validateVotes,
                 precommitVotes, commitVotes);
@@ -423,7 +457,9 @@ public class SemuxBft implements BftManager {
 
             // [2] add the block to chain
             logger.info(block.toString());
+            long start = System.nanoTime();
             chain.importBlock(block, false);
+            importTime.observe(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
         } else {
             sync(height + 1);
         }
@@ -484,7 +520,7 @@ public class SemuxBft implements BftManager {
                 && p.getView() > view && state != State.COMMIT && state != State.FINALIZE) {// larger view
 
             // check proof-of-unlock
-            VoteSet vs = new VoteSet(VoteType.PRECOMMIT, p.getHeight(), p.getView() - 1, validators);
+            VoteSet vs = new VoteSet(VoteType.PRECOMMIT, p.getHeight(), p.getView() - 1, validatorAddresses);
             vs.addVotes(p.getVotes());
             if (!vs.isRejected()) {
                 return;
@@ -507,7 +543,7 @@ public class SemuxBft implements BftManager {
 
             // check proof-of-unlock
             if (p.getView() != 0) {
-                VoteSet vs = new VoteSet(VoteType.PRECOMMIT, p.getHeight(), p.getView() - 1, validators);
+                VoteSet vs = new VoteSet(VoteType.PRECOMMIT, p.getHeight(), p.getView() - 1, validatorAddresses);
                 vs.addVotes(p.getProof().getVotes());
                 if (!vs.isRejected()) {
                     return;
@@ -644,12 +680,8 @@ public class SemuxBft implements BftManager {
             Vote vote = m.getVote();
 
             if (vote.getHeight() == height) {
-                if (vote.revalidate()) {
-                    events.add(new Event(Type.VOTE, vote));
-                } else {
-                    logger.debug("Invalid vote from {}", channel.getRemotePeer().getPeerId());
-                    channel.getMessageQueue().disconnect(ReasonCode.BAD_PEER);
-                }
+                // signatures are verified in batches, off the event loop
+                voteVerifier.submit(channel, vote);
             }
             break;
         }
@@ -672,6 +704,7 @@ public class SemuxBft implements BftManager {
         if (validators.size() > maxValidators) {
             validators = validators.subList(0, maxValidators);
         }
+        validatorAddresses = VoteSet.toAddressSet(validators);
         activeValidators = channelMgr.getActiveChannels(validators);
         lastUpdate = TimeUtil.currentTimeMillis();
     }
@@ -718,16 +751,16 @@ public class SemuxBft implements BftManager {
      * @return
      */
     protected boolean isFromValidator(Signature sig) {
-        return validators.contains(Hex.encode(Hash.h160(sig.getPublicKey())));
+        return validatorAddresses.contains(ByteArray.of(sig.getAddress()));
     }
 
     /**
      * Reset all vote sets. This should be invoked whenever height or view changes.
      */
     protected void clearVotes() {
-        validateVotes = new VoteSet(VoteType.VALIDATE, height, view, validators);
-        precommitVotes = new VoteSet(VoteType.PRECOMMIT, height, view, validators);
-        commitVotes = new VoteSet(VoteType.COMMIT, height, view, validators);
+        validateVotes = new VoteSet(VoteType.VALIDATE, height, view, validatorAddresses);
+        precommitVotes = new VoteSet(VoteType.PRECOMMIT, height, view, validatorAddresses);
+        commitVotes = new VoteSet(VoteType.COMMIT, height, view, validatorAddresses);
     }
 
     /**
@@ -1016,6 +1049,133 @@ public class SemuxBft implements BftManager {
         }
     }
 
+    /**
+     * Verifies the signatures of incoming votes in batches, and feeds the valid
+     * ones to the event loop.
+     */
+    public class VoteVerifier implements Runnable {
+        private static final int MAX_BATCH_SIZE = 256;
+
+        private final BlockingQueue<PendingVote> queue = new LinkedBlockingQueue<>();
+        private final Histogram latency;
+        private final Histogram batchSize;
+
+        private Thread t;
+
+        public VoteVerifier(MetricRegistry metrics) {
+            this.latency = metrics.histogram("semux_bft_vote_verify_us",
+                    "Time from receiving a vote until its signature is verified in microseconds",
+                    MetricRegistry.MICROS_BOUNDS);
+            this.batchSize = metrics.histogram("semux_bft_vote_batch_size",
+                    "Number of votes verified in a batch", new long[] { 1, 2, 4, 8, 16, 32, 64, 128, 256 });
+        }
+
+        @Override
+        public void run() {
+            List<PendingVote> batch = new ArrayList<>();
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                    verify(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Exception e) {
+                    logger.warn("Unexpected exception in vote verifier", e);
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+
+        protected void verify(List<PendingVote> batch) {
+            List<PendingVote> pending = new ArrayList<>();
+            for (PendingVote p : batch) {
+                // drop votes which are no longer relevant
+                if (p.vote.getHeight() != height) {
+                    continue;
+                }
+                if (p.vote.revalidate(false)) {
+                    pending.add(p);
+                } else {
+                    reject(p);
+                }
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            boolean verified = pending.size() > 1 && Key.isVerifyBatchSupported()
+                    && Key.verifyBatch(
+                            pending.stream().map(p -> p.vote.getEncoded()).collect(Collectors.toList()),
+                            pending.stream().map(p -> p.vote.getSignature()).collect(Collectors.toList()));
+
+            long now = System.nanoTime();
+            for (PendingVote p : pending) {
+                if (verified) {
+                    p.vote.setValidated(true);
+                }
+
+                // a failed batch falls back to single verification, to find the invalid ones
+                if (p.vote.validate()) {
+                    latency.observe(TimeUnit.NANOSECONDS.toMicros(now - p.received));
+                    events.add(new Event(Type.VOTE, p.vote));
+                } else {
+                    reject(p);
+                }
+            }
+            batchSize.observe(pending.size());
+
+            logger.trace("Verified {} votes at height = {}, view = {}, batch = {}", pending.size(), height, view,
+                    verified);
+        }
+
+        protected void reject(PendingVote p) {
+            logger.debug("Invalid vote from {}", p.channel.getRemotePeer().getPeerId());
+            p.channel.getMessageQueue().disconnect(ReasonCode.BAD_PEER);
+        }
+
+        public synchronized void start() {
+            if (t == null) {
+                t = new Thread(this, "bft-vote-verifier");
+                t.start();
+            }
+        }
+
+        public synchronized void stop() {
+            if (t != null) {
+                try {
+                    t.interrupt();
+                    t.join();
+                } catch (InterruptedException e) {
+                    logger.error("Failed to stop vote verifier");
+                    Thread.currentThread().interrupt();
+                }
+                t = null;
+            }
+            queue.clear();
+        }
+
+        public void submit(Channel channel, Vote vote) {
+            if (!queue.offer(new PendingVote(channel, vote, System.nanoTime()))) {
+                logger.error("Failed to add a vote to the verification queue: vote = {}", vote);
+            }
+        }
+    }
+
+    protected static class PendingVote {
+        final Channel channel;
+        final Vote vote;
+        final long received;
+
+        PendingVote(Channel channel, Vote vote, long received) {
+            this.channel = channel;
+            this.vote = vote;
+            this.received = received;
+        }
+    }
+
     public static class Event {
         public enum Type {
             /**
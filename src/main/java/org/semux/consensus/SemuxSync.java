@@ -14,10 +14,11 @@ import java.math.MathContext;
 import java.net.InetSocketAddress;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +27,8 @@ import java.util.Random;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -52,8 +55,11 @@ import org.semux.net.msg.Message;
 import org.semux.net.msg.ReasonCode;
 import org.semux.net.msg.consensus.BlockMessage;
 import org.semux.net.msg.consensus.BlockPartsMessage;
+import org.semux.net.msg.consensus.BlocksPartsMessage;
 import org.semux.net.msg.consensus.GetBlockMessage;
 import org.semux.net.msg.consensus.GetBlockPartsMessage;
+import org.semux.net.msg.consensus.GetBlocksPartsMessage;
+import org.semux.util.Histogram;
 import org.semux.util.TimeUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -84,6 +90,17 @@ public class SemuxSync implements SyncManager {
     private static final ScheduledExecutorService timer2 = Executors.newSingleThreadScheduledExecutor(factory);
     private static final ScheduledExecutorService timer3 = Executors.newSingleThreadScheduledExecutor(factory);
 
+    // stateless block validation ahead of the import cursor
+    private static final ExecutorService validator = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+                private final AtomicInteger cnt = new AtomicInteger(0);
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    return new Thread(r, "sync-validator-" + cnt.getAndIncrement());
+                }
+            });
+
     private final long DOWNLOAD_TIMEOUT;
 
     private final int MAX_QUEUED_JOBS;
@@ -92,6 +109,15 @@ public class SemuxSync implements SyncManager {
 
     private static final Random random = new Random();
 
+    // the range size for peers whose throughput hasn't been measured yet
+    private static final int DEFAULT_RANGE_SIZE = 16;
+
+    // the weight of the latest sample in the moving averages of peer stats
+    private static final double STATS_ALPHA = 0.3;
+
+    // the probability of picking a random peer regardless of its stats
+    private static final double EXPLORATION_RATE = 0.1;
+
     private final Config config;
 
     private final Blockchain chain;
@@ -103,8 +129,9 @@ public class SemuxSync implements SyncManager {
     // Blocks to download
     private final TreeSet<Long> toDownload = new TreeSet<>();
 
-    // Blocks which were requested but haven't been received
-    private final Map<Long, Long> toReceive = new HashMap<>();
+    // Blocks which were requested but haven't been received, with the request
+    // timestamp and the peer id
+    private final Map<Long, Pair<Long, String>> toReceive = new HashMap<>();
 
     // Blocks which were received but haven't been validated
     private final TreeSet<Pair<Block, Channel>> toValidate = new TreeSet<>(
@@ -125,7 +152,12 @@ public class SemuxSync implements SyncManager {
     private final AtomicBoolean isRunning = new AtomicBoolean(false);
 
     // reset at the beginning of a sync task
-    private final Set<String> badPeers = new HashSet<>();
+    private final Set<String> badPeers = ConcurrentHashMap.newKeySet();
+
+    // the download performance of peers, reset at the beginning of a sync task
+    private final Map<String, SemuxSyncPeerStats> peerStats = new ConcurrentHashMap<>();
+
+    private final Histogram importTime;
 
     public SemuxSync(Kernel kernel) {
         this.config = kernel.getConfig();
@@ -137,6 +169,9 @@ public class SemuxSync implements SyncManager {
         this.MAX_QUEUED_JOBS = config.syncMaxQueuedJobs();
         this.MAX_PENDING_JOBS = config.syncMaxPendingJobs();
         this.MAX_PENDING_BLOCKS = config.syncMaxPendingBlocks();
+
+        this.importTime = kernel.getMetrics().histogram("semux_block_import_ms",
+                "Time to validate and import a block in milliseconds", "source", "sync");
     }
 
     @Override
@@ -145,6 +180,7 @@ public class SemuxSync implements SyncManager {
             beginningTimestamp.set(System.currentTimeMillis());
 
             badPeers.clear();
+            peerStats.clear();
 
             logger.info("Syncing started, best known block = {}", targetHeight - 1);
 
@@ -216,13 +252,59 @@ public class SemuxSync implements SyncManager {
         return isRunning.get();
     }
 
+    /**
+     * Adds the consecutive blocks received in one response, and updates the stats
+     * of the peer.
+     */
+    protected void addBlocks(List<Block> blocks, Channel channel, int bytes) {
+        if (blocks.isEmpty()) {
+            return;
+        }
+
+        Pair<Long, String> request;
+        synchronized (lock) {
+            request = toReceive.get(blocks.get(0).getNumber());
+        }
+
+        for (Block block : blocks) {
+            addBlock(block, channel);
+        }
+
+        if (request != null) {
+            getPeerStats(channel.getRemotePeer().getPeerId())
+                    .onResponse(blocks.size(), bytes, TimeUtil.currentTimeMillis() - request.getLeft());
+        }
+    }
+
     protected void addBlock(Block block, Channel channel) {
+        boolean added;
         synchronized (lock) {
             if (toDownload.remove(block.getNumber())) {
                 growToDownloadQueue();
             }
             toReceive.remove(block.getNumber());
-            toValidate.add(Pair.of(block, channel));
+            added = toValidate.add(Pair.of(block, channel));
+        }
+
+        // a duplicate of a queued block is discarded, so there is nothing to validate
+        if (added) {
+            validator.submit(() -> preValidate(block, channel));
+        }
+    }
+
+    /**
+     * Verifies the header, transactions and vote signatures of a queued block, so
+     * that only the stateful checks and execution are left for import. Blocks
+     * reaching the import cursor before this finishes are fully validated by
+     * {@link Blockchain#importBlock(Block, boolean)}.
+     */
+    protected void preValidate(Block block, Channel channel) {
+        if (!isRunning() || block.getNumber() <= chain.getLatestBlockNumber()) {
+            return;
+        }
+
+        if (!block.preValidate(config.network())) {
+            handleInvalidBlock(block, channel);
         }
     }
 
@@ -236,44 +318,32 @@ public class SemuxSync implements SyncManager {
         case BLOCK: {
             BlockMessage blockMsg = (BlockMessage) msg;
             Block block = blockMsg.getBlock();
-            addBlock(block, channel);
+            addBlocks(Collections.singletonList(block), channel, msg.getBody().length);
             break;
         }
         case BLOCK_PARTS: {
             // try re-construct a block
             BlockPartsMessage blockPartsMsg = (BlockPartsMessage) msg;
-            List<BlockPart> parts = BlockPart.decode(blockPartsMsg.getParts());
-            List<byte[]> data = blockPartsMsg.getData();
-
-            // sanity check
-            if (parts.size() != data.size()) {
-                logger.debug("Part set and data do not match");
-                break;
+            Block block = decodeBlockParts(BlockPart.decode(blockPartsMsg.getParts()), blockPartsMsg.getData());
+            if (block != null) {
+                addBlocks(Collections.singletonList(block), channel, msg.getBody().length);
             }
-
-            // parse the data
-            byte[] header = null, transactions = null, results = null, votes = null;
-            for (int i = 0; i < parts.size(); i++) {
-                if (parts.get(i) == BlockPart.HEADER) {
-                    header = data.get(i);
-                } else if (parts.get(i) == BlockPart.TRANSACTIONS) {
-                    transactions = data.get(i);
-                } else if (parts.get(i) == BlockPart.RESULTS) {
-                    results = data.get(i);
-                } else if (parts.get(i) == BlockPart.VOTES) {
-                    votes = data.get(i);
-                } else {
-                    // unknown
+            break;
+        }
+        case BLOCKS_PARTS: {
+            BlocksPartsMessage blocksPartsMsg = (BlocksPartsMessage) msg;
+            List<BlockPart> parts = BlockPart.decode(blocksPartsMsg.getParts());
+
+            List<Block> blocks = new ArrayList<>();
+            for (List<byte[]> data : blocksPartsMsg.getData()) {
+                Block block = decodeBlockParts(parts, data);
+                if (block == null || block.getNumber() != blocksPartsMsg.getFrom() + blocks.size()) {
+                    logger.debug("Unexpected block in the range starting from #{}", blocksPartsMsg.getFrom());
+                    break;
                 }
+                blocks.add(block);
             }
-
-            // import block
-            try {
-                Block block = Block.fromComponents(header, transactions, results, votes);
-                addBlock(block, channel);
-            } catch (Exception e) {
-                logger.debug("Failed to parse a block from components", e);
-            }
+            addBlocks(blocks, channel, msg.getBody().length);
             break;
         }
         case BLOCK_HEADER: // deprecated
@@ -283,10 +353,121 @@ public class SemuxSync implements SyncManager {
         }
     }
 
+    /**
+     * Re-constructs a block from its parts.
+     *
+     * @return the block, or null if the parts are malformed
+     */
+    private Block decodeBlockParts(List<BlockPart> parts, List<byte[]> data) {
+        // sanity check
+        if (parts.size() != data.size()) {
+            logger.debug("Part set and data do not match");
+            return null;
+        }
+
+        // parse the data
+        byte[] header = null, transactions = null, results = null, votes = null;
+        for (int i = 0; i < parts.size(); i++) {
+            if (parts.get(i) == BlockPart.HEADER) {
+                header = data.get(i);
+            } else if (parts.get(i) == BlockPart.TRANSACTIONS) {
+                transactions = data.get(i);
+            } else if (parts.get(i) == BlockPart.RESULTS) {
+                results = data.get(i);
+            } else if (parts.get(i) == BlockPart.VOTES) {
+                votes = data.get(i);
+            } else {
+                // unknown
+            }
+        }
+
+        try {
+            return Block.fromComponents(header, transactions, results, votes);
+        } catch (Exception e) {
+            logger.debug("Failed to parse a block from components", e);
+            return null;
+        }
+    }
+
+    private SemuxSyncPeerStats getPeerStats(String peerId) {
+        return peerStats.computeIfAbsent(peerId, SemuxSyncPeerStats::new);
+    }
+
+    /**
+     * Returns the number of blocks to request from a peer at once, sized so that
+     * the range is expected to arrive within half of the download timeout.
+     */
+    private int getRangeSize(Channel channel) {
+        SemuxSyncPeerStats stats = peerStats.get(channel.getRemotePeer().getPeerId());
+        if (stats == null || stats.getBlocksReceived() == 0) {
+            return DEFAULT_RANGE_SIZE;
+        }
+
+        long size = Math.round(stats.getBlocksPerSecond() * DOWNLOAD_TIMEOUT / 2000.0);
+        return (int) Math.max(1L, Math.min(GetBlocksPartsMessage.MAX_BLOCKS, size));
+    }
+
+    /**
+     * Picks a channel with a probability proportional to the peer's effective
+     * throughput, i.e. blocks per second discounted by the timeout rate. Peers
+     * without measurements are scored as the average, and a random channel is
+     * picked once in a while so that the stats of all peers stay up to date.
+     */
+    private Channel selectChannel(List<Channel> channels) {
+        if (channels.size() == 1 || random.nextDouble() < EXPLORATION_RATE) {
+            return channels.get(random.nextInt(channels.size()));
+        }
+
+        double[] scores = new double[channels.size()];
+        double sum = 0;
+        int measured = 0;
+        for (int i = 0; i < channels.size(); i++) {
+            SemuxSyncPeerStats stats = peerStats.get(channels.get(i).getRemotePeer().getPeerId());
+            if (stats != null && stats.getBlocksReceived() > 0) {
+                scores[i] = stats.getBlocksPerSecond() * (1.0 - stats.getTimeoutRate());
+                sum += scores[i];
+                measured++;
+            } else {
+                scores[i] = Double.NaN;
+            }
+        }
+        double average = sum > 0 ? sum / measured : 1.0;
+
+        double total = 0;
+        for (int i = 0; i < scores.length; i++) {
+            if (Double.isNaN(scores[i]) || sum <= 0) {
+                scores[i] = average;
+            }
+            total += scores[i];
+        }
+
+        double r = random.nextDouble() * total;
+        for (int i = 0; i < scores.length; i++) {
+            r -= scores[i];
+            if (r < 0) {
+                return channels.get(i);
+            }
+        }
+        return channels.get(channels.size() - 1);
+    }
+
     private boolean isFastSyncSupported(Peer peer) {
         return Stream.of(peer.getCapabilities()).anyMatch(c -> Capability.FAST_SYNC.name().equals(c));
     }
 
+    /**
+     * Returns the block parts to request for the given block.
+     */
+    private int getBlockParts(long blockNumber) {
+        if (!config.syncFastSync()) {
+            return BlockPart.encode(BlockPart.HEADER, BlockPart.TRANSACTIONS, BlockPart.RESULTS, BlockPart.VOTES);
+        } else if (skipVotes(blockNumber)) {
+            return BlockPart.encode(BlockPart.HEADER, BlockPart.TRANSACTIONS);
+        } else {
+            return BlockPart.encode(BlockPart.HEADER, BlockPart.TRANSACTIONS, BlockPart.VOTES);
+        }
+    }
+
     private boolean skipVotes(long blockNumber) {
         long interval = config.spec().getValidatorUpdateInterval();
 
@@ -304,12 +485,13 @@ public class SemuxSync implements SyncManager {
         synchronized (lock) {
             // filter all expired tasks
             long now = TimeUtil.currentTimeMillis();
-            Iterator<Entry<Long, Long>> itr = toReceive.entrySet().iterator();
+            Iterator<Entry<Long, Pair<Long, String>>> itr = toReceive.entrySet().iterator();
             while (itr.hasNext()) {
-                Entry<Long, Long> entry = itr.next();
+                Entry<Long, Pair<Long, String>> entry = itr.next();
 
-                if (entry.getValue() + DOWNLOAD_TIMEOUT < now) {
+                if (entry.getValue().getLeft() + DOWNLOAD_TIMEOUT < now) {
                     logger.debug("Failed to download block #{}, expired", entry.getKey());
+                    getPeerStats(entry.getValue().getRight()).onTimeout();
                     toDownload.add(entry.getKey());
                     itr.remove();
                 }
@@ -352,10 +534,27 @@ public class SemuxSync implements SyncManager {
             if (channels.isEmpty()) {
                 return;
             }
-            // otherwise, pick a random channel
-            Channel c = channels.get(random.nextInt(channels.size()));
+            // otherwise, pick a channel by throughput
+            Channel c = selectChannel(channels);
+
+            long last = task;
+            if (c.isSupported(Capability.RANGE_SYNC)) { // use GET_BLOCKS_PARTS protocol
+                int parts = getBlockParts(task);
+                int maxCount = Math.max(1, Math.min(getRangeSize(c), MAX_PENDING_JOBS - toReceive.size()));
+
+                // extend the range while the blocks are consecutive and require the same parts
+                while (last - task + 1 < maxCount
+                        && last + 1 <= c.getRemotePeer().getLatestBlockNumber()
+                        && toDownload.contains(last + 1)
+                        && getBlockParts(last + 1) == parts) {
+                    last++;
+                }
+                int count = (int) (last - task + 1);
 
-            if (config.syncFastSync()) { // use FAST_SYNC protocol
+                logger.trace("Requesting blocks #{} - #{} from {}:{}, parts = {}", task, last, c.getRemoteIp(),
+                        c.getRemotePort(), BlockPart.decode(parts));
+                c.getMessageQueue().sendMessage(new GetBlocksPartsMessage(task, count, parts));
+            } else if (config.syncFastSync()) { // use FAST_SYNC protocol
                 if (skipVotes(task)) {
                     logger.trace("Requesting block #{} from {}:{}, HEADER + TRANSACTIONS", task,
                             c.getRemoteIp(),
@@ -374,10 +573,16 @@ public class SemuxSync implements SyncManager {
                 c.getMessageQueue().sendMessage(new GetBlockMessage(task));
             }
 
-            if (toDownload.remove(task)) {
+            Pair<Long, String> request = Pair.of(now, c.getRemotePeer().getPeerId());
+            boolean removed = false;
+            for (long n = task; n <= last; n++) {
+                removed |= toDownload.remove(n);
+                toReceive.put(n, request);
+            }
+            getPeerStats(c.getRemotePeer().getPeerId()).onRequest((int) (last - task + 1));
+            if (removed) {
                 growToDownloadQueue();
             }
-            toReceive.put(task, TimeUtil.currentTimeMillis());
         }
     }
 
@@ -451,7 +656,9 @@ public class SemuxSync implements SyncManager {
                 if (valid) {
                     for (long n = latest + 1; n <= checkpoint; n++) {
                         Pair<Block, Channel> p = toImport.remove(n);
+                        long t = System.nanoTime();
                         boolean imported = chain.importBlock(p.getKey(), false);
+                        importTime.observe(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t));
                         if (!imported) {
                             handleInvalidBlock(p.getKey(), p.getValue());
                             break;
@@ -502,8 +709,9 @@ public class SemuxSync implements SyncManager {
     }
 
     /**
-     * Handle invalid block: Add block back to download queue. Remove block from all
-     * other queues. Disconnect from the peer that sent the block.
+     * Handle invalid block: Remove block from all other queues and add it back to
+     * download queue, unless a copy from another peer is queued. Disconnect from
+     * the peer that sent the block.
      *
      * @param block
      * @param channel
@@ -513,12 +721,33 @@ public class SemuxSync implements SyncManager {
         logger.info("Invalid block, peer = {}:{}, block # = {}", a.getAddress().getHostAddress(), a.getPort(),
                 block.getNumber());
         synchronized (lock) {
-            // add to the request queue
-            toDownload.add(block.getNumber());
+            long number = block.getNumber();
+
+            // the queues are keyed by number, so only drop the entry holding this very
+            // block, which may not be the copy another peer sent
+            boolean queued = false;
+            Pair<Block, Channel> validating = toValidate.ceiling(Pair.of(block, channel));
+            if (validating != null && validating.getKey().getNumber() == number) {
+                if (isSame(validating, block, channel)) {
+                    toValidate.remove(validating);
+                } else {
+                    queued = true;
+                }
+            }
+            Pair<Block, Channel> importing = toImport.get(number);
+            if (importing != null) {
+                if (isSame(importing, block, channel)) {
+                    toImport.remove(number);
+                } else {
+                    queued = true;
+                }
+            }
 
-            toReceive.remove(block.getNumber());
-            toValidate.remove(Pair.of(block, channel));
-            toImport.remove(block.getNumber());
+            // add to the request queue, unless another copy is still queued
+            if (!queued) {
+                toDownload.add(number);
+                toReceive.remove(number);
+            }
         }
 
         badPeers.add(channel.getRemotePeer().getPeerId());
@@ -529,13 +758,18 @@ public class SemuxSync implements SyncManager {
         }
     }
 
+    private static boolean isSame(Pair<Block, Channel> entry, Block block, Channel channel) {
+        return entry.getKey() == block && entry.getValue() == channel;
+    }
+
     @Override
     public SemuxSyncProgress getProgress() {
         return new SemuxSyncProgress(
                 begin.get(),
                 current.get(),
                 target.get(),
-                Duration.between(Instant.ofEpochMilli(beginningTimestamp.get()), Instant.now()));
+                Duration.between(Instant.ofEpochMilli(beginningTimestamp.get()), Instant.now()),
+                new ArrayList<>(peerStats.values()));
     }
 
     public static class SemuxSyncProgress implements Progress {
@@ -548,11 +782,19 @@ public class SemuxSync implements SyncManager {
 
         final Duration duration;
 
+        final List<? extends PeerStats> peerStats;
+
         public SemuxSyncProgress(long startingHeight, long currentHeight, long targetHeight, Duration duration) {
+            this(startingHeight, currentHeight, targetHeight, duration, Collections.emptyList());
+        }
+
+        public SemuxSyncProgress(long startingHeight, long currentHeight, long targetHeight, Duration duration,
+                List<? extends PeerStats> peerStats) {
             this.startingHeight = startingHeight;
             this.currentHeight = currentHeight;
             this.targetHeight = targetHeight;
             this.duration = duration;
+            this.peerStats = peerStats;
         }
 
         @Override
@@ -582,5 +824,96 @@ public class SemuxSync implements SyncManager {
                 return Duration.ofSeconds(remaining * durationInSeconds / imported);
             }
         }
+
+        @Override
+        public List<? extends PeerStats> getPeerStats() {
+            return peerStats;
+        }
+    }
+
+    /**
+     * Download stats of a peer. Latency and throughput are exponential moving
+     * averages over the responses, where a range response counts as one sample.
+     */
+    public static class SemuxSyncPeerStats implements PeerStats {
+
+        private final String peerId;
+
+        private long blocksRequested;
+        private long blocksReceived;
+        private long timeouts;
+
+        private double latency;
+        private double bytesPerSecond;
+        private double blocksPerSecond;
+
+        public SemuxSyncPeerStats(String peerId) {
+            this.peerId = peerId;
+        }
+
+        synchronized void onRequest(int blocks) {
+            blocksRequested += blocks;
+        }
+
+        synchronized void onResponse(int blocks, int bytes, long elapsed) {
+            elapsed = Math.max(1L, elapsed);
+            double bps = bytes * 1000.0 / elapsed;
+            double blockRate = blocks * 1000.0 / elapsed;
+
+            if (blocksReceived == 0) {
+                latency = elapsed;
+                bytesPerSecond = bps;
+                blocksPerSecond = blockRate;
+            } else {
+                latency = latency * (1 - STATS_ALPHA) + elapsed * STATS_ALPHA;
+                bytesPerSecond = bytesPerSecond * (1 - STATS_ALPHA) + bps * STATS_ALPHA;
+                blocksPerSecond = blocksPerSecond * (1 - STATS_ALPHA) + blockRate * STATS_ALPHA;
+            }
+            blocksReceived += blocks;
+        }
+
+        synchronized void onTimeout() {
+            timeouts++;
+        }
+
+        @Override
+        public String getPeerId() {
+            return peerId;
+        }
+
+        @Override
+        public synchronized long getBlocksRequested() {
+            return blocksRequested;
+        }
+
+        @Override
+        public synchronized long getBlocksReceived() {
+            return blocksReceived;
+        }
+
+        @Override
+        public synchronized long getTimeouts() {
+            return timeouts;
+        }
+
+        @Override
+        public synchronized double getTimeoutRate() {
+            return blocksRequested == 0 ? 0.0 : Math.min(1.0, (double) timeouts / blocksRequested);
+        }
+
+        @Override
+        public synchronized double getLatency() {
+            return latency;
+        }
+
+        @Override
+        public synchronized double getBytesPerSecond() {
+            return bytesPerSecond;
+        }
+
+        @Override
+        public synchronized double getBlocksPerSecond() {
+            return blocksPerSecond;
+        }
     }
 }
@@ -86,12 +86,39 @@ public class Vote {
      * @return
      */
     public boolean revalidate() {
-        return (validated = (type != null
+        return (validated = (revalidate(false) && Key.verify(encoded, signature)));
+    }
+
+    /**
+     * validate the vote format, and optionally the signature, while ignoring any
+     * cached validation value. The result is only memoized if the signature is
+     * verified.
+     * 
+     * @param verifySignature
+     *            whether to verify the signature
+     * @return
+     */
+    public boolean revalidate(boolean verifySignature) {
+        if (verifySignature) {
+            return revalidate();
+        }
+
+        return type != null
                 && height > 0
                 && view >= 0
                 && blockHash != null && blockHash.length == 32
                 && encoded != null
-                && signature != null && Key.verify(encoded, signature)));
+                && signature != null;
+    }
+
+    /**
+     * Memoizes the result of a signature verification done elsewhere, e.g. in a
+     * batch.
+     * 
+     * @param validated
+     */
+    void setValidated(boolean validated) {
+        this.validated = validated;
     }
 
     /**
@@ -29,13 +29,13 @@ import org.semux.util.ByteArray;
  */
 public class VoteSet {
 
-    private final Map<ByteArray, Map<String, Vote>> approvals;
-    private final Map<String, Vote> rejections;
+    private final Map<ByteArray, Map<ByteArray, Vote>> approvals;
+    private final Map<ByteArray, Vote> rejections;
     private final VoteType type;
     private final long height;
     private final int view;
 
-    private final Set<String> validators;
+    private final Set<ByteArray> validators;
     private final int twoThirds;
 
     /**
@@ -46,16 +46,42 @@ public class VoteSet {
      * @param validators
      */
     public VoteSet(VoteType type, long height, int view, List<String> validators) {
+        this(type, height, view, toAddressSet(validators));
+    }
+
+    /**
+     * Create a vote set.
+     * 
+     * @param height
+     * @param view
+     * @param validators
+     *            the addresses of the validators
+     */
+    VoteSet(VoteType type, long height, int view, Set<ByteArray> validators) {
         this.approvals = new HashMap<>();
         this.rejections = new HashMap<>();
         this.type = type;
         this.height = height;
         this.view = view;
 
-        this.validators = new HashSet<>(validators);
+        this.validators = validators;
         this.twoThirds = (int) Math.ceil(validators.size() * 2.0 / 3.0);
     }
 
+    /**
+     * Converts a list of validators in hex into a set of binary addresses.
+     * 
+     * @param validators
+     * @return
+     */
+    public static Set<ByteArray> toAddressSet(List<String> validators) {
+        Set<ByteArray> set = new HashSet<>();
+        for (String v : validators) {
+            set.add(ByteArray.of(Hex.decode(v)));
+        }
+        return set;
+    }
+
     /**
      * Add vote to this set if the height and view match.
      * 
@@ -73,12 +99,12 @@ public class VoteSet {
                 && vote.getBlockHash() != null
                 && vote.validate()
                 && sig != null
-                && validators.contains(Hex.encode(sig.getAddress()))) {
-            String peerId = Hex.encode(sig.getAddress());
+                && validators.contains(ByteArray.of(sig.getAddress()))) {
+            ByteArray peerId = ByteArray.of(sig.getAddress());
 
             if (vote.getValue() == Vote.VALUE_APPROVE) {
                 ByteArray key = ByteArray.of(vote.getBlockHash());
-                Map<String, Vote> map = approvals.computeIfAbsent(key, k -> new HashMap<>());
+                Map<ByteArray, Vote> map = approvals.computeIfAbsent(key, k -> new HashMap<>());
                 return map.put(peerId, vote) == null;
             } else {
                 return rejections.put(peerId, vote) == null;
@@ -109,7 +135,7 @@ public class VoteSet {
      * @return
      */
     public boolean isApproved(byte[] blockHash) {
-        Map<String, Vote> v = approvals.get(ByteArray.of(blockHash));
+        Map<ByteArray, Vote> v = approvals.get(ByteArray.of(blockHash));
         return v != null && v.size() >= getTwoThirds();
     }
 
@@ -128,8 +154,8 @@ public class VoteSet {
      * @return
      */
     public Optional<byte[]> anyApproved() {
-        for (Map.Entry<ByteArray, Map<String, Vote>> e : approvals.entrySet()) {
-            Map<String, Vote> v = e.getValue();
+        for (Map.Entry<ByteArray, Map<ByteArray, Vote>> e : approvals.entrySet()) {
+            Map<ByteArray, Vote> v = e.getValue();
             if (v.size() >= getTwoThirds()) {
                 return Optional.of(e.getKey().getData());
             }
@@ -152,7 +178,7 @@ public class VoteSet {
      * @return
      */
     public List<Vote> getApprovals(byte[] blockHash) {
-        Map<String, Vote> map = approvals.get(ByteArray.of(blockHash));
+        Map<ByteArray, Vote> map = approvals.get(ByteArray.of(blockHash));
         return map == null ? new ArrayList<>() : new ArrayList<>(map.values());
     }
 
@@ -186,7 +212,7 @@ public class VoteSet {
     @Override
     public String toString() {
         int count = 0;
-        for (Map<String, Vote> map : approvals.values()) {
+        for (Map<ByteArray, Vote> map : approvals.values()) {
             count = Math.max(count, map.size());
         }
         return "[" + count + ", " + rejections.size() + "]";
@@ -11,6 +11,7 @@ import static org.semux.core.Amount.ZERO;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -18,9 +19,12 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.semux.Network;
 import org.semux.config.Config;
 import org.semux.config.Constants;
+import org.semux.consensus.Vote;
+import org.semux.consensus.VoteType;
 import org.semux.crypto.Hex;
 import org.semux.crypto.Key;
 import org.semux.crypto.Key.Signature;
+import org.semux.crypto.VerificationPool;
 import org.semux.util.MerkleUtil;
 import org.semux.util.SimpleDecoder;
 import org.semux.util.SimpleEncoder;
@@ -59,6 +63,21 @@ public class Block {
     // Auxiliary data
     // =========================
 
+    /**
+     * Whether the stateless checks have passed, see {@link #preValidate(Network)}.
+     */
+    private volatile boolean preValidated;
+
+    /**
+     * The encoded sections and the whole encoding, computed at most once and
+     * reset when the part they cover changes. Blocks received from peers keep
+     * their original bytes.
+     */
+    private volatile Pair<byte[], List<Integer>> encodedTransactions;
+    private volatile Pair<byte[], List<Integer>> encodedResults;
+    private volatile byte[] encodedVotes;
+    private volatile byte[] encoded;
+
     /**
      * Create a new block.
      *
@@ -94,14 +113,62 @@ public class Block {
 
     public void setResults(List<TransactionResult> results) {
         this.results = results;
+        this.encodedResults = null;
+        this.encoded = null;
     }
 
     public void setView(int view) {
         this.view = view;
+        this.preValidated = false;
+        this.encodedVotes = null;
+        this.encoded = null;
     }
 
     public void setVotes(List<Signature> votes) {
         this.votes = votes;
+        this.preValidated = false;
+        this.encodedVotes = null;
+        this.encoded = null;
+    }
+
+    /**
+     * Runs the stateless part of block validation: header format, transaction
+     * formats and signatures, transactions root and vote signatures. Unlike
+     * {@link #validateHeader(BlockHeader, BlockHeader)}, this does not depend on
+     * the parent block, so it can be done ahead of import for many blocks
+     * concurrently.
+     *
+     * @param network
+     * @return true if success, in which case the block is marked as pre-validated
+     */
+    public boolean preValidate(Network network) {
+        if (!header.validate()) {
+            logger.warn("Header was invalid.");
+            return false;
+        }
+
+        if (!validateTransactions(header, transactions, network)) {
+            logger.warn("Transactions were invalid.");
+            return false;
+        }
+
+        if (!validateVoteSignatures()) {
+            logger.warn("Vote signatures were invalid.");
+            return false;
+        }
+
+        preValidated = true;
+        return true;
+    }
+
+    /**
+     * Returns whether {@link #preValidate(Network)} has succeeded on this block,
+     * so that the transaction and vote signatures need not be checked again.
+     *
+     * @return
+     */
+    public boolean isPreValidated() {
+        return preValidated;
     }
 
     /**
@@ -174,13 +241,15 @@ public class Block {
     public boolean validateTransactions(BlockHeader header, Collection<Transaction> unvalidatedTransactions,
             List<Transaction> allTransactions, Network network) {
 
-        // validate transactions
+        // validate transactions, in the verification pool
         if (!Key.isVerifyBatchSupported() || unvalidatedTransactions.size() < 3) {
-            if (!unvalidatedTransactions.parallelStream().allMatch(tx -> tx.validate(network))) {
+            if (!VerificationPool.invoke(
+                    () -> unvalidatedTransactions.parallelStream().allMatch(tx -> tx.validate(network)))) {
                 return false;
             }
         } else {
-            if (!unvalidatedTransactions.parallelStream().allMatch(tx -> tx.validate(network, false))) {
+            if (!VerificationPool.invoke(
+                    () -> unvalidatedTransactions.parallelStream().allMatch(tx -> tx.validate(network, false)))) {
                 return false;
             }
 
@@ -196,6 +265,27 @@ public class Block {
         return Arrays.equals(root, header.getTransactionsRoot());
     }
 
+    /**
+     * Verifies the signatures of the PRECOMMIT votes of this block. Voter
+     * eligibility is not checked here.
+     *
+     * @return
+     */
+    public boolean validateVoteSignatures() {
+        if (votes.isEmpty()) {
+            return true;
+        }
+
+        Vote vote = new Vote(VoteType.PRECOMMIT, Vote.VALUE_APPROVE, getNumber(), view, getHash());
+        byte[] encoded = vote.getEncoded();
+
+        if (!Key.isVerifyBatchSupported()) {
+            return votes.stream().allMatch(sig -> Key.verify(encoded, sig));
+        } else {
+            return Key.verifyBatch(Collections.nCopies(votes.size(), encoded), votes);
+        }
+    }
+
     /**
      * Validates results.
      *
@@ -395,18 +485,28 @@ public class Block {
         return getEncodedTransactionsAndIndices().getLeft();
     }
 
+    /**
+     * Serializes the block transactions into byte array, along with the offset of
+     * each transaction. The result is shared and must not be modified.
+     *
+     * @return
+     */
     public Pair<byte[], List<Integer>> getEncodedTransactionsAndIndices() {
-        List<Integer> indices = new ArrayList<>();
-
-        SimpleEncoder enc = new SimpleEncoder();
-        enc.writeInt(transactions.size());
-        for (Transaction transaction : transactions) {
-            int index = enc.getWriteIndex();
-            enc.writeBytes(transaction.toBytes());
-            indices.add(index);
-        }
+        Pair<byte[], List<Integer>> p = encodedTransactions;
+        if (p == null) {
+            List<Integer> indices = new ArrayList<>();
+
+            SimpleEncoder enc = new SimpleEncoder();
+            enc.writeInt(transactions.size());
+            for (Transaction transaction : transactions) {
+                int index = enc.getWriteIndex();
+                enc.writeBytes(transaction.toBytes());
+                indices.add(index);
+            }
 
-        return Pair.of(enc.toBytes(), indices);
+            p = encodedTransactions = Pair.of(enc.toBytes(), indices);
+        }
+        return p;
     }
 
     /**
@@ -418,18 +518,28 @@ public class Block {
         return getEncodedResultsAndIndices().getLeft();
     }
 
+    /**
+     * Serializes the block transactions results into byte array, along with the
+     * offset of each result. The result is shared and must not be modified.
+     *
+     * @return
+     */
     public Pair<byte[], List<Integer>> getEncodedResultsAndIndices() {
-        List<Integer> indices = new ArrayList<>();
-
-        SimpleEncoder enc = new SimpleEncoder();
-        enc.writeInt(results.size());
-        for (TransactionResult result : results) {
-            int index = enc.getWriteIndex();
-            enc.writeBytes(result.toBytes());
-            indices.add(index);
-        }
+        Pair<byte[], List<Integer>> p = encodedResults;
+        if (p == null) {
+            List<Integer> indices = new ArrayList<>();
+
+            SimpleEncoder enc = new SimpleEncoder();
+            enc.writeInt(results.size());
+            for (TransactionResult result : results) {
+                int index = enc.getWriteIndex();
+                enc.writeBytes(result.toBytes());
+                indices.add(index);
+            }
 
-        return Pair.of(enc.toBytes(), indices);
+            p = encodedResults = Pair.of(enc.toBytes(), indices);
+        }
+        return p;
     }
 
     /**
@@ -438,15 +548,19 @@ public class Block {
      * @return
      */
     public byte[] getEncodedVotes() {
-        SimpleEncoder enc = new SimpleEncoder(4 + 4 + votes.size() * Signature.LENGTH);
+        byte[] b = encodedVotes;
+        if (b == null) {
+            SimpleEncoder enc = new SimpleEncoder(4 + 4 + votes.size() * Signature.LENGTH);
+
+            enc.writeInt(view);
+            enc.writeInt(votes.size());
+            for (Signature vote : votes) {
+                enc.writeBytes(vote.toBytes());
+            }
 
-        enc.writeInt(view);
-        enc.writeInt(votes.size());
-        for (Signature vote : votes) {
-            enc.writeBytes(vote.toBytes());
+            b = encodedVotes = enc.toBytes();
         }
-
-        return enc.toBytes();
+        return b;
     }
 
     /**
@@ -470,56 +584,108 @@ public class Block {
             throw new IllegalArgumentException("Block transactions can't be null");
         }
 
+        return fromComponents(h, new SimpleDecoder(t), r == null ? null : new SimpleDecoder(r),
+                v == null ? null : new SimpleDecoder(v));
+    }
+
+    private static Block fromComponents(byte[] h, SimpleDecoder t, SimpleDecoder r, SimpleDecoder v) {
         BlockHeader header = BlockHeader.fromBytes(h);
 
-        SimpleDecoder dec = new SimpleDecoder(t);
+        // the sections are kept as received, so they are not serialized again, but
+        // only if they are canonical: padded input is re-encoded rather than stored
+        // or relayed
         List<Transaction> transactions = new ArrayList<>();
-        int n = dec.readInt();
+        List<Integer> transactionIndices = new ArrayList<>();
+        int start = t.getReadIndex();
+        int n = t.readInt();
+        boolean canonical = true;
         for (int i = 0; i < n; i++) {
-            transactions.add(Transaction.fromBytes(dec.readBytes()));
+            transactionIndices.add(t.getReadIndex() - start);
+            byte[] bytes = t.readBytes();
+            Transaction tx = Transaction.fromBytes(bytes);
+            // a transaction keeps its input only if it is canonical
+            canonical &= tx.toBytes() == bytes;
+            transactions.add(tx);
         }
+        Pair<byte[], List<Integer>> encodedTransactions = canonical && t.isCanonical()
+                ? Pair.of(t.toBytes(), transactionIndices)
+                : null;
 
+        // checking results would cost a serialization, so only an empty section is
+        // kept; results are replaced on import anyway
         List<TransactionResult> results = new ArrayList<>();
+        Pair<byte[], List<Integer>> encodedResults = null;
         if (r != null) {
-            dec = new SimpleDecoder(r);
-            n = dec.readInt();
+            n = r.readInt();
             for (int i = 0; i < n; i++) {
-                results.add(TransactionResult.fromBytes(dec.readBytes()));
+                results.add(TransactionResult.fromBytes(r.readBytes()));
+            }
+            if (n == 0 && r.isCanonical()) {
+                encodedResults = Pair.of(r.toBytes(), new ArrayList<>());
             }
         }
 
         int view = 0;
         List<Signature> votes = new ArrayList<>();
+        byte[] encodedVotes = null;
         if (v != null) {
-            dec = new SimpleDecoder(v);
-            view = dec.readInt();
-            n = dec.readInt();
+            view = v.readInt();
+            n = v.readInt();
+            canonical = true;
             for (int i = 0; i < n; i++) {
-                votes.add(Signature.fromBytes(dec.readBytes()));
+                byte[] bytes = v.readBytes();
+                canonical &= bytes.length == Signature.LENGTH;
+                votes.add(Signature.fromBytes(bytes));
+            }
+            if (canonical && v.isCanonical()) {
+                encodedVotes = v.toBytes();
             }
         }
 
-        return new Block(header, transactions, results, view, votes);
+        Block block = new Block(header, transactions, results, view, votes);
+        block.encodedTransactions = encodedTransactions;
+        block.encodedResults = encodedResults;
+        block.encodedVotes = encodedVotes;
+        return block;
     }
 
+    /**
+     * Serializes the block. The returned array is shared and must not be
+     * modified.
+     *
+     * @return
+     */
     public byte[] toBytes() {
-        SimpleEncoder enc = new SimpleEncoder();
-        enc.writeBytes(getEncodedHeader());
-        enc.writeBytes(getEncodedTransactions());
-        enc.writeBytes(getEncodedResults());
-        enc.writeBytes(getEncodedVotes());
-
-        return enc.toBytes();
+        byte[] b = encoded;
+        if (b == null) {
+            SimpleEncoder enc = new SimpleEncoder();
+            enc.writeBytes(getEncodedHeader());
+            enc.writeBytes(getEncodedTransactions());
+            enc.writeBytes(getEncodedResults());
+            enc.writeBytes(getEncodedVotes());
+
+            b = encoded = enc.toBytes();
+        }
+        return b;
     }
 
     public static Block fromBytes(byte[] bytes) {
+        // the sections are decoded in place, rather than copied out
         SimpleDecoder dec = new SimpleDecoder(bytes);
         byte[] header = dec.readBytes();
-        byte[] transactions = dec.readBytes();
-        byte[] results = dec.readBytes();
-        byte[] votes = dec.readBytes();
+        SimpleDecoder transactions = dec.readDecoder();
+        SimpleDecoder results = dec.readDecoder();
+        SimpleDecoder votes = dec.readDecoder();
 
-        return Block.fromComponents(header, transactions, results, votes);
+        Block block = Block.fromComponents(header, transactions, results, votes);
+
+        // keep the bytes as received only if every part of them is canonical
+        if (dec.isCanonical() && block.getEncodedHeader() == header
+                && block.encodedTransactions != null && block.encodedResults != null
+                && block.encodedVotes != null) {
+            block.encoded = bytes;
+        }
+        return block;
     }
 
     /**
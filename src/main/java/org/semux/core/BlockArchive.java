@@ -0,0 +1,438 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.semux.Network;
+import org.semux.config.Config;
+import org.semux.db.Database;
+import org.semux.db.DatabaseFactory;
+import org.semux.db.DatabaseName;
+import org.semux.util.Bytes;
+import org.semux.util.SimpleDecoder;
+import org.semux.util.SimpleEncoder;
+import org.semux.util.TimeUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only archive of raw blocks, which allows a node to be provisioned
+ * from a local file rather than syncing every block over the network.
+ *
+ * <pre>
+ * archive structure:
+ *
+ * [magic, version, network_id]
+ * [record_length, block_number, block_header, block_transactions, block_results, block_votes]
+ * ...
+ * </pre>
+ *
+ * Blocks are stored in the same encoding as in the block DB, so exporting is a
+ * sequential copy; importing decodes and verifies blocks on a worker pool while
+ * executing them in order on the calling thread.
+ */
+public class BlockArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlockArchive.class);
+
+    protected static final byte[] MAGIC = Bytes.of("SEMUXARC");
+    protected static final int VERSION = 1;
+
+    // upper bound of a single record, to fail fast on a corrupted file
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+
+    // the number of blocks being decoded and verified ahead of execution
+    private static final int LOAD_WINDOW = 1024;
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private BlockArchive() {
+    }
+
+    /**
+     * Exports blocks from the block DB to an archive file. If the file exists,
+     * blocks are appended to it, starting from the block after the last one in
+     * the archive.
+     *
+     * @param config
+     * @param dbFactory
+     * @param file
+     * @param from
+     *            the first block to export (inclusive)
+     * @param to
+     *            the last block to export (inclusive)
+     * @return the number of exported blocks
+     * @throws IOException
+     */
+    public static long exportBlocks(Config config, DatabaseFactory dbFactory, File file, long from, long to)
+            throws IOException {
+        Instant begin = Instant.now();
+        Database blockDB = dbFactory.getDB(DatabaseName.BLOCK);
+
+        long exported = 0;
+        try (Writer writer = new Writer(file, config.network())) {
+            long start = Math.max(1, from);
+            if (writer.getLastNumber() >= 0) {
+                if (start > writer.getLastNumber() + 1) {
+                    throw new IOException("The archive ends at block #" + writer.getLastNumber()
+                            + ", can not append block #" + start);
+                }
+                start = writer.getLastNumber() + 1;
+            }
+
+            for (long i = start; i <= to; i++) {
+                byte[] header = blockDB.get(Bytes.merge(BlockchainImpl.TYPE_BLOCK_HEADER_BY_NUMBER, Bytes.of(i)));
+                if (header == null) {
+                    break;
+                }
+                byte[] transactions = blockDB
+                        .get(Bytes.merge(BlockchainImpl.TYPE_BLOCK_TRANSACTIONS_BY_NUMBER, Bytes.of(i)));
+                byte[] results = blockDB.get(Bytes.merge(BlockchainImpl.TYPE_BLOCK_RESULTS_BY_NUMBER, Bytes.of(i)));
+                byte[] votes = blockDB.get(Bytes.merge(BlockchainImpl.TYPE_BLOCK_VOTES_BY_NUMBER, Bytes.of(i)));
+
+                writer.write(new Entry(i, header, transactions, results, votes));
+                exported++;
+
+                if (i % 1000 == 0) {
+                    logger.info("Exported block #{}", i);
+                }
+            }
+        }
+
+        logger.info("Blocks exported: file = {}, exported = {}, took = {}", file, exported,
+                TimeUtil.formatDuration(Duration.between(begin, Instant.now())));
+        return exported;
+    }
+
+    /**
+     * Imports the blocks in an archive file into the blockchain. Blocks which are
+     * already in the chain are skipped.
+     *
+     * @param config
+     * @param dbFactory
+     * @param file
+     * @return the number of imported blocks
+     * @throws IOException
+     */
+    public static long importBlocks(Config config, DatabaseFactory dbFactory, File file) throws IOException {
+        return importBlocks(config, new BlockchainImpl(config, dbFactory), file);
+    }
+
+    /**
+     * Imports the blocks in an archive file into the given blockchain.
+     * <p>
+     * Decoding and the stateless checks, including the transaction and vote
+     * signatures, run on a worker pool for a window of blocks ahead of the one
+     * being executed, so that execution, which has to be sequential, is rarely
+     * waiting for them.
+     *
+     * @param config
+     * @param chain
+     * @param file
+     * @return the number of imported blocks
+     * @throws IOException
+     *             if the archive can't be read, or a block in it is invalid; the
+     *             blocks before it stay imported
+     */
+    public static long importBlocks(Config config, Blockchain chain, File file) throws IOException {
+        Instant begin = Instant.now();
+        Network network = config.network();
+
+        ExecutorService loader = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                new ThreadFactory() {
+                    private final AtomicInteger cnt = new AtomicInteger(0);
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        return new Thread(r, "archive-loader-" + cnt.getAndIncrement());
+                    }
+                });
+
+        long imported = 0;
+        String error = null;
+        try (Reader reader = new Reader(file)) {
+            if (reader.getNetwork() != network) {
+                throw new IOException("The archive is for network " + reader.getNetwork() + ", not " + network);
+            }
+
+            Deque<Future<Block>> window = new ArrayDeque<>();
+            Entry entry;
+            while (error == null) {
+                // fill the window
+                while (window.size() < LOAD_WINDOW && (entry = reader.read()) != null) {
+                    if (entry.getNumber() <= chain.getLatestBlockNumber()) {
+                        continue;
+                    }
+                    Entry e = entry;
+                    window.add(loader.submit(() -> {
+                        Block block = e.toBlock();
+                        return block.preValidate(network) ? block : null;
+                    }));
+                }
+                if (window.isEmpty()) {
+                    break;
+                }
+
+                // execute the next block
+                Block block = window.poll().get();
+                if (block == null) {
+                    error = "Invalid block #" + (chain.getLatestBlockNumber() + 1) + " in the archive";
+                } else if (!chain.importBlock(block, true)) {
+                    error = "Failed to import block #" + block.getNumber();
+                } else {
+                    imported++;
+                    if (block.getNumber() % 1000 == 0) {
+                        logger.info("Imported block #{}", block.getNumber());
+                    }
+                }
+            }
+            window.forEach(f -> f.cancel(true));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "Interrupted";
+        } catch (ExecutionException e) {
+            logger.error("Failed to decode block from the archive", e.getCause());
+            error = "Failed to decode block #" + (chain.getLatestBlockNumber() + 1) + " from the archive";
+        } finally {
+            loader.shutdownNow();
+        }
+
+        logger.info("Blocks imported: file = {}, imported = {}, latest = {}, took = {}", file, imported,
+                chain.getLatestBlockNumber(), TimeUtil.formatDuration(Duration.between(begin, Instant.now())));
+        if (error != null) {
+            throw new IOException(error + ", stopped importing");
+        }
+        return imported;
+    }
+
+    /**
+     * A block in the archive, in its database encoding.
+     */
+    public static class Entry {
+        private final long number;
+        private final byte[] header;
+        private final byte[] transactions;
+        private final byte[] results;
+        private final byte[] votes;
+
+        public Entry(long number, byte[] header, byte[] transactions, byte[] results, byte[] votes) {
+            this.number = number;
+            this.header = header;
+            this.transactions = transactions;
+            this.results = results;
+            this.votes = votes;
+        }
+
+        public long getNumber() {
+            return number;
+        }
+
+        public byte[] getHeader() {
+            return header;
+        }
+
+        public byte[] getTransactions() {
+            return transactions;
+        }
+
+        public byte[] getResults() {
+            return results;
+        }
+
+        public byte[] getVotes() {
+            return votes;
+        }
+
+        public Block toBlock() {
+            return Block.fromComponents(header, transactions, results, votes);
+        }
+
+        protected byte[] toBytes() {
+            SimpleEncoder enc = new SimpleEncoder();
+            enc.writeLong(number);
+            enc.writeBytes(header);
+            enc.writeBytes(transactions);
+            enc.writeBytes(results);
+            enc.writeBytes(votes);
+            return enc.toBytes();
+        }
+
+        protected static Entry fromBytes(byte[] bytes) {
+            SimpleDecoder dec = new SimpleDecoder(bytes);
+            long number = dec.readLong();
+            byte[] header = dec.readBytes();
+            byte[] transactions = dec.readBytes();
+            byte[] results = dec.readBytes();
+            byte[] votes = dec.readBytes();
+            return new Entry(number, header, transactions, results, votes);
+        }
+    }
+
+    /**
+     * Sequential reader of an archive file.
+     */
+    public static class Reader implements Closeable {
+        private final DataInputStream in;
+        private final Network network;
+
+        private long offset;
+
+        public Reader(File file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+
+            try {
+                byte[] magic = new byte[MAGIC.length];
+                in.readFully(magic);
+                int version = in.readInt();
+                if (!Arrays.equals(magic, MAGIC) || version != VERSION) {
+                    throw new IOException("Unsupported archive file: " + file);
+                }
+                this.network = Network.of(in.readByte());
+                if (network == null) {
+                    throw new IOException("Unknown network in archive file: " + file);
+                }
+                this.offset = MAGIC.length + 4 + 1;
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        public Network getNetwork() {
+            return network;
+        }
+
+        /**
+         * Returns the file offset after the last complete record read.
+         *
+         * @return
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * Reads the next block.
+         *
+         * @return the next block, or null if the end of the archive is reached. An
+         *         incomplete record at the end, left by an interrupted export, is
+         *         treated as the end of the archive.
+         * @throws IOException
+         */
+        public Entry read() throws IOException {
+            try {
+                int length = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_SIZE) {
+                    throw new IOException("Corrupted archive record at offset " + offset);
+                }
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                offset += 4 + length;
+                return Entry.fromBytes(bytes);
+            } catch (EOFException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Appending writer of an archive file.
+     */
+    public static class Writer implements Closeable {
+        private final DataOutputStream out;
+
+        private long lastNumber = -1;
+
+        public Writer(File file, Network network) throws IOException {
+            if (file.exists() && file.length() > 0) {
+                long end;
+                try (Reader reader = new Reader(file)) {
+                    if (reader.getNetwork() != network) {
+                        throw new IOException("The archive is for network " + reader.getNetwork() + ", not " + network);
+                    }
+                    Entry entry;
+                    while ((entry = reader.read()) != null) {
+                        lastNumber = entry.getNumber();
+                    }
+                    end = reader.getOffset();
+                }
+
+                // drop any incomplete record
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                    raf.setLength(end);
+                }
+                this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true),
+                        BUFFER_SIZE));
+            } else {
+                this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+                out.write(MAGIC);
+                out.writeInt(VERSION);
+                out.writeByte(network.id());
+            }
+        }
+
+        /**
+         * Returns the number of the last block in the archive, or -1 if the archive
+         * is empty.
+         *
+         * @return
+         */
+        public long getLastNumber() {
+            return lastNumber;
+        }
+
+        /**
+         * Appends a block to the archive. Blocks have to be written in order.
+         *
+         * @param entry
+         * @throws IOException
+         */
+        public void write(Entry entry) throws IOException {
+            if (lastNumber >= 0 && entry.getNumber() != lastNumber + 1) {
+                throw new IOException("Blocks can only be appended sequentially: expected #" + (lastNumber + 1)
+                        + ", got #" + entry.getNumber());
+            }
+
+            byte[] bytes = entry.toBytes();
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            lastNumber = entry.getNumber();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
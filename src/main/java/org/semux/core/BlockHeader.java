@@ -39,6 +39,9 @@ public class BlockHeader {
 
     private final byte[] encoded;
 
+    // the serialized header, computed at most once
+    private volatile byte[] bytes;
+
     /**
      * Creates an instance of block header.
      *
@@ -155,11 +158,21 @@ public class BlockHeader {
         return new BlockHeaderData(data);
     }
 
+    /**
+     * Serializes the block header. The returned array is shared and must not be
+     * modified.
+     *
+     * @return
+     */
     public byte[] toBytes() {
-        SimpleEncoder enc = new SimpleEncoder();
-        enc.writeBytes(hash);
-        enc.writeBytes(encoded);
-        return enc.toBytes();
+        byte[] b = bytes;
+        if (b == null) {
+            SimpleEncoder enc = new SimpleEncoder();
+            enc.writeBytes(hash);
+            enc.writeBytes(encoded);
+            b = bytes = enc.toBytes();
+        }
+        return b;
     }
 
     public static BlockHeader fromBytes(byte[] bytes) {
@@ -167,7 +180,12 @@ public class BlockHeader {
         byte[] hash = dec.readBytes();
         byte[] encoded = dec.readBytes();
 
-        return new BlockHeader(hash, encoded);
+        // non-canonical input, e.g. with trailing bytes, is re-encoded rather than kept
+        BlockHeader header = new BlockHeader(hash, encoded);
+        if (dec.isCanonical()) {
+            header.bytes = bytes;
+        }
+        return header;
     }
 
     @Override
@@ -12,6 +12,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.semux.core.BlockchainImpl.ValidatorStats;
 import org.semux.core.state.AccountState;
 import org.semux.core.state.DelegateState;
+import org.semux.core.state.StateSnapshot;
 import org.semux.vm.client.SemuxInternalTransaction;
 
 public interface Blockchain {
@@ -60,6 +61,18 @@ public interface Blockchain {
      */
     Block getBlock(long number);
 
+    /**
+     * Returns the consecutive blocks in a range, reading the block database
+     * sequentially rather than block by block.
+     *
+     * @param from
+     *            the first block number, inclusive
+     * @param to
+     *            the last block number, exclusive
+     * @return the blocks in the range, which stop early at the latest block
+     */
+    List<Block> getBlocks(long from, long to);
+
     /**
      * Returns block by its hash.
      * 
@@ -249,6 +262,16 @@ public interface Blockchain {
      */
     ReentrantReadWriteLock getStateLock();
 
+    /**
+     * Takes a read-only snapshot of the state at the latest block, which is not
+     * affected by the blocks imported afterwards.<br>
+     * <br>
+     * NOTE: be sure to close the snapshot after use.
+     *
+     * @return
+     */
+    StateSnapshot snapshotState();
+
     /**
      * Imports a new block.
      *
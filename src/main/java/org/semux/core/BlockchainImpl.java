@@ -20,7 +20,6 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -35,8 +34,6 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.ethereum.vm.client.BlockStore;
 import org.semux.config.Config;
 import org.semux.config.Constants;
-import org.semux.consensus.Vote;
-import org.semux.consensus.VoteType;
 import org.semux.core.Genesis.Premine;
 import org.semux.core.event.BlockchainDatabaseUpgradingEvent;
 import org.semux.core.exception.BlockchainException;
@@ -45,8 +42,8 @@ import org.semux.core.state.AccountStateImpl;
 import org.semux.core.state.Delegate;
 import org.semux.core.state.DelegateState;
 import org.semux.core.state.DelegateStateImpl;
+import org.semux.core.state.StateSnapshot;
 import org.semux.crypto.Hex;
-import org.semux.crypto.Key;
 import org.semux.db.Database;
 import org.semux.db.DatabaseFactory;
 import org.semux.db.DatabaseName;
@@ -54,6 +51,7 @@ import org.semux.db.LeveldbDatabase;
 import org.semux.event.PubSubFactory;
 import org.semux.util.ByteArray;
 import org.semux.util.Bytes;
+import org.semux.util.ClosableIterator;
 import org.semux.util.SimpleDecoder;
 import org.semux.util.SimpleEncoder;
 import org.semux.util.TimeUtil;
@@ -127,6 +125,9 @@ public class BlockchainImpl implements Blockchain {
 
     private Database indexDB;
     private Database blockDB;
+    private Database accountDB;
+    private Database delegateDB;
+    private Database voteDB;
 
     private AccountState accountState;
     private DelegateState delegateState;
@@ -154,9 +155,12 @@ public class BlockchainImpl implements Blockchain {
         this.indexDB = dbFactory.getDB(DatabaseName.INDEX);
         this.blockDB = dbFactory.getDB(DatabaseName.BLOCK);
 
-        this.accountState = new AccountStateImpl(dbFactory.getDB(DatabaseName.ACCOUNT));
-        this.delegateState = new DelegateStateImpl(this, dbFactory.getDB(DatabaseName.DELEGATE),
-                dbFactory.getDB(DatabaseName.VOTE));
+        this.accountDB = dbFactory.getDB(DatabaseName.ACCOUNT);
+        this.delegateDB = dbFactory.getDB(DatabaseName.DELEGATE);
+        this.voteDB = dbFactory.getDB(DatabaseName.VOTE);
+
+        this.accountState = new AccountStateImpl(accountDB);
+        this.delegateState = new DelegateStateImpl(this, delegateDB, voteDB);
 
         // checks if the database needs to be initialized
         byte[] number = indexDB.get(Bytes.of(TYPE_LATEST_BLOCK_NUMBER));
@@ -229,6 +233,28 @@ public class BlockchainImpl implements Blockchain {
         return getBlock(blockDB, number, false);
     }
 
+    @Override
+    public List<Block> getBlocks(long from, long to) {
+        List<Block> blocks = new ArrayList<>();
+        if (from < 0 || to <= from) {
+            return blocks;
+        }
+
+        // each block component is stored in a contiguous key range, so one
+        // sequential scan per component replaces four point lookups per block
+        List<byte[]> headers = scanBlockComponents(blockDB, TYPE_BLOCK_HEADER_BY_NUMBER, from, to);
+        long end = from + headers.size();
+        List<byte[]> transactions = scanBlockComponents(blockDB, TYPE_BLOCK_TRANSACTIONS_BY_NUMBER, from, end);
+        List<byte[]> results = scanBlockComponents(blockDB, TYPE_BLOCK_RESULTS_BY_NUMBER, from, end);
+        List<byte[]> votes = scanBlockComponents(blockDB, TYPE_BLOCK_VOTES_BY_NUMBER, from, end);
+
+        int n = Math.min(Math.min(transactions.size(), results.size()), votes.size());
+        for (int i = 0; i < n; i++) {
+            blocks.add(Block.fromComponents(headers.get(i), transactions.get(i), results.get(i), votes.get(i)));
+        }
+        return blocks;
+    }
+
     @Override
     public Block getBlock(byte[] hash) {
         long number = getBlockNumber(hash);
@@ -355,11 +381,15 @@ public class BlockchainImpl implements Blockchain {
             throw new BlockchainException("Blocks can only be added sequentially");
         }
 
-        // [1] update block
-        blockDB.put(Bytes.merge(TYPE_BLOCK_HEADER_BY_NUMBER, Bytes.of(number)), block.getEncodedHeader());
-        blockDB.put(Bytes.merge(TYPE_BLOCK_TRANSACTIONS_BY_NUMBER, Bytes.of(number)), block.getEncodedTransactions());
-        blockDB.put(Bytes.merge(TYPE_BLOCK_RESULTS_BY_NUMBER, Bytes.of(number)), block.getEncodedResults());
-        blockDB.put(Bytes.merge(TYPE_BLOCK_VOTES_BY_NUMBER, Bytes.of(number)), block.getEncodedVotes());
+        // [1] update block, in a single write batch
+        List<Pair<byte[], byte[]>> blockBatch = new ArrayList<>();
+        blockBatch.add(Pair.of(Bytes.merge(TYPE_BLOCK_HEADER_BY_NUMBER, Bytes.of(number)), block.getEncodedHeader()));
+        blockBatch.add(Pair.of(Bytes.merge(TYPE_BLOCK_TRANSACTIONS_BY_NUMBER, Bytes.of(number)),
+                block.getEncodedTransactions()));
+        blockBatch.add(Pair.of(Bytes.merge(TYPE_BLOCK_RESULTS_BY_NUMBER, Bytes.of(number)),
+                block.getEncodedResults()));
+        blockBatch.add(Pair.of(Bytes.merge(TYPE_BLOCK_VOTES_BY_NUMBER, Bytes.of(number)), block.getEncodedVotes()));
+        blockDB.updateBatch(blockBatch);
 
         indexDB.put(Bytes.merge(TYPE_BLOCK_NUMBER_BY_HASH, hash), Bytes.of(number));
 
@@ -756,6 +786,25 @@ public class BlockchainImpl implements Blockchain {
         return stateLock;
     }
 
+    @Override
+    public StateSnapshot snapshotState() {
+        // the state is flushed to disk and the block added under the write lock,
+        // so the databases hold exactly the latest block under the read lock
+        ReentrantReadWriteLock.ReadLock readLock = stateLock.readLock();
+        readLock.lock();
+        try {
+            Database accountSnapshot = accountDB.snapshot();
+            Database delegateSnapshot = delegateDB.snapshot();
+            Database voteSnapshot = voteDB.snapshot();
+
+            return new StateSnapshot(getLatestBlock(), new AccountStateImpl(accountSnapshot),
+                    new DelegateStateImpl(this, delegateSnapshot, voteSnapshot),
+                    Arrays.asList(accountSnapshot, delegateSnapshot, voteSnapshot));
+        } finally {
+            readLock.unlock();
+        }
+    }
+
     @Override
     public boolean importBlock(Block block, boolean validateVotes) {
         AccountState asTrack = this.getAccountState().track();
@@ -794,8 +843,8 @@ public class BlockchainImpl implements Blockchain {
                 return false;
             }
 
-            // [2] check transactions
-            if (!block.validateTransactions(header, transactions, config.network())) {
+            // [2] check transactions, unless they have been verified in advance
+            if (!block.isPreValidated() && !block.validateTransactions(header, transactions, config.network())) {
                 logger.error("Invalid transactions");
                 return false;
             }
@@ -837,31 +886,23 @@ public class BlockchainImpl implements Blockchain {
         if (validatorList.size() > maxValidators) {
             validatorList = validatorList.subList(0, maxValidators);
         }
-        Set<String> validators = new HashSet<>(validatorList);
+        Set<ByteArray> validators = new HashSet<>();
+        for (String v : validatorList) {
+            validators.add(ByteArray.of(Hex.decode(v)));
+        }
 
         int twoThirds = (int) Math.ceil(validators.size() * 2.0 / 3.0);
 
-        Vote vote = new Vote(VoteType.PRECOMMIT, Vote.VALUE_APPROVE, block.getNumber(), block.getView(),
-                block.getHash());
-        byte[] encoded = vote.getEncoded();
-
         // check validity of votes
-        if (block.getVotes().stream().anyMatch(sig -> !validators.contains(Hex.encode(sig.getAddress())))) {
+        if (block.getVotes().stream().anyMatch(sig -> !validators.contains(ByteArray.of(sig.getAddress())))) {
             logger.warn("Block votes are invalid");
             return false;
         }
 
-        if (!Key.isVerifyBatchSupported()) {
-            if (!block.getVotes().stream()
-                    .allMatch(sig -> Key.verify(encoded, sig))) {
-                logger.warn("Block votes are invalid");
-                return false;
-            }
-        } else {
-            if (!Key.verifyBatch(Collections.nCopies(block.getVotes().size(), encoded), block.getVotes())) {
-                logger.warn("Block votes are invalid");
-                return false;
-            }
+        // signatures are skipped if verified in advance
+        if (!block.isPreValidated() && !block.validateVoteSignatures()) {
+            logger.warn("Block votes are invalid");
+            return false;
         }
 
         // at least two thirds voters
@@ -1024,6 +1065,30 @@ public class BlockchainImpl implements Blockchain {
         return (header == null) ? null : Block.fromComponents(header, transactions, results, votes);
     }
 
+    /**
+     * Reads a block component of consecutive blocks, stopping at the first gap.
+     */
+    private static List<byte[]> scanBlockComponents(Database blockDB, byte type, long from, long to) {
+        List<byte[]> values = new ArrayList<>();
+
+        ClosableIterator<Entry<byte[], byte[]>> itr = blockDB.iterator(Bytes.merge(type, Bytes.of(from)));
+        try {
+            long number = from;
+            while (number < to && itr.hasNext()) {
+                Entry<byte[], byte[]> entry = itr.next();
+                if (!Arrays.equals(entry.getKey(), Bytes.merge(type, Bytes.of(number)))) {
+                    break;
+                }
+                values.add(entry.getValue());
+                number++;
+            }
+        } finally {
+            itr.close();
+        }
+
+        return values;
+    }
+
     private static byte[] getLatestBlockNumber(Database indexDB) {
         return indexDB.get(Bytes.of(TYPE_LATEST_BLOCK_NUMBER));
     }
@@ -21,12 +21,17 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.ethereum.vm.client.BlockStore;
 import org.semux.Kernel;
+import org.semux.core.event.PendingTransactionAddedEvent;
 import org.semux.core.state.AccountState;
 import org.semux.core.state.DelegateState;
+import org.semux.event.PubSubFactory;
+import org.semux.net.Capability;
 import org.semux.net.Channel;
 import org.semux.net.msg.p2p.TransactionMessage;
 import org.semux.util.ByteArray;
 import org.semux.util.Bytes;
+import org.semux.util.Histogram;
+import org.semux.util.MetricRegistry;
 import org.semux.util.TimeUtil;
 import org.semux.vm.client.SemuxBlock;
 import org.semux.vm.client.SemuxBlockStore;
@@ -67,6 +72,8 @@ public class PendingManager implements Runnable, BlockchainListener {
     private static final int VALID_TXS_LIMIT = 16 * 1024;
     private static final int LARGE_NONCE_TXS_LIMIT = 32 * 1024;
     private static final int PROCESSED_TXS_LIMIT = 128 * 1024;
+    private static final int RELAYED_TXS_LIMIT = 32 * 1024;
+    private static final long TX_REQUEST_TIMEOUT = TimeUnit.SECONDS.toMillis(5);
 
     private final Kernel kernel;
     private final BlockStore blockStore;
@@ -87,12 +94,22 @@ public class PendingManager implements Runnable, BlockchainListener {
     // Transactions that have been processed, including both valid and invalid ones
     private final Cache<ByteArray, Long> processedTxs = Caffeine.newBuilder().maximumSize(PROCESSED_TXS_LIMIT).build();
 
+    // Transactions that have been relayed to peers, and may be requested by hash
+    private final Cache<ByteArray, Transaction> relayedTxs = Caffeine.newBuilder().maximumSize(RELAYED_TXS_LIMIT)
+            .build();
+
+    // Transactions that have been requested from peers, but not yet received
+    private final Cache<ByteArray, Long> requestedTxs = Caffeine.newBuilder().maximumSize(QUEUE_SIZE_LIMIT)
+            .expireAfterWrite(TX_REQUEST_TIMEOUT, TimeUnit.MILLISECONDS).build();
+
     private final ScheduledExecutorService exec;
 
     private ScheduledFuture<?> validateFuture;
 
     private volatile boolean isRunning;
 
+    private final Histogram executionTime;
+
     /**
      * Creates a pending manager.
      */
@@ -105,6 +122,14 @@ public class PendingManager implements Runnable, BlockchainListener {
         this.dummyBlock = kernel.createEmptyBlock();
 
         this.exec = Executors.newSingleThreadScheduledExecutor(factory);
+
+        MetricRegistry metrics = kernel.getMetrics();
+        this.executionTime = metrics.histogram("semux_pending_tx_execution_us",
+                "Execution time of pending transactions in microseconds", MetricRegistry.MICROS_BOUNDS);
+        metrics.gauge("semux_pending_queue_size", "Transactions waiting for validation", queue::size);
+        metrics.gauge("semux_pending_valid_txs", "Validated transactions ready to be proposed", validTxs::size);
+        metrics.gauge("semux_pending_large_nonce_txs", "Transactions with a nonce ahead of the account's",
+                largeNonceTxs::estimatedSize);
     }
 
     /**
@@ -173,6 +198,46 @@ public class PendingManager implements Runnable, BlockchainListener {
         }
     }
 
+    /**
+     * Filters out the transactions that are already known to this node, or
+     * currently being requested from another peer. The returned hashes are marked
+     * as requested.
+     *
+     * @param hashes
+     *            the announced transaction hashes
+     * @return the hashes that should be requested
+     */
+    public synchronized List<byte[]> requestUnknownTransactions(List<byte[]> hashes) {
+        List<byte[]> unknown = new ArrayList<>();
+
+        long now = TimeUtil.currentTimeMillis();
+        for (byte[] hash : hashes) {
+            ByteArray key = ByteArray.of(hash);
+            if (queue.containsKey(key)
+                    || processedTxs.getIfPresent(key) != null
+                    || requestedTxs.getIfPresent(key) != null
+                    || kernel.getBlockchain().hasTransaction(hash)) {
+                continue;
+            }
+
+            requestedTxs.put(key, now);
+            unknown.add(hash);
+        }
+
+        return unknown;
+    }
+
+    /**
+     * Returns a transaction that has been relayed by this node.
+     *
+     * @param hash
+     *            the transaction hash
+     * @return the transaction, or null if not found
+     */
+    public Transaction getRelayedTransaction(byte[] hash) {
+        return relayedTxs.getIfPresent(ByteArray.of(hash));
+    }
+
     /**
      * Adds a transaction to the pool and waits until it's done.
      *
@@ -354,9 +419,11 @@ public class PendingManager implements Runnable, BlockchainListener {
             // execute transactions
             AccountState as = pendingAS.track();
             DelegateState ds = pendingDS.track();
+            long t = System.nanoTime();
             TransactionResult result = new TransactionExecutor(kernel.getConfig(), blockStore,
                     kernel.getBlockchain().isVMEnabled(), kernel.getBlockchain().isVotingPrecompiledUpgraded())
                             .execute(tx, as, ds, dummyBlock, 0);
+            executionTime.observe((System.nanoTime() - t) / 1_000);
 
             if (result.getCode().isAcceptable()) {
                 // commit state updates
@@ -373,6 +440,8 @@ public class PendingManager implements Runnable, BlockchainListener {
                 if (!isIncludedBefore) {
                     // if it is from myself, broadcast it to everyone
                     broadcastTransaction(tx, isFromThisNode);
+
+                    PubSubFactory.getDefault().publish(new PendingTransactionAddedEvent(tx));
                 }
             } else {
                 // exit immediately if invalid
@@ -396,6 +465,9 @@ public class PendingManager implements Runnable, BlockchainListener {
     private void broadcastTransaction(Transaction tx, boolean toAllPeers) {
         List<Channel> channels = kernel.getChannelManager().getActiveChannels();
 
+        // Skip the peers which already have this transaction
+        channels.removeIf(c -> c.isTransactionKnown(tx.getHash()));
+
         // If not to all peers, randomly pick n channels
         int n = kernel.getConfig().netRelayRedundancy();
         if (!toAllPeers && channels.size() > n) {
@@ -403,10 +475,23 @@ public class PendingManager implements Runnable, BlockchainListener {
             channels = channels.subList(0, n);
         }
 
-        // Send the message
-        TransactionMessage msg = new TransactionMessage(tx);
+        // Keep the transaction available for peers requesting it by hash
+        relayedTxs.put(ByteArray.of(tx.getHash()), tx);
+
+        // Announce the hash to TX_GOSSIP peers, and send the body to the others
+        TransactionMessage msg = null;
         for (Channel c : channels) {
-            if (c.isActive()) {
+            if (!c.isActive()) {
+                continue;
+            }
+
+            if (c.isSupported(Capability.TX_GOSSIP)) {
+                c.announceTransaction(tx.getHash());
+            } else {
+                if (msg == null) {
+                    msg = new TransactionMessage(tx);
+                }
+                c.markTransactionKnown(tx.getHash());
                 c.getMessageQueue().sendMessage(msg);
             }
         }
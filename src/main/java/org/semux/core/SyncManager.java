@@ -7,6 +7,7 @@
 package org.semux.core;
 
 import java.time.Duration;
+import java.util.List;
 
 import org.semux.net.Channel;
 import org.semux.net.msg.Message;
@@ -74,5 +75,56 @@ public interface SyncManager {
          * @return the estimated time to complete this sync process. 30 days at maximum.
          */
         Duration getSyncEstimation();
+
+        /**
+         * @return the download stats of the peers involved in this sync process.
+         */
+        List<? extends PeerStats> getPeerStats();
+    }
+
+    /**
+     * This interface represents the download stats of a peer
+     */
+    interface PeerStats {
+
+        /**
+         * @return the peer id.
+         */
+        String getPeerId();
+
+        /**
+         * @return the number of blocks requested from this peer.
+         */
+        long getBlocksRequested();
+
+        /**
+         * @return the number of blocks received from this peer.
+         */
+        long getBlocksReceived();
+
+        /**
+         * @return the number of block requests that expired.
+         */
+        long getTimeouts();
+
+        /**
+         * @return the ratio of expired block requests, in [0, 1].
+         */
+        double getTimeoutRate();
+
+        /**
+         * @return the average response latency, in milliseconds.
+         */
+        double getLatency();
+
+        /**
+         * @return the average download rate, in bytes per second.
+         */
+        double getBytesPerSecond();
+
+        /**
+         * @return the average download rate, in blocks per second.
+         */
+        double getBlocksPerSecond();
     }
 }
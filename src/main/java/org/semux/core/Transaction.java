@@ -45,6 +45,9 @@ public class Transaction {
 
     private Signature signature;
 
+    // the serialized transaction, computed at most once per signature
+    private volatile byte[] bytes;
+
     private final long gas;
     private final Amount gasPrice; // nanoSEM per gas
 
@@ -137,6 +140,7 @@ public class Transaction {
      */
     public Transaction sign(Key key) {
         this.signature = key.sign(this.hash);
+        this.bytes = null;
         return this;
     }
 
@@ -330,17 +334,21 @@ public class Transaction {
     }
 
     /**
-     * Converts into a byte array.
+     * Converts into a byte array. The returned array is shared and must not be
+     * modified.
      *
      * @return
      */
     public byte[] toBytes() {
-        SimpleEncoder enc = new SimpleEncoder();
-        enc.writeBytes(hash);
-        enc.writeBytes(encoded);
-        enc.writeBytes(signature.toBytes());
-
-        return enc.toBytes();
+        byte[] b = bytes;
+        if (b == null) {
+            SimpleEncoder enc = new SimpleEncoder();
+            enc.writeBytes(hash);
+            enc.writeBytes(encoded);
+            enc.writeBytes(signature.toBytes());
+            b = bytes = enc.toBytes();
+        }
+        return b;
     }
 
     /**
@@ -355,7 +363,12 @@ public class Transaction {
         byte[] encoded = dec.readBytes();
         byte[] signature = dec.readBytes();
 
-        return new Transaction(hash, encoded, signature);
+        // non-canonical input, e.g. with trailing bytes, is re-encoded rather than kept
+        Transaction tx = new Transaction(hash, encoded, signature);
+        if (dec.isCanonical()) {
+            tx.bytes = bytes;
+        }
+        return tx;
     }
 
     /**
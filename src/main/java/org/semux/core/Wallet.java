@@ -10,9 +10,14 @@ import static org.semux.util.FileUtil.POSIX_SECURED_PERMISSIONS;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.security.spec.InvalidKeySpecException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -22,6 +27,9 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.bouncycastle.crypto.generators.BCrypt;
 import org.semux.core.exception.WalletLockedException;
@@ -58,6 +66,16 @@ public class Wallet {
     private static final Bip44 BIP_44 = new Bip44();
     private static final int MAX_HD_WALLET_SCAN_AHEAD = 64;
 
+    // the journal is compacted into the wallet file once it outgrows both
+    private static final long MIN_JOURNAL_COMPACTION_SIZE = 64 * 1024;
+
+    // types of journal entries
+    private static final byte JOURNAL_ADD_ACCOUNT = 0;
+    private static final byte JOURNAL_REMOVE_ACCOUNT = 1;
+    private static final byte JOURNAL_SET_ALIAS = 2;
+    private static final byte JOURNAL_REMOVE_ALIAS = 3;
+    private static final byte JOURNAL_HD_INDEX = 4;
+
     // the BIP-44 path prefix for semux addresses
     public static final String PATH_PREFIX = "m/44'/7562605'/0'/0'";
     public static final String MNEMONIC_PASS_PHRASE = "";
@@ -68,6 +86,7 @@ public class Wallet {
     public static final CoinType COIN_TYPE = CoinType.SEMUX_SLIP10;
 
     private final File file;
+    private final WalletJournal journal;
     private final org.semux.Network network;
 
     private final Map<ByteArray, Key> accounts = Collections.synchronizedMap(new LinkedHashMap<>());
@@ -75,6 +94,14 @@ public class Wallet {
 
     private String password;
 
+    // the salt and key of the wallet file, derived once per unlock or rewrite
+    private byte[] salt;
+    private byte[] key;
+
+    // updates since the last flush, and whether the wallet file must be rewritten
+    private final List<byte[]> pendingUpdates = new ArrayList<>();
+    private boolean rewriteRequired = true;
+
     // hd wallet key
     private String mnemonicPhrase = "";
     private int nextAccountIndex = 0;
@@ -87,6 +114,7 @@ public class Wallet {
      */
     public Wallet(File file, org.semux.Network network) {
         this.file = file;
+        this.journal = new WalletJournal(file);
         this.network = network;
     }
 
@@ -104,6 +132,7 @@ public class Wallet {
      */
     public void delete() throws IOException {
         Files.delete(file.toPath());
+        journal.reset();
     }
 
     /**
@@ -129,8 +158,10 @@ public class Wallet {
         }
 
         try {
-            byte[] key;
-            byte[] salt;
+            byte[] key = null;
+            byte[] salt = null;
+            boolean outdated = true;
+            List<byte[]> updates = Collections.emptyList();
 
             if (exists()) {
                 SimpleDecoder dec = new SimpleDecoder(IOUtil.readFile(file));
@@ -170,16 +201,33 @@ public class Wallet {
                     throw new CryptoException("Unknown wallet version.");
                 }
 
+                // replay the updates made since the wallet file was written
+                if (salt != null) {
+                    updates = journal.read(salt, key);
+                }
+                outdated = version != VERSION;
+
                 synchronized (accounts) {
                     accounts.clear();
                     for (Key account : newAccounts) {
                         accounts.put(ByteArray.of(account.toAddress()), account);
                     }
+                    synchronized (aliases) {
+                        aliases.clear();
+                        aliases.putAll(newAliases);
+                    }
+                    for (byte[] update : updates) {
+                        applyUpdate(update);
+                    }
                 }
-                synchronized (aliases) {
-                    aliases.clear();
-                    aliases.putAll(newAliases);
-                }
+            }
+
+            synchronized (pendingUpdates) {
+                pendingUpdates.clear();
+                // new and outdated wallet files are rewritten on the next flush
+                this.rewriteRequired = outdated;
+                this.salt = salt;
+                this.key = key;
             }
             this.password = password;
             return true;
@@ -204,19 +252,30 @@ public class Wallet {
      */
     protected LinkedHashSet<Key> readAccounts(byte[] key, SimpleDecoder dec, boolean vlq, int version)
             throws InvalidKeySpecException {
-        LinkedHashSet<Key> keys = new LinkedHashSet<>();
         int total = dec.readInt(); // size
 
+        byte[][] ivs = new byte[total][];
+        byte[][] encryptedKeys = new byte[total][];
         for (int i = 0; i < total; i++) {
-            byte[] iv = dec.readBytes(vlq);
+            ivs[i] = dec.readBytes(vlq);
             if (version < 3) {
                 dec.readBytes(vlq); // public key
             }
-            byte[] privateKey = Aes.decrypt(dec.readBytes(vlq), key, iv);
-            Key addressKey = new Key(privateKey);
-            keys.add(new Key(privateKey, addressKey.getPublicKey()));
+            encryptedKeys[i] = dec.readBytes(vlq);
         }
-        return keys;
+
+        // decrypting and deriving the public keys dominate the unlock of a large
+        // wallet, and are independent of each other
+        Key[] keys = new Key[total];
+        IntStream.range(0, total).parallel().forEach(i -> {
+            try {
+                keys[i] = new Key(Aes.decrypt(encryptedKeys[i], key, ivs[i]));
+            } catch (InvalidKeySpecException e) {
+                throw new CryptoException(e);
+            }
+        });
+
+        return new LinkedHashSet<>(Arrays.asList(keys));
     }
 
     /**
@@ -322,13 +381,90 @@ public class Wallet {
     }
 
     /**
-     * Locks the wallet.
+     * Applies an update read from the journal.
+     *
+     * @param update
+     * @throws InvalidKeySpecException
+     */
+    protected void applyUpdate(byte[] update) throws InvalidKeySpecException {
+        SimpleDecoder dec = new SimpleDecoder(update);
+        byte type = dec.readByte();
+        switch (type) {
+        case JOURNAL_ADD_ACCOUNT:
+            Key account = new Key(dec.readBytes());
+            accounts.put(ByteArray.of(account.toAddress()), account);
+            break;
+        case JOURNAL_REMOVE_ACCOUNT:
+            accounts.remove(ByteArray.of(dec.readBytes()));
+            break;
+        case JOURNAL_SET_ALIAS:
+            aliases.put(ByteArray.of(dec.readBytes()), dec.readString());
+            break;
+        case JOURNAL_REMOVE_ALIAS:
+            aliases.remove(ByteArray.of(dec.readBytes()));
+            break;
+        case JOURNAL_HD_INDEX:
+            nextAccountIndex = dec.readInt();
+            break;
+        default:
+            throw new CryptoException("Unknown wallet journal entry: " + type);
+        }
+    }
+
+    /**
+     * Records an update to be appended to the journal on the next flush.
+     *
+     * @param type
+     * @param address
+     * @param value
+     *            the private key, the alias or the HD index, depending on the type
+     */
+    private void recordUpdate(byte type, byte[] address, Object value) {
+        SimpleEncoder enc = new SimpleEncoder();
+        enc.writeByte(type);
+        if (address != null) {
+            enc.writeBytes(address);
+        }
+        if (value instanceof byte[]) {
+            enc.writeBytes((byte[]) value);
+        } else if (value instanceof String) {
+            enc.writeString((String) value);
+        } else if (value instanceof Integer) {
+            enc.writeInt((Integer) value);
+        }
+
+        synchronized (pendingUpdates) {
+            pendingUpdates.add(enc.toBytes());
+        }
+    }
+
+    /**
+     * Makes the next flush rewrite the wallet file.
+     */
+    private void requireRewrite() {
+        synchronized (pendingUpdates) {
+            rewriteRequired = true;
+        }
+    }
+
+    /**
+     * Locks the wallet. The journal, if any, is folded into the wallet file
+     * first, see {@link #compactJournal()}.
      */
     public void lock() {
+        if (!isLocked() && !compactJournal()) {
+            logger.error("Failed to fold the journal into the wallet file");
+        }
+
         password = null;
 
         accounts.clear();
         aliases.clear();
+        synchronized (pendingUpdates) {
+            pendingUpdates.clear();
+            salt = null;
+            key = null;
+        }
     }
 
     /**
@@ -397,6 +533,7 @@ public class Wallet {
     public void setAccounts(List<Key> list) throws WalletLockedException {
         requireUnlocked();
 
+        requireRewrite();
         accounts.clear();
         for (Key key : list) {
             addAccount(key);
@@ -455,6 +592,7 @@ public class Wallet {
             }
 
             accounts.put(address, newKey);
+            recordUpdate(JOURNAL_ADD_ACCOUNT, null, newKey.getPrivateKey());
             return true;
         }
     }
@@ -522,6 +660,9 @@ public class Wallet {
         synchronized (accounts) {
 
             boolean removed = accounts.remove(ByteArray.of(address)) != null;
+            if (removed) {
+                recordUpdate(JOURNAL_REMOVE_ACCOUNT, address, null);
+            }
             if (removed && isHdWalletInitialized()) {
                 // remove the alias for the account
                 removeAddressAlias(address);
@@ -547,10 +688,16 @@ public class Wallet {
         }
 
         this.password = newPassword;
+        requireRewrite();
     }
 
     /**
      * Flushes this wallet into the disk.
+     * <p>
+     * Updates are appended to the journal when possible, which is cheap. The
+     * wallet file is rewritten, folding the journal into it, when the password or
+     * the HD seed has changed, or when the journal has grown larger than the
+     * wallet file.
      *
      * @return true if the wallet has been flushed into disk successfully, otherwise
      *         false
@@ -559,39 +706,111 @@ public class Wallet {
     public boolean flush() throws WalletLockedException {
         requireUnlocked();
 
-        try {
-            SimpleEncoder enc = new SimpleEncoder();
-            enc.writeInt(VERSION);
+        synchronized (accounts) {
+            synchronized (pendingUpdates) {
+                if (!rewriteRequired
+                        && journal.length() <= Math.max(MIN_JOURNAL_COMPACTION_SIZE, file.length())) {
+                    if (pendingUpdates.isEmpty()) {
+                        return true;
+                    }
 
-            byte[] salt = Bytes.random(SALT_LENGTH);
-            enc.writeBytes(salt);
+                    try {
+                        journal.append(salt, key, pendingUpdates);
+                        pendingUpdates.clear();
+                        return true;
+                    } catch (CryptoException | IOException e) {
+                        logger.warn("Failed to append to the wallet journal, rewriting the wallet", e);
+                    }
+                }
 
-            byte[] key = BCrypt.generate(Bytes.of(password), salt, BCRYPT_COST);
+                return compact();
+            }
+        }
+    }
 
-            writeAccounts(key, enc);
-            writeAddressAliases(key, enc);
-            writeHdSeed(key, enc);
+    /**
+     * Rewrites the wallet file if it doesn't hold the whole wallet, i.e. if there
+     * are updates in the journal or not flushed yet. Afterwards, the wallet file
+     * alone holds all the keys, e.g. for backups.
+     *
+     * @return true if the wallet file holds the whole wallet, otherwise false
+     * @throws WalletLockedException
+     */
+    public boolean compactJournal() throws WalletLockedException {
+        requireUnlocked();
 
-            if (!file.getParentFile().exists() && !file.getParentFile().mkdirs()) {
-                logger.error("Failed to create the directory for wallet");
-                return false;
+        synchronized (accounts) {
+            synchronized (pendingUpdates) {
+                if (!rewriteRequired && pendingUpdates.isEmpty() && journal.length() == 0) {
+                    return true;
+                }
+                return compact();
             }
+        }
+    }
 
-            // set posix permissions
-            if (SystemUtil.isPosix() && !file.exists()) {
-                Files.createFile(file.toPath());
-                Files.setPosixFilePermissions(file.toPath(), POSIX_SECURED_PERMISSIONS);
-            }
+    /**
+     * Rewrites the wallet file, with a new salt, and folds the journal into it.
+     *
+     * @return true if the wallet has been written to disk successfully, otherwise
+     *         false
+     * @throws WalletLockedException
+     */
+    public boolean compact() throws WalletLockedException {
+        requireUnlocked();
 
-            IOUtil.writeToFile(enc.toBytes(), file);
-            return true;
-        } catch (CryptoException e) {
-            logger.error("Failed to encrypt the wallet");
-        } catch (IOException e) {
-            logger.error("Failed to write wallet to disk", e);
-        }
+        synchronized (accounts) {
+            synchronized (pendingUpdates) {
+                try {
+                    SimpleEncoder enc = new SimpleEncoder();
+                    enc.writeInt(VERSION);
 
-        return false;
+                    byte[] newSalt = Bytes.random(SALT_LENGTH);
+                    enc.writeBytes(newSalt);
+
+                    byte[] newKey = BCrypt.generate(Bytes.of(password), newSalt, BCRYPT_COST);
+
+                    writeAccounts(newKey, enc);
+                    writeAddressAliases(newKey, enc);
+                    writeHdSeed(newKey, enc);
+
+                    if (!file.getParentFile().exists() && !file.getParentFile().mkdirs()) {
+                        logger.error("Failed to create the directory for wallet");
+                        return false;
+                    }
+
+                    // write a temporary file, and replace the wallet file with it, so that a
+                    // crash never leaves a partial wallet behind. The journal belongs to the
+                    // old salt, and is ignored from now on.
+                    File tmp = new File(file.getPath() + ".tmp");
+                    Files.deleteIfExists(tmp.toPath());
+                    if (SystemUtil.isPosix()) {
+                        Files.createFile(tmp.toPath());
+                        Files.setPosixFilePermissions(tmp.toPath(), POSIX_SECURED_PERMISSIONS);
+                    }
+                    try (FileChannel ch = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE)) {
+                        ch.write(ByteBuffer.wrap(enc.toBytes()));
+                        ch.force(true);
+                    }
+                    Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                    journal.reset();
+
+                    salt = newSalt;
+                    key = newKey;
+                    pendingUpdates.clear();
+                    rewriteRequired = false;
+                    return true;
+                } catch (CryptoException e) {
+                    logger.error("Failed to encrypt the wallet");
+                } catch (IOException e) {
+                    logger.error("Failed to write wallet to disk", e);
+                }
+
+                return false;
+            }
+        }
     }
 
     public boolean isPosixPermissionSecured() throws IOException {
@@ -621,6 +840,7 @@ public class Wallet {
         requireUnlocked();
 
         aliases.put(ByteArray.of(address), name);
+        recordUpdate(JOURNAL_SET_ALIAS, address, name);
     }
 
     /**
@@ -632,7 +852,9 @@ public class Wallet {
     public void removeAddressAlias(byte[] address) throws WalletLockedException {
         requireUnlocked();
 
-        aliases.remove(ByteArray.of(address));
+        if (aliases.remove(ByteArray.of(address)) != null) {
+            recordUpdate(JOURNAL_REMOVE_ALIAS, address, null);
+        }
     }
 
     /**
@@ -716,6 +938,7 @@ public class Wallet {
     public void initializeHdWallet(String mnemonicPhrase) {
         this.mnemonicPhrase = mnemonicPhrase;
         this.nextAccountIndex = 0;
+        requireRewrite();
     }
 
     /**
@@ -748,6 +971,8 @@ public class Wallet {
 
             // put the accounts into
             accounts.put(address, key);
+            recordUpdate(JOURNAL_ADD_ACCOUNT, null, key.getPrivateKey());
+            recordUpdate(JOURNAL_HD_INDEX, null, nextAccountIndex);
 
             // set a default alias
             if (!aliases.containsKey(address)) {
@@ -775,30 +1000,42 @@ public class Wallet {
 
         int start = 0;
         int endIndex = start + MAX_HD_WALLET_SCAN_AHEAD;
+        int previousAccountIndex = nextAccountIndex;
         int found = 0;
-        for (int i = start; i < endIndex; i++) {
-            HdKeyPair childKey = BIP_44.getChildKeyPair(rootAddress, i);
-            Key key = Key.fromRawPrivateKey(childKey.getPrivateKey().getKeyData());
-            ByteArray address = ByteArray.of(key.toAddress());
-
-            boolean isUsedAccount = isUsedAccount(accountState, key.toAddress());
-
-            // if we find an account that has been used, we push forward our end search.
-            // an account exists if its in our wallet, has balance, or has made transactions
-            if (isUsedAccount || accounts.containsKey(address)) {
-                endIndex += MAX_HD_WALLET_SCAN_AHEAD;
-                if (addAccount(key)) {
-                    if (!aliases.containsKey(address)) {
-                        setAddressAlias(address.getData(), getAliasFromPath(childKey.getPath()));
+        // a few keys per worker at a time, so that memory use doesn't grow with the
+        // window, which is pushed forward by every used key found
+        int chunkSize = 4 * ForkJoinPool.getCommonPoolParallelism();
+        for (int batchStart = start; batchStart < endIndex;) {
+            // derive the keys and look up the accounts of the next chunk in parallel
+            int batchEnd = Math.min(endIndex, batchStart + chunkSize);
+            List<HdKeyCandidate> batch = IntStream.range(batchStart, batchEnd).parallel()
+                    .mapToObj(i -> new HdKeyCandidate(i, BIP_44.getChildKeyPair(rootAddress, i), accountState))
+                    .collect(Collectors.toList());
+            batchStart = batchEnd;
+
+            for (HdKeyCandidate candidate : batch) {
+                ByteArray address = ByteArray.of(candidate.key.toAddress());
+
+                // if we find an account that has been used, we push forward our end search.
+                // an account exists if its in our wallet, has balance, or has made transactions
+                if (candidate.isUsed || accounts.containsKey(address)) {
+                    endIndex += MAX_HD_WALLET_SCAN_AHEAD;
+                    if (addAccount(candidate.key)) {
+                        if (!aliases.containsKey(address)) {
+                            setAddressAlias(address.getData(), getAliasFromPath(candidate.childKey.getPath()));
+                        }
+                        found++;
+                    }
+                    if (candidate.index >= nextAccountIndex) {
+                        nextAccountIndex = candidate.index + 1;
                     }
-                    found++;
-                }
-                if (i >= nextAccountIndex) {
-                    nextAccountIndex = i + 1;
                 }
             }
         }
 
+        if (nextAccountIndex != previousAccountIndex) {
+            recordUpdate(JOURNAL_HD_INDEX, null, nextAccountIndex);
+        }
         return found;
     }
 
@@ -818,7 +1055,7 @@ public class Wallet {
         return path.replace(PATH_PREFIX, CliMessages.get("HdWalletAliasPrefix"));
     }
 
-    private boolean isUsedAccount(AccountState accountState, byte[] bytes) {
+    private static boolean isUsedAccount(AccountState accountState, byte[] bytes) {
         if (accountState == null) {
             return false;
         }
@@ -831,4 +1068,21 @@ public class Wallet {
             throw new IllegalArgumentException("HD Seed is not initialized");
         }
     }
+
+    /**
+     * A derived HD key, and whether its account has been used.
+     */
+    private static class HdKeyCandidate {
+        final int index;
+        final HdKeyPair childKey;
+        final Key key;
+        final boolean isUsed;
+
+        HdKeyCandidate(int index, HdKeyPair childKey, AccountState accountState) {
+            this.index = index;
+            this.childKey = childKey;
+            this.key = Key.fromRawPrivateKey(childKey.getPrivateKey().getKeyData());
+            this.isUsed = isUsedAccount(accountState, key.toAddress());
+        }
+    }
 }
@@ -0,0 +1,191 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.core;
+
+import static org.semux.util.FileUtil.POSIX_SECURED_PERMISSIONS;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.semux.crypto.Aes;
+import org.semux.crypto.CryptoException;
+import org.semux.util.Bytes;
+import org.semux.util.IOUtil;
+import org.semux.util.SystemUtil;
+
+/**
+ * An append-only log of encrypted wallet updates, made since the wallet file
+ * was last written.
+ * <p>
+ * The journal starts with the salt of the wallet file it extends, so that a
+ * journal left over from an older wallet file is ignored. Each entry is framed
+ * by its length and a CRC32 checksum, so that an entry torn by a crash is
+ * detected and discarded, along with anything after it.
+ */
+class WalletJournal {
+
+    private static final int VERSION = 1;
+    private static final int IV_LENGTH = 16;
+
+    private final File file;
+
+    // the length of the valid prefix of the journal file, or 0 if it has to be
+    // rewritten from scratch
+    private long length;
+
+    WalletJournal(File walletFile) {
+        this.file = new File(walletFile.getPath() + ".journal");
+    }
+
+    /**
+     * Returns the journal file.
+     *
+     * @return
+     */
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the length of the valid part of the journal.
+     *
+     * @return
+     */
+    long length() {
+        return length;
+    }
+
+    /**
+     * Reads the entries of the journal, if it extends the wallet file with the
+     * given salt.
+     *
+     * @param salt
+     *            the salt of the wallet file
+     * @param key
+     *            the encryption key
+     * @return the decrypted entries, in order
+     * @throws IOException
+     */
+    List<byte[]> read(byte[] salt, byte[] key) throws IOException {
+        List<byte[]> entries = new ArrayList<>();
+        length = 0;
+        if (!file.isFile()) {
+            return entries;
+        }
+
+        byte[] bytes = IOUtil.readFile(file);
+        long offset = 0;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readInt() != VERSION || !Arrays.equals(readBytes(in), salt)) {
+                return entries;
+            }
+            offset = bytes.length - in.available();
+
+            while (in.available() > 0) {
+                byte[] body = readBytes(in);
+                if (in.readInt() != (int) crc32(body) || body.length <= IV_LENGTH) {
+                    break;
+                }
+                byte[] iv = Arrays.copyOfRange(body, 0, IV_LENGTH);
+                entries.add(Aes.decrypt(Arrays.copyOfRange(body, IV_LENGTH, body.length), key, iv));
+                offset = bytes.length - in.available();
+            }
+        } catch (IOException | CryptoException e) {
+            // a torn entry, keep the entries before it
+        }
+        length = offset;
+
+        return entries;
+    }
+
+    /**
+     * Appends entries to the journal, and syncs it to disk.
+     *
+     * @param salt
+     *            the salt of the wallet file
+     * @param key
+     *            the encryption key
+     * @param entries
+     *            the entries to append
+     * @throws IOException
+     */
+    void append(byte[] salt, byte[] key, List<byte[]> entries) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buf);
+        if (length == 0) {
+            out.writeInt(VERSION);
+            writeBytes(out, salt);
+        }
+        for (byte[] entry : entries) {
+            byte[] iv = Bytes.random(IV_LENGTH);
+            byte[] body = Bytes.merge(iv, Aes.encrypt(entry, key, iv));
+            writeBytes(out, body);
+            out.writeInt((int) crc32(body));
+        }
+
+        if (SystemUtil.isPosix() && !file.exists()) {
+            Files.createFile(file.toPath());
+            Files.setPosixFilePermissions(file.toPath(), POSIX_SECURED_PERMISSIONS);
+        }
+
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // drop a stale journal or a torn entry
+            ch.truncate(length);
+            ch.position(length);
+
+            ByteBuffer bb = ByteBuffer.wrap(buf.toByteArray());
+            while (bb.hasRemaining()) {
+                ch.write(bb);
+            }
+            ch.force(true);
+            length = ch.size();
+        }
+    }
+
+    /**
+     * Deletes the journal, once its entries have been written to the wallet file.
+     *
+     * @throws IOException
+     */
+    void reset() throws IOException {
+        Files.deleteIfExists(file.toPath());
+        length = 0;
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int len = in.readInt();
+        if (len < 0 || len > in.available()) {
+            throw new IOException("Truncated journal entry");
+        }
+        byte[] bytes = new byte[len];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static long crc32(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+}
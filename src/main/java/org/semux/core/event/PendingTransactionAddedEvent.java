@@ -0,0 +1,22 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.core.event;
+
+import org.semux.core.Transaction;
+import org.semux.event.PubSubEvent;
+
+/**
+ * Published when a new transaction has been accepted into the pending pool.
+ */
+public class PendingTransactionAddedEvent implements PubSubEvent {
+
+    public final Transaction transaction;
+
+    public PendingTransactionAddedEvent(Transaction transaction) {
+        this.transaction = transaction;
+    }
+}
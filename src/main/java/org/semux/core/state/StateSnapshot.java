@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.core.state;
+
+import java.util.List;
+
+import org.semux.core.Block;
+import org.semux.db.Database;
+
+/**
+ * A read-only view of the account and delegate states as of a block, backed by
+ * database snapshots. It is not affected by the blocks imported afterwards,
+ * and must be closed after use.
+ */
+public class StateSnapshot implements AutoCloseable {
+
+    private final Block block;
+    private final AccountState accountState;
+    private final DelegateState delegateState;
+    private final List<Database> snapshots;
+
+    public StateSnapshot(Block block, AccountState accountState, DelegateState delegateState,
+            List<Database> snapshots) {
+        this.block = block;
+        this.accountState = accountState;
+        this.delegateState = delegateState;
+        this.snapshots = snapshots;
+    }
+
+    /**
+     * Returns the block this snapshot is taken at.
+     *
+     * @return
+     */
+    public Block getBlock() {
+        return block;
+    }
+
+    /**
+     * Returns the account state. Updates must only be made on its tracks, which
+     * are never committed.
+     *
+     * @return
+     */
+    public AccountState getAccountState() {
+        return accountState;
+    }
+
+    /**
+     * Returns the delegate state. Updates must only be made on its tracks, which
+     * are never committed.
+     *
+     * @return
+     */
+    public DelegateState getDelegateState() {
+        return delegateState;
+    }
+
+    /**
+     * Releases the underlying database snapshots.
+     */
+    @Override
+    public void close() {
+        for (Database db : snapshots) {
+            db.close();
+        }
+    }
+}
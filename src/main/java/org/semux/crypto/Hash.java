@@ -6,12 +6,14 @@
  */
 package org.semux.crypto;
 
-import java.security.MessageDigest;
+import java.nio.ByteBuffer;
 import java.security.Security;
+import java.util.Arrays;
 
+import org.bouncycastle.crypto.digests.Blake2bDigest;
 import org.bouncycastle.crypto.digests.RIPEMD160Digest;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
-import org.semux.config.Constants;
+import org.semux.util.Bytes;
 
 /**
  * Hash generator
@@ -23,6 +25,15 @@ public class Hash {
     }
 
     public static final int HASH_LEN = 32;
+    public static final int H160_LEN = 20;
+
+    /**
+     * Digests are reused by each thread, rather than being looked up from the
+     * security providers on every call.
+     */
+    private static final ThreadLocal<Blake2bDigest> h256Digest = ThreadLocal
+            .withInitial(() -> new Blake2bDigest(HASH_LEN * 8));
+    private static final ThreadLocal<RIPEMD160Digest> h160Digest = ThreadLocal.withInitial(RIPEMD160Digest::new);
 
     /**
      * Generate the 256-bit hash.
@@ -31,17 +42,73 @@ public class Hash {
      * @return
      */
     public static byte[] h256(byte[] input) {
+        return h256(input, 0, input.length);
+    }
 
+    /**
+     * Generate the 256-bit hash of a slice of an array.
+     *
+     * @param input
+     * @param offset
+     * @param length
+     * @return
+     */
+    public static byte[] h256(byte[] input, int offset, int length) {
         if (Native.isEnabled()) {
-            return Native.h256(input);
+            return Native.h256(slice(input, offset, length));
+        }
+
+        byte[] out = new byte[HASH_LEN];
+        h256(input, offset, length, out, 0);
+        return out;
+    }
+
+    /**
+     * Generate the 256-bit hash of a slice of an array, and write it into the
+     * given output buffer.
+     *
+     * @param input
+     * @param offset
+     * @param length
+     * @param out
+     * @param outOffset
+     */
+    public static void h256(byte[] input, int offset, int length, byte[] out, int outOffset) {
+        if (Native.isEnabled()) {
+            System.arraycopy(Native.h256(slice(input, offset, length)), 0, out, outOffset, HASH_LEN);
+            return;
+        }
+
+        Blake2bDigest digest = h256Digest.get();
+        try {
+            digest.update(input, offset, length);
+            digest.doFinal(out, outOffset);
+        } catch (Exception e) {
+            digest.reset();
+            throw new CryptoException(e);
+        }
+    }
+
+    /**
+     * Generate the 256-bit hash of the remaining bytes of a buffer, which are
+     * consumed.
+     *
+     * @param input
+     * @return
+     */
+    public static byte[] h256(ByteBuffer input) {
+        int length = input.remaining();
+        byte[] out;
+        if (input.hasArray()) {
+            out = h256(input.array(), input.arrayOffset() + input.position(), length);
         } else {
-            try {
-                MessageDigest digest = MessageDigest.getInstance(Constants.HASH_ALGORITHM);
-                return digest.digest(input);
-            } catch (Exception e) {
-                throw new CryptoException(e);
-            }
+            byte[] bytes = new byte[length];
+            input.duplicate().get(bytes);
+            out = h256(bytes);
         }
+        input.position(input.position() + length);
+
+        return out;
     }
 
     /**
@@ -52,11 +119,35 @@ public class Hash {
      * @return
      */
     public static byte[] h256(byte[] one, byte[] two) {
-        byte[] all = new byte[one.length + two.length];
-        System.arraycopy(one, 0, all, 0, one.length);
-        System.arraycopy(two, 0, all, one.length, two.length);
+        byte[] out = new byte[HASH_LEN];
+        h256(one, two, out, 0);
+        return out;
+    }
+
+    /**
+     * Merge two byte arrays, compute the 256-bit hash, and write it into the given
+     * output buffer. The arrays are only merged when the native library is used.
+     *
+     * @param one
+     * @param two
+     * @param out
+     * @param outOffset
+     */
+    public static void h256(byte[] one, byte[] two, byte[] out, int outOffset) {
+        if (Native.isEnabled()) {
+            System.arraycopy(Native.h256(Bytes.merge(one, two)), 0, out, outOffset, HASH_LEN);
+            return;
+        }
 
-        return Hash.h256(all);
+        Blake2bDigest digest = h256Digest.get();
+        try {
+            digest.update(one, 0, one.length);
+            digest.update(two, 0, two.length);
+            digest.doFinal(out, outOffset);
+        } catch (Exception e) {
+            digest.reset();
+            throw new CryptoException(e);
+        }
     }
 
     /**
@@ -68,19 +159,44 @@ public class Hash {
     public static byte[] h160(byte[] input) {
         if (Native.isEnabled()) {
             return Native.h160(input);
-        } else {
-            try {
-                byte[] h256 = h256(input);
-
-                RIPEMD160Digest digest = new RIPEMD160Digest();
-                digest.update(h256, 0, h256.length);
-                byte[] out = new byte[20];
-                digest.doFinal(out, 0);
-                return out;
-            } catch (Exception e) {
-                throw new CryptoException(e);
-            }
         }
+
+        byte[] out = new byte[H160_LEN];
+        h160(input, 0, input.length, out, 0);
+        return out;
+    }
+
+    /**
+     * Generate the 160-bit hash of a slice of an array, and write it into the
+     * given output buffer.
+     *
+     * @param input
+     * @param offset
+     * @param length
+     * @param out
+     * @param outOffset
+     */
+    public static void h160(byte[] input, int offset, int length, byte[] out, int outOffset) {
+        if (Native.isEnabled()) {
+            System.arraycopy(Native.h160(slice(input, offset, length)), 0, out, outOffset, H160_LEN);
+            return;
+        }
+
+        byte[] h256 = new byte[HASH_LEN];
+        h256(input, offset, length, h256, 0);
+
+        RIPEMD160Digest digest = h160Digest.get();
+        try {
+            digest.update(h256, 0, h256.length);
+            digest.doFinal(out, outOffset);
+        } catch (Exception e) {
+            digest.reset();
+            throw new CryptoException(e);
+        }
+    }
+
+    private static byte[] slice(byte[] input, int offset, int length) {
+        return (offset == 0 && length == input.length) ? input : Arrays.copyOfRange(input, offset, offset + length);
     }
 
     private Hash() {
@@ -200,14 +200,36 @@ public class Key {
         return false;
     }
 
+    /**
+     * Returns whether batch verification is supported, i.e. whether the native
+     * library is enabled. Callers must fall back to verifying signatures one by
+     * one otherwise.
+     * 
+     * @return
+     */
     public static boolean isVerifyBatchSupported() {
         return Native.isEnabled();
     }
 
+    /**
+     * Verifies a batch of signatures, with the native library.
+     * 
+     * @param messages
+     *            messages
+     * @param signatures
+     *            signatures, in the same order as the messages
+     * @return True if all signatures are valid, otherwise false
+     * @throws UnsupportedOperationException
+     *             if the native library is not enabled, see
+     *             {@link #isVerifyBatchSupported()}
+     */
     public static boolean verifyBatch(Collection<byte[]> messages, Collection<Signature> signatures) {
         if (!isVerifyBatchSupported()) {
             throw new UnsupportedOperationException("Key#verifyBatch is only implemented in the native library.");
         }
+        if (messages.size() != signatures.size()) {
+            return false;
+        }
 
         return Native.verifyBatch(
                 messages.toArray(new byte[messages.size()][]),
@@ -259,6 +281,7 @@ public class Key {
 
         private byte[] s;
         private byte[] a;
+        private volatile byte[] address;
 
         /**
          * Creates a Signature instance.
@@ -302,12 +325,18 @@ public class Key {
         }
 
         /**
-         * Returns the address of signer.
+         * Returns the address of signer. The returned array is shared and must not
+         * be modified.
          * 
          * @return
          */
         public byte[] getAddress() {
-            return Hash.h160(getPublicKey());
+            byte[] addr = address;
+            if (addr == null) {
+                addr = PublicKeyCache.computeAddressIfAbsent(getPublicKey());
+                address = addr;
+            }
+            return addr;
         }
 
         /**
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.crypto;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.semux.util.MetricRegistry;
+
+/**
+ * A dedicated pool for verifying the transactions and signatures of blocks,
+ * proposals and votes.
+ * <p>
+ * Parallel streams run in the common fork-join pool unless they are started
+ * from another pool, so consensus-critical verification is submitted here to
+ * avoid competing with other work, such as API requests.
+ */
+public final class VerificationPool {
+
+    private static final String THREAD_PREFIX = "crypto-verify-";
+
+    private static volatile ForkJoinPool pool;
+
+    private VerificationPool() {
+    }
+
+    /**
+     * Creates the pool with the given number of threads, if not created yet.
+     *
+     * @param threads
+     *            the number of threads, or the number of processors if not
+     *            positive
+     */
+    public static synchronized void init(int threads) {
+        if (pool == null) {
+            int parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+            AtomicInteger cnt = new AtomicInteger(0);
+            pool = new ForkJoinPool(parallelism, p -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                t.setName(THREAD_PREFIX + cnt.getAndIncrement());
+                return t;
+            }, null, false);
+        }
+    }
+
+    /**
+     * Registers the pool metrics.
+     *
+     * @param metrics
+     */
+    public static void registerMetrics(MetricRegistry metrics) {
+        metrics.gauge("semux_verify_pool_threads", "Number of threads of the verification pool",
+                () -> get().getParallelism());
+        metrics.gauge("semux_verify_pool_active", "Number of busy threads of the verification pool",
+                () -> get().getActiveThreadCount());
+        metrics.gauge("semux_verify_pool_queued", "Number of tasks queued in the verification pool",
+                () -> get().getQueuedSubmissionCount() + get().getQueuedTaskCount());
+    }
+
+    /**
+     * Returns the pool, creating it with the default size if needed.
+     *
+     * @return
+     */
+    public static ForkJoinPool get() {
+        ForkJoinPool p = pool;
+        if (p == null) {
+            init(0);
+            p = pool;
+        }
+        return p;
+    }
+
+    /**
+     * Runs a task, typically a parallel stream, in the pool and waits for its
+     * result.
+     *
+     * @param task
+     * @return
+     */
+    public static <T> T invoke(Supplier<T> task) {
+        ForkJoinPool p = get();
+        if (ForkJoinTask.getPool() == p) {
+            return task.get();
+        }
+        return p.submit((Callable<T>) task::get).join();
+    }
+}
@@ -10,6 +10,7 @@ import java.security.spec.InvalidKeySpecException;
 import java.security.spec.X509EncodedKeySpec;
 
 import org.semux.crypto.CryptoException;
+import org.semux.crypto.Hash;
 import org.semux.util.ByteArray;
 
 import com.github.benmanes.caffeine.cache.Cache;
@@ -32,6 +33,15 @@ public final class PublicKeyCache {
     private static final Cache<ByteArray, EdDSAPublicKey> pubKeyCache = Caffeine.newBuilder()
             .maximumSize(MAX_CACHE_SIZE).build();
 
+    /**
+     * Addresses are derived from public keys by BLAKE2b and RIPEMD-160, and
+     * looked up repeatedly for the votes of the same validators.
+     * <p>
+     * The cache is a concurrent hash map of ByteArray.of(pubKey) -> address
+     */
+    private static final Cache<ByteArray, byte[]> addressCache = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHE_SIZE).build();
+
     private PublicKeyCache() {
     }
 
@@ -50,4 +60,15 @@ public final class PublicKeyCache {
             }
         });
     }
+
+    /**
+     * Returns the cached address of a public key. The returned array is shared
+     * and must not be modified.
+     *
+     * @param pubKey
+     * @return
+     */
+    public static byte[] computeAddressIfAbsent(byte[] pubKey) {
+        return addressCache.get(ByteArray.of(pubKey), input -> Hash.h160(pubKey));
+    }
 }
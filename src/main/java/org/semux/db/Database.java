@@ -72,6 +72,16 @@ public interface Database {
      */
     ClosableIterator<Entry<byte[], byte[]>> iterator(byte[] prefix);
 
+    /**
+     * Returns a read-only view of this database as of now, which is not affected
+     * by later writes.<br>
+     * <br>
+     * NOTE: be sure to close the snapshot after use.
+     *
+     * @return
+     */
+    Database snapshot();
+
     /**
      * Closes the database.
      */
@@ -22,10 +22,14 @@ import org.iq80.leveldb.CompressionType;
 import org.iq80.leveldb.DB;
 import org.iq80.leveldb.DBIterator;
 import org.iq80.leveldb.Options;
+import org.iq80.leveldb.ReadOptions;
+import org.iq80.leveldb.Snapshot;
 import org.iq80.leveldb.WriteBatch;
 import org.semux.db.exception.DatabaseException;
 import org.semux.util.ClosableIterator;
 import org.semux.util.FileUtil;
+import org.semux.util.Histogram;
+import org.semux.util.MetricRegistry;
 import org.semux.util.SystemUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,13 +42,33 @@ public class LeveldbDatabase implements Database {
     private DB db;
     private boolean isOpened;
 
+    // latencies in microseconds
+    private final Histogram readLatency;
+    private final Histogram writeLatency;
+
     /**
      * Creates an LevelDB instance and opens it.
      *
      * @param file
      */
     public LeveldbDatabase(File file) {
+        this(file, new Histogram(MetricRegistry.MICROS_BOUNDS), new Histogram(MetricRegistry.MICROS_BOUNDS));
+    }
+
+    /**
+     * Creates an LevelDB instance which records its read and write latencies, and
+     * opens it.
+     *
+     * @param file
+     * @param readLatency
+     *            the histogram of read latencies, in microseconds
+     * @param writeLatency
+     *            the histogram of write latencies, in microseconds
+     */
+    public LeveldbDatabase(File file, Histogram readLatency, Histogram writeLatency) {
         this.file = file;
+        this.readLatency = readLatency;
+        this.writeLatency = writeLatency;
 
         File dir = file.getParentFile();
         if (!dir.exists() && !dir.mkdirs()) {
@@ -120,21 +144,29 @@ public class LeveldbDatabase implements Database {
 
     @Override
     public byte[] get(byte[] key) {
-        return db.get(key);
+        long t = System.nanoTime();
+        byte[] value = db.get(key);
+        readLatency.observe((System.nanoTime() - t) / 1_000);
+        return value;
     }
 
     @Override
     public void put(byte[] key, byte[] value) {
+        long t = System.nanoTime();
         db.put(key, value);
+        writeLatency.observe((System.nanoTime() - t) / 1_000);
     }
 
     @Override
     public void delete(byte[] key) {
+        long t = System.nanoTime();
         db.delete(key);
+        writeLatency.observe((System.nanoTime() - t) / 1_000);
     }
 
     @Override
     public void updateBatch(List<Pair<byte[], byte[]>> pairs) {
+        long t = System.nanoTime();
         try (WriteBatch batch = db.createWriteBatch()) {
             for (Pair<byte[], byte[]> p : pairs) {
                 if (p.getValue() == null) {
@@ -148,6 +180,7 @@ public class LeveldbDatabase implements Database {
             logger.error("Failed to update batch", e);
             SystemUtil.exitAsync(SystemUtil.Code.FAILED_TO_WRITE_BATCH_TO_DB);
         }
+        writeLatency.observe((System.nanoTime() - t) / 1_000);
     }
 
     @Override
@@ -180,9 +213,17 @@ public class LeveldbDatabase implements Database {
 
     @Override
     public ClosableIterator<Entry<byte[], byte[]>> iterator(byte[] prefix) {
+        return iterator(db.iterator(), prefix);
+    }
+
+    @Override
+    public Database snapshot() {
+        return new LeveldbSnapshot(db.getSnapshot());
+    }
+
+    private static ClosableIterator<Entry<byte[], byte[]>> iterator(DBIterator itr, byte[] prefix) {
 
         return new ClosableIterator<Entry<byte[], byte[]>>() {
-            final DBIterator itr = db.iterator();
 
             private ClosableIterator<Entry<byte[], byte[]>> initialize() {
                 if (prefix != null) {
@@ -214,21 +255,111 @@ public class LeveldbDatabase implements Database {
         }.initialize();
     }
 
+    /**
+     * A read-only view of the database, backed by a LevelDB snapshot.
+     */
+    private class LeveldbSnapshot implements Database {
+
+        private final Snapshot snapshot;
+        private final ReadOptions options;
+
+        LeveldbSnapshot(Snapshot snapshot) {
+            this.snapshot = snapshot;
+            this.options = new ReadOptions().snapshot(snapshot);
+        }
+
+        @Override
+        public byte[] get(byte[] key) {
+            long t = System.nanoTime();
+            byte[] value = db.get(key, options);
+            readLatency.observe((System.nanoTime() - t) / 1_000);
+            return value;
+        }
+
+        @Override
+        public void put(byte[] key, byte[] value) {
+            throw new UnsupportedOperationException("Snapshot is read-only");
+        }
+
+        @Override
+        public void delete(byte[] key) {
+            throw new UnsupportedOperationException("Snapshot is read-only");
+        }
+
+        @Override
+        public void updateBatch(List<Pair<byte[], byte[]>> pairs) {
+            throw new UnsupportedOperationException("Snapshot is read-only");
+        }
+
+        @Override
+        public ClosableIterator<Entry<byte[], byte[]>> iterator() {
+            return iterator(null);
+        }
+
+        @Override
+        public ClosableIterator<Entry<byte[], byte[]>> iterator(byte[] prefix) {
+            return LeveldbDatabase.iterator(db.iterator(options), prefix);
+        }
+
+        @Override
+        public Database snapshot() {
+            throw new UnsupportedOperationException("Snapshot of snapshot is not supported");
+        }
+
+        @Override
+        public void close() {
+            try {
+                snapshot.close();
+            } catch (IOException e) {
+                logger.error("Failed to release snapshot: {}", file, e);
+            }
+        }
+
+        @Override
+        public void destroy() {
+            throw new UnsupportedOperationException("Snapshot can not be destroyed");
+        }
+
+        @Override
+        public Path getDataDir() {
+            return file.toPath();
+        }
+    }
+
     public static class LeveldbFactory implements DatabaseFactory {
 
         private final EnumMap<DatabaseName, Database> databases = new EnumMap<>(DatabaseName.class);
 
         private final File dataDir;
 
+        private final MetricRegistry metrics;
+
         public LeveldbFactory(File dataDir) {
+            this(dataDir, new MetricRegistry());
+        }
+
+        /**
+         * Creates a factory of databases which report their latencies to the
+         * given registry.
+         *
+         * @param dataDir
+         * @param metrics
+         */
+        public LeveldbFactory(File dataDir, MetricRegistry metrics) {
             this.dataDir = dataDir;
+            this.metrics = metrics;
         }
 
         @Override
         public Database getDB(DatabaseName name) {
             return databases.computeIfAbsent(name, k -> {
-                File file = new File(dataDir.getAbsolutePath(), k.toString().toLowerCase(Locale.ROOT));
-                return new LeveldbDatabase(file);
+                String db = k.toString().toLowerCase(Locale.ROOT);
+                File file = new File(dataDir.getAbsolutePath(), db);
+                return new LeveldbDatabase(file,
+                        metrics.histogram("semux_db_read_us", "LevelDB read latency in microseconds",
+                                MetricRegistry.MICROS_BOUNDS, "db", db),
+                        metrics.histogram("semux_db_write_us", "LevelDB write latency in microseconds",
+                                MetricRegistry.MICROS_BOUNDS, "db", db));
             });
         }
 
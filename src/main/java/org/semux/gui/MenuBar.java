@@ -305,8 +305,13 @@ public class MenuBar extends JMenuBar implements ActionListener {
                     return;
                 }
             }
-            File src = gui.getKernel().getWallet().getFile();
+            Wallet wallet = gui.getKernel().getWallet();
+            File src = wallet.getFile();
             try {
+                // fold the journal into the wallet file, which is the only file copied
+                if (!wallet.compact()) {
+                    throw new IOException("Failed to write the wallet file");
+                }
                 Files.copy(src.toPath(), dst.toPath(), StandardCopyOption.REPLACE_EXISTING);
                 JOptionPane.showMessageDialog(frame, GuiMessages.get("WalletSavedAt", dst.getAbsolutePath()));
             } catch (IOException ex) {
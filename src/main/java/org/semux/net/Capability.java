@@ -36,7 +36,19 @@ public enum Capability {
     /**
      * This client supports the LIGHT protocol.
      */
-    LIGHT;
+    LIGHT,
+
+    /**
+     * This client supports the TX_GOSSIP protocol, where transactions are
+     * announced by hash and bodies are only delivered on request.
+     */
+    TX_GOSSIP,
+
+    /**
+     * This client supports the GET_BLOCKS_PARTS message, which requests a range
+     * of blocks at once.
+     */
+    RANGE_SYNC;
 
     public static Capability of(String name) {
         try {
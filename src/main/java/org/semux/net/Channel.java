@@ -7,16 +7,28 @@
 package org.semux.net;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import org.semux.Kernel;
 import org.semux.net.msg.MessageQueue;
+import org.semux.util.ByteArray;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 
 public class Channel {
+
+    private static final int KNOWN_TXS_LIMIT = 32 * 1024;
+
     private final NioSocketChannel socket;
 
     private boolean isInbound;
@@ -27,6 +39,12 @@ public class Channel {
 
     private boolean isActive;
 
+    // Transactions that the remote peer is known to have, either sent by or to it
+    private final Cache<ByteArray, Boolean> knownTxs = Caffeine.newBuilder().maximumSize(KNOWN_TXS_LIMIT).build();
+
+    // Transaction hashes waiting to be announced to the remote peer
+    private final Queue<byte[]> txAnnouncements = new ConcurrentLinkedQueue<>();
+
     /**
      * Creates a new channel instance.
      * 
@@ -105,6 +123,70 @@ public class Channel {
         return remotePeer;
     }
 
+    /**
+     * Returns whether the remote peer supports the given capability.
+     *
+     * @param capability
+     * @return
+     */
+    public boolean isSupported(Capability capability) {
+        return remotePeer != null && remotePeer.getCapabilities() != null
+                && Stream.of(remotePeer.getCapabilities()).anyMatch(c -> capability.name().equals(c));
+    }
+
+    /**
+     * Marks a transaction as known by the remote peer.
+     *
+     * @param hash
+     *            the transaction hash
+     */
+    public void markTransactionKnown(byte[] hash) {
+        knownTxs.put(ByteArray.of(hash), Boolean.TRUE);
+    }
+
+    /**
+     * Returns whether a transaction is known by the remote peer.
+     *
+     * @param hash
+     *            the transaction hash
+     * @return
+     */
+    public boolean isTransactionKnown(byte[] hash) {
+        return knownTxs.getIfPresent(ByteArray.of(hash)) != null;
+    }
+
+    /**
+     * Queues a transaction hash to be announced to the remote peer, unless the
+     * peer is already known to have the transaction.
+     *
+     * @param hash
+     *            the transaction hash
+     * @return true if the hash has been queued, otherwise false
+     */
+    public boolean announceTransaction(byte[] hash) {
+        ByteArray key = ByteArray.of(hash);
+        if (knownTxs.asMap().putIfAbsent(key, Boolean.TRUE) == null) {
+            txAnnouncements.add(hash);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes and returns up to <code>max</code> queued transaction announcements.
+     *
+     * @param max
+     * @return
+     */
+    public List<byte[]> pollTransactionAnnouncements(int max) {
+        List<byte[]> list = new ArrayList<>();
+        byte[] hash;
+        while (list.size() < max && (hash = txAnnouncements.poll()) != null) {
+            list.add(hash);
+        }
+        return list;
+    }
+
     /**
      * Returns whether this channel is active.
      * 
@@ -14,9 +14,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import org.semux.Kernel;
 import org.semux.net.filter.SemuxIpFilter;
+import org.semux.util.MetricRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,6 +42,15 @@ public class ChannelManager {
     public ChannelManager(Kernel kernel) {
         ipFilter = new SemuxIpFilter.Loader()
                 .load(new File(kernel.getConfig().configDir(), SemuxIpFilter.CONFIG_FILE).toPath());
+
+        MetricRegistry metrics = kernel.getMetrics();
+        metrics.gauge("semux_p2p_channels", "Open P2P channels", () -> channels.size());
+        metrics.gauge("semux_p2p_active_channels", "Active P2P channels, i.e. handshake done",
+                () -> activeChannels.size());
+        metrics.gauges("semux_p2p_message_queue_depth", "Messages waiting to be sent, per peer", "peer",
+                () -> activeChannels.values().stream().collect(Collectors.toMap(
+                        c -> c.getRemoteAddress().toString(), c -> (long) c.getMessageQueue().size(),
+                        (a, b) -> a + b)));
     }
 
     /**
@@ -32,6 +32,7 @@ import org.semux.core.BlockPart;
 import org.semux.core.Blockchain;
 import org.semux.core.PendingManager;
 import org.semux.core.SyncManager;
+import org.semux.core.Transaction;
 import org.semux.net.NodeManager.Node;
 import org.semux.net.msg.Message;
 import org.semux.net.msg.MessageQueue;
@@ -39,16 +40,21 @@ import org.semux.net.msg.ReasonCode;
 import org.semux.net.msg.consensus.BlockHeaderMessage;
 import org.semux.net.msg.consensus.BlockMessage;
 import org.semux.net.msg.consensus.BlockPartsMessage;
+import org.semux.net.msg.consensus.BlocksPartsMessage;
 import org.semux.net.msg.consensus.GetBlockHeaderMessage;
 import org.semux.net.msg.consensus.GetBlockMessage;
 import org.semux.net.msg.consensus.GetBlockPartsMessage;
+import org.semux.net.msg.consensus.GetBlocksPartsMessage;
 import org.semux.net.msg.consensus.NewHeightMessage;
 import org.semux.net.msg.p2p.DisconnectMessage;
 import org.semux.net.msg.p2p.GetNodesMessage;
+import org.semux.net.msg.p2p.GetTransactionsMessage;
+import org.semux.net.msg.p2p.NewTransactionHashesMessage;
 import org.semux.net.msg.p2p.NodesMessage;
 import org.semux.net.msg.p2p.PingMessage;
 import org.semux.net.msg.p2p.PongMessage;
 import org.semux.net.msg.p2p.TransactionMessage;
+import org.semux.net.msg.p2p.TransactionsMessage;
 import org.semux.net.msg.p2p.handshake.v2.HelloMessage;
 import org.semux.net.msg.p2p.handshake.v2.InitMessage;
 import org.semux.net.msg.p2p.handshake.v2.WorldMessage;
@@ -69,6 +75,10 @@ public class SemuxP2pHandler extends SimpleChannelInboundHandler<Message> {
 
     private final static Logger logger = LoggerFactory.getLogger(SemuxP2pHandler.class);
 
+    private static final long TX_ANNOUNCE_INTERVAL = 100L;
+    private static final int TRANSACTIONS_MESSAGE_SOFT_LIMIT = 1024 * 1024;
+    private static final int BLOCKS_PARTS_MESSAGE_SOFT_LIMIT = 1024 * 1024;
+
     private static final ScheduledExecutorService exec = Executors
             .newSingleThreadScheduledExecutor(new ThreadFactory() {
                 private final AtomicInteger cnt = new AtomicInteger(0);
@@ -94,6 +104,7 @@ public class SemuxP2pHandler extends SimpleChannelInboundHandler<Message> {
 
     private ScheduledFuture<?> getNodes = null;
     private ScheduledFuture<?> pingPong = null;
+    private ScheduledFuture<?> txAnnounce = null;
 
     private byte[] secret = Bytes.random(InitMessage.SECRET_LENGTH);
     private long timestamp = TimeUtil.currentTimeMillis();
@@ -198,6 +209,11 @@ public class SemuxP2pHandler extends SimpleChannelInboundHandler<Message> {
             pingPong = null;
         }
 
+        if (txAnnounce != null) {
+            txAnnounce.cancel(false);
+            txAnnounce = null;
+        }
+
         super.channelInactive(ctx);
     }
 
@@ -241,6 +257,15 @@ public class SemuxP2pHandler extends SimpleChannelInboundHandler<Message> {
         case TRANSACTION:
             onTransaction((TransactionMessage) msg);
             break;
+        case NEW_TRANSACTION_HASHES:
+            onNewTransactionHashes((NewTransactionHashesMessage) msg);
+            break;
+        case GET_TRANSACTIONS:
+            onGetTransactions((GetTransactionsMessage) msg);
+            break;
+        case TRANSACTIONS:
+            onTransactions((TransactionsMessage) msg);
+            break;
         case HANDSHAKE_INIT:
             if (useNewHandShake)
                 onHandshakeInit((InitMessage) msg);
@@ -261,6 +286,8 @@ public class SemuxP2pHandler extends SimpleChannelInboundHandler<Message> {
         case BLOCK_HEADER:
         case GET_BLOCK_PARTS:
         case BLOCK_PARTS:
+        case GET_BLOCKS_PARTS:
+        case BLOCKS_PARTS:
             onSync(msg);
             break;
 
@@ -366,9 +393,73 @@ public class SemuxP2pHandler extends SimpleChannelInboundHandler<Message> {
     }
 
     protected void onTransaction(TransactionMessage msg) {
+        channel.markTransactionKnown(msg.getTransaction().getHash());
         pendingMgr.addTransaction(msg.getTransaction());
     }
 
+    protected void onNewTransactionHashes(NewTransactionHashesMessage msg) {
+        if (!isHandshakeDone.get() || !msg.validate()) {
+            return;
+        }
+
+        for (byte[] hash : msg.getHashes()) {
+            channel.markTransactionKnown(hash);
+        }
+
+        List<byte[]> unknown = pendingMgr.requestUnknownTransactions(msg.getHashes());
+        if (!unknown.isEmpty()) {
+            msgQueue.sendMessage(new GetTransactionsMessage(unknown));
+        }
+    }
+
+    protected void onGetTransactions(GetTransactionsMessage msg) {
+        if (!isHandshakeDone.get() || !msg.validate()) {
+            return;
+        }
+
+        // split the response to keep each message reasonably sized
+        List<Transaction> txs = new ArrayList<>();
+        int size = 0;
+        for (byte[] hash : msg.getHashes()) {
+            Transaction tx = pendingMgr.getRelayedTransaction(hash);
+            if (tx == null) {
+                continue;
+            }
+
+            channel.markTransactionKnown(hash);
+            txs.add(tx);
+            size += tx.size();
+
+            if (size >= TRANSACTIONS_MESSAGE_SOFT_LIMIT) {
+                msgQueue.sendMessage(new TransactionsMessage(txs));
+                txs = new ArrayList<>();
+                size = 0;
+            }
+        }
+
+        if (!txs.isEmpty()) {
+            msgQueue.sendMessage(new TransactionsMessage(txs));
+        }
+    }
+
+    protected void onTransactions(TransactionsMessage msg) {
+        if (!isHandshakeDone.get() || !msg.validate()) {
+            return;
+        }
+
+        for (Transaction tx : msg.getTransactions()) {
+            channel.markTransactionKnown(tx.getHash());
+            pendingMgr.addTransaction(tx);
+        }
+    }
+
+    protected void announceTransactions() {
+        List<byte[]> hashes = channel.pollTransactionAnnouncements(NewTransactionHashesMessage.MAX_HASHES);
+        if (!hashes.isEmpty()) {
+            msgQueue.sendMessage(new NewTransactionHashesMessage(hashes));
+        }
+    }
+
     protected void onHandshakeInit(InitMessage msg) {
         // unexpected
         if (channel.isInbound()) {
@@ -469,33 +560,48 @@ public class SemuxP2pHandler extends SimpleChannelInboundHandler<Message> {
             long number = m.getNumber();
             int parts = m.getParts();
 
-            List<byte[]> partsSerialized = new ArrayList<>();
             Block block = chain.getBlock(number);
-            for (BlockPart part : BlockPart.decode(parts)) {
-                switch (part) {
-                case HEADER:
-                    partsSerialized.add(block.getEncodedHeader());
-                    break;
-                case TRANSACTIONS:
-                    partsSerialized.add(block.getEncodedTransactions());
-                    break;
-                case RESULTS:
-                    partsSerialized.add(block.getEncodedResults());
-                    break;
-                case VOTES:
-                    partsSerialized.add(block.getEncodedVotes());
+            channel.getMessageQueue().sendMessage(new BlockPartsMessage(number, parts, encodeBlockParts(block, parts)));
+            break;
+        }
+        case GET_BLOCKS_PARTS: {
+            GetBlocksPartsMessage m = (GetBlocksPartsMessage) msg;
+            if (!m.validate()) {
+                break;
+            }
+            int parts = m.getParts();
+
+            // stream the range, splitting it to keep each message reasonably sized
+            long from = m.getFrom();
+            List<List<byte[]>> data = new ArrayList<>();
+            int size = 0;
+            for (long number = m.getFrom(); number < m.getFrom() + m.getCount(); number++) {
+                Block block = chain.getBlock(number);
+                if (block == null) {
                     break;
-                default:
-                    throw new UnreachableException();
+                }
+
+                List<byte[]> partsSerialized = encodeBlockParts(block, parts);
+                data.add(partsSerialized);
+                size += partsSerialized.stream().mapToInt(b -> b.length).sum();
+
+                if (size >= BLOCKS_PARTS_MESSAGE_SOFT_LIMIT) {
+                    channel.getMessageQueue().sendMessage(new BlocksPartsMessage(from, parts, data));
+                    from = number + 1;
+                    data = new ArrayList<>();
+                    size = 0;
                 }
             }
 
-            channel.getMessageQueue().sendMessage(new BlockPartsMessage(number, parts, partsSerialized));
+            if (!data.isEmpty()) {
+                channel.getMessageQueue().sendMessage(new BlocksPartsMessage(from, parts, data));
+            }
             break;
         }
         case BLOCK:
         case BLOCK_HEADER:
-        case BLOCK_PARTS: {
+        case BLOCK_PARTS:
+        case BLOCKS_PARTS: {
             sync.onMessage(channel, msg);
             break;
         }
@@ -516,6 +622,32 @@ public class SemuxP2pHandler extends SimpleChannelInboundHandler<Message> {
     // Helper methods below
     // =========================
 
+    /**
+     * Serializes the requested parts of a block.
+     */
+    private List<byte[]> encodeBlockParts(Block block, int parts) {
+        List<byte[]> partsSerialized = new ArrayList<>();
+        for (BlockPart part : BlockPart.decode(parts)) {
+            switch (part) {
+            case HEADER:
+                partsSerialized.add(block.getEncodedHeader());
+                break;
+            case TRANSACTIONS:
+                partsSerialized.add(block.getEncodedTransactions());
+                break;
+            case RESULTS:
+                partsSerialized.add(block.getEncodedResults());
+                break;
+            case VOTES:
+                partsSerialized.add(block.getEncodedVotes());
+                break;
+            default:
+                throw new UnreachableException();
+            }
+        }
+        return partsSerialized;
+    }
+
     /**
      * Check whether the peer is valid to connect.
      */
@@ -563,6 +695,12 @@ public class SemuxP2pHandler extends SimpleChannelInboundHandler<Message> {
             // start ping pong
             pingPong = exec.scheduleAtFixedRate(() -> msgQueue.sendMessage(new PingMessage()),
                     channel.isInbound() ? 1 : 0, 1, TimeUnit.MINUTES);
+
+            // start batched transaction announcements
+            if (channel.isSupported(Capability.TX_GOSSIP)) {
+                txAnnounce = exec.scheduleAtFixedRate(this::announceTransactions,
+                        TX_ANNOUNCE_INTERVAL, TX_ANNOUNCE_INTERVAL, TimeUnit.MILLISECONDS);
+            }
         } else {
             msgQueue.disconnect(ReasonCode.HANDSHAKE_EXISTS);
         }
@@ -67,6 +67,21 @@ public enum MessageCode {
      */
     HANDSHAKE_WORLD(0x10),
 
+    /**
+     * [0x11] Announce a batch of transaction hashes.
+     */
+    NEW_TRANSACTION_HASHES(0x11),
+
+    /**
+     * [0x12] Request transactions by hash from the peer.
+     */
+    GET_TRANSACTIONS(0x12),
+
+    /**
+     * [0x13] Response to a GET_TRANSACTIONS message.
+     */
+    TRANSACTIONS(0x13),
+
     // =======================================
     // [0x30, 0x3f] Reserved for sync
     // =======================================
@@ -101,6 +116,16 @@ public enum MessageCode {
      */
     BLOCK_PARTS(0x35),
 
+    /**
+     * [0x36] Request parts of a range of blocks from the peer.
+     */
+    GET_BLOCKS_PARTS(0x36),
+
+    /**
+     * [0x37] Response containing the parts of consecutive blocks.
+     */
+    BLOCKS_PARTS(0x37),
+
     // =======================================
     // [0x40, 0x4f] Reserved for BFT
     // =======================================
@@ -10,19 +10,24 @@ import org.semux.crypto.Hex;
 import org.semux.net.msg.consensus.BlockHeaderMessage;
 import org.semux.net.msg.consensus.BlockMessage;
 import org.semux.net.msg.consensus.BlockPartsMessage;
+import org.semux.net.msg.consensus.BlocksPartsMessage;
 import org.semux.net.msg.consensus.GetBlockHeaderMessage;
 import org.semux.net.msg.consensus.GetBlockMessage;
 import org.semux.net.msg.consensus.GetBlockPartsMessage;
+import org.semux.net.msg.consensus.GetBlocksPartsMessage;
 import org.semux.net.msg.consensus.NewHeightMessage;
 import org.semux.net.msg.consensus.NewViewMessage;
 import org.semux.net.msg.consensus.ProposalMessage;
 import org.semux.net.msg.consensus.VoteMessage;
 import org.semux.net.msg.p2p.DisconnectMessage;
 import org.semux.net.msg.p2p.GetNodesMessage;
+import org.semux.net.msg.p2p.GetTransactionsMessage;
+import org.semux.net.msg.p2p.NewTransactionHashesMessage;
 import org.semux.net.msg.p2p.NodesMessage;
 import org.semux.net.msg.p2p.PingMessage;
 import org.semux.net.msg.p2p.PongMessage;
 import org.semux.net.msg.p2p.TransactionMessage;
+import org.semux.net.msg.p2p.TransactionsMessage;
 import org.semux.net.msg.p2p.handshake.v2.HelloMessage;
 import org.semux.net.msg.p2p.handshake.v2.InitMessage;
 import org.semux.net.msg.p2p.handshake.v2.WorldMessage;
@@ -78,6 +83,12 @@ public class MessageFactory {
                 return new HelloMessage(body);
             case HANDSHAKE_WORLD:
                 return new WorldMessage(body);
+            case NEW_TRANSACTION_HASHES:
+                return new NewTransactionHashesMessage(body);
+            case GET_TRANSACTIONS:
+                return new GetTransactionsMessage(body);
+            case TRANSACTIONS:
+                return new TransactionsMessage(body);
 
             case GET_BLOCK:
                 return new GetBlockMessage(body);
@@ -91,6 +102,10 @@ public class MessageFactory {
                 return new GetBlockPartsMessage(body);
             case BLOCK_PARTS:
                 return new BlockPartsMessage(body);
+            case GET_BLOCKS_PARTS:
+                return new GetBlocksPartsMessage(body);
+            case BLOCKS_PARTS:
+                return new BlocksPartsMessage(body);
 
             case BFT_NEW_HEIGHT:
                 return new NewHeightMessage(body);
@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.net.msg.consensus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.semux.net.msg.Message;
+import org.semux.net.msg.MessageCode;
+import org.semux.util.SimpleDecoder;
+import org.semux.util.SimpleEncoder;
+
+/**
+ * A message containing the parts of consecutive blocks, starting from
+ * <code>from</code>. A GET_BLOCKS_PARTS request may be answered by several
+ * messages of this type.
+ */
+public class BlocksPartsMessage extends Message {
+
+    private final long from;
+    private final int parts;
+    private final List<List<byte[]>> data;
+
+    public BlocksPartsMessage(long from, int parts, List<List<byte[]>> data) {
+        super(MessageCode.BLOCKS_PARTS, null);
+
+        this.from = from;
+        this.parts = parts;
+        this.data = data;
+
+        SimpleEncoder enc = new SimpleEncoder();
+        enc.writeLong(from);
+        enc.writeInt(parts);
+        enc.writeInt(data.size());
+        for (List<byte[]> block : data) {
+            enc.writeInt(block.size());
+            for (byte[] b : block) {
+                enc.writeBytes(b);
+            }
+        }
+        this.body = enc.toBytes();
+    }
+
+    public BlocksPartsMessage(byte[] body) {
+        super(MessageCode.BLOCKS_PARTS, null);
+
+        SimpleDecoder dec = new SimpleDecoder(body);
+        this.from = dec.readLong();
+        this.parts = dec.readInt();
+        this.data = new ArrayList<>();
+        int n = dec.readInt();
+        for (int i = 0; i < n; i++) {
+            List<byte[]> block = new ArrayList<>();
+            int m = dec.readInt();
+            for (int j = 0; j < m; j++) {
+                block.add(dec.readBytes());
+            }
+            data.add(block);
+        }
+
+        this.body = body;
+    }
+
+    public long getFrom() {
+        return from;
+    }
+
+    public int getParts() {
+        return parts;
+    }
+
+    /**
+     * Returns the serialized parts of each block, in ascending order of block
+     * number.
+     *
+     * @return
+     */
+    public List<List<byte[]>> getData() {
+        return data;
+    }
+
+    @Override
+    public String toString() {
+        return "BlocksPartsMessage [from=" + from + ", parts=" + parts + ", # blocks=" + data.size() + "]";
+    }
+}
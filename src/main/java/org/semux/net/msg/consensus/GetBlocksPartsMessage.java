@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.net.msg.consensus;
+
+import org.semux.net.msg.Message;
+import org.semux.net.msg.MessageCode;
+import org.semux.util.SimpleDecoder;
+import org.semux.util.SimpleEncoder;
+
+public class GetBlocksPartsMessage extends Message {
+
+    public static final int MAX_BLOCKS = 128;
+
+    private final long from;
+    private final int count;
+    private final int parts;
+
+    public GetBlocksPartsMessage(long from, int count, int parts) {
+        super(MessageCode.GET_BLOCKS_PARTS, BlocksPartsMessage.class);
+
+        this.from = from;
+        this.count = count;
+        this.parts = parts;
+
+        SimpleEncoder enc = new SimpleEncoder();
+        enc.writeLong(from);
+        enc.writeInt(count);
+        enc.writeInt(parts);
+        this.body = enc.toBytes();
+    }
+
+    public GetBlocksPartsMessage(byte[] body) {
+        super(MessageCode.GET_BLOCKS_PARTS, BlocksPartsMessage.class);
+
+        SimpleDecoder dec = new SimpleDecoder(body);
+        this.from = dec.readLong();
+        this.count = dec.readInt();
+        this.parts = dec.readInt();
+
+        this.body = body;
+    }
+
+    public boolean validate() {
+        return from >= 0 && count > 0 && count <= MAX_BLOCKS;
+    }
+
+    public long getFrom() {
+        return from;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getParts() {
+        return parts;
+    }
+
+    @Override
+    public String toString() {
+        return "GetBlocksPartsMessage [from=" + from + ", count=" + count + ", parts=" + parts + "]";
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.net.msg.p2p;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.semux.crypto.Hash;
+import org.semux.net.msg.Message;
+import org.semux.net.msg.MessageCode;
+import org.semux.util.SimpleDecoder;
+import org.semux.util.SimpleEncoder;
+
+public class GetTransactionsMessage extends Message {
+
+    public static final int MAX_HASHES = 256;
+
+    private final List<byte[]> hashes;
+
+    /**
+     * Create a GET_TRANSACTIONS message.
+     *
+     * @param hashes
+     */
+    public GetTransactionsMessage(List<byte[]> hashes) {
+        super(MessageCode.GET_TRANSACTIONS, TransactionsMessage.class);
+
+        this.hashes = hashes;
+
+        SimpleEncoder enc = new SimpleEncoder();
+        enc.writeInt(hashes.size());
+        for (byte[] hash : hashes) {
+            enc.writeBytes(hash);
+        }
+        this.body = enc.toBytes();
+    }
+
+    /**
+     * Parse a GET_TRANSACTIONS message from byte array.
+     *
+     * @param body
+     */
+    public GetTransactionsMessage(byte[] body) {
+        super(MessageCode.GET_TRANSACTIONS, TransactionsMessage.class);
+
+        this.hashes = new ArrayList<>();
+        SimpleDecoder dec = new SimpleDecoder(body);
+        for (int i = 0, size = dec.readInt(); i < size; i++) {
+            hashes.add(dec.readBytes());
+        }
+
+        this.body = body;
+    }
+
+    public boolean validate() {
+        return hashes != null && hashes.size() <= MAX_HASHES
+                && hashes.stream().allMatch(h -> h != null && h.length == Hash.HASH_LEN);
+    }
+
+    public List<byte[]> getHashes() {
+        return hashes;
+    }
+
+    @Override
+    public String toString() {
+        return "GetTransactionsMessage [# hashes = " + hashes.size() + "]";
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe histogram with fixed bucket boundaries, cheap enough to be
+ * updated on every request.
+ */
+public class Histogram {
+
+    /**
+     * Default bucket upper bounds, suitable for latencies in milliseconds.
+     */
+    public static final long[] DEFAULT_BOUNDS = {
+            1, 2, 5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000
+    };
+
+    private final long[] bounds;
+    private final LongAdder[] counts;
+    private final LongAdder sum = new LongAdder();
+
+    public Histogram() {
+        this(DEFAULT_BOUNDS);
+    }
+
+    /**
+     * Creates a histogram.
+     *
+     * @param bounds
+     *            the inclusive upper bounds of the buckets, in ascending order.
+     *            An additional bucket collects the values above the last bound.
+     */
+    public Histogram(long[] bounds) {
+        this.bounds = bounds.clone();
+        this.counts = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param value
+     */
+    public void observe(long value) {
+        int idx = Arrays.binarySearch(bounds, value);
+        counts[idx >= 0 ? idx : -idx - 1].increment();
+        sum.add(value);
+    }
+
+    /**
+     * Returns the upper bounds of the buckets, excluding the overflow bucket.
+     *
+     * @return
+     */
+    public long[] getBounds() {
+        return bounds.clone();
+    }
+
+    /**
+     * Returns the number of values in each bucket; the last element is the
+     * overflow bucket.
+     *
+     * @return
+     */
+    public long[] getCounts() {
+        long[] result = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            result[i] = counts[i].sum();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the total number of recorded values.
+     *
+     * @return
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder c : counts) {
+            count += c.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the sum of recorded values.
+     *
+     * @return
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Returns an upper estimate of the given percentile, i.e. the bound of the
+     * bucket it falls into, or {@link Long#MAX_VALUE} for the overflow bucket.
+     *
+     * @param percentile
+     *            a value between 0 and 100
+     * @return
+     */
+    public long getPercentile(double percentile) {
+        long[] snapshot = getCounts();
+        long total = Arrays.stream(snapshot).sum();
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return bounds[i];
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+}
@@ -8,13 +8,22 @@ package org.semux.util;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.semux.core.Transaction;
 import org.semux.core.TransactionResult;
 import org.semux.crypto.Hash;
+import org.semux.crypto.VerificationPool;
 
 public class MerkleUtil {
 
+    /**
+     * Lists or levels of at least this size are hashed in parallel, in the
+     * verification pool.
+     */
+    protected static final int PARALLEL_THRESHOLD = 1024;
+
     /**
      * Compute the Merkle root of transactions.
      * 
@@ -23,11 +32,11 @@ public class MerkleUtil {
      * @return
      */
     public static byte[] computeTransactionsRoot(List<Transaction> txs) {
-        List<byte[]> hashes = new ArrayList<>();
+        List<byte[]> hashes = new ArrayList<>(txs.size());
         for (Transaction tx : txs) {
             hashes.add(tx.getHash());
         }
-        return new MerkleTree(hashes).getRootHash();
+        return computeRoot(hashes);
     }
 
     /**
@@ -38,11 +47,75 @@ public class MerkleUtil {
      * @return
      */
     public static byte[] computeResultsRoot(List<TransactionResult> results) {
-        List<byte[]> hashes = new ArrayList<>();
-        for (TransactionResult tx : results) {
-            hashes.add(Hash.h256(tx.toBytesForMerkle()));
+        List<byte[]> hashes;
+        if (results.size() >= PARALLEL_THRESHOLD) {
+            hashes = VerificationPool.invoke(() -> results.parallelStream()
+                    .map(r -> Hash.h256(r.toBytesForMerkle()))
+                    .collect(Collectors.toList()));
+        } else {
+            hashes = new ArrayList<>(results.size());
+            for (TransactionResult r : results) {
+                hashes.add(Hash.h256(r.toBytesForMerkle()));
+            }
+        }
+        return computeRoot(hashes);
+    }
+
+    /**
+     * Computes the Merkle root of the given leaves, the same as
+     * {@link MerkleTree#getRootHash()} but without building the tree. Use
+     * {@link MerkleTree} when proofs are needed.
+     * 
+     * @param hashes
+     *            the leaf hashes, which are not modified
+     * @return
+     */
+    public static byte[] computeRoot(List<byte[]> hashes) {
+        int n = hashes.size();
+        if (n == 0) {
+            return Bytes.EMPTY_HASH;
+        } else if (n == 1) {
+            return hashes.get(0);
+        }
+
+        // the leaves are folded into a flat array, then levels are folded back and
+        // forth between two arrays, so that nodes can be hashed in parallel
+        byte[][] src = new byte[(n + 1) / 2][];
+        byte[][] dst = new byte[(n + 3) / 4][];
+        fold(hashes.toArray(new byte[n][]), n, src);
+        n = (n + 1) / 2;
+
+        while (n > 1) {
+            fold(src, n, dst);
+            n = (n + 1) / 2;
+
+            byte[][] tmp = src;
+            src = dst;
+            dst = tmp;
+        }
+
+        return src[0];
+    }
+
+    /**
+     * Hashes the nodes of a level in pairs, and promotes the last node if the
+     * number of nodes is odd.
+     */
+    private static void fold(byte[][] src, int n, byte[][] dst) {
+        int pairs = n / 2;
+        if (pairs >= PARALLEL_THRESHOLD) {
+            VerificationPool.invoke(() -> {
+                IntStream.range(0, pairs).parallel().forEach(i -> dst[i] = Hash.h256(src[2 * i], src[2 * i + 1]));
+                return null;
+            });
+        } else {
+            for (int i = 0; i < pairs; i++) {
+                dst[i] = Hash.h256(src[2 * i], src[2 * i + 1]);
+            }
+        }
+        if (n % 2 == 1) {
+            dst[pairs] = src[n - 1];
         }
-        return new MerkleTree(hashes).getRootHash();
     }
 
     private MerkleUtil() {
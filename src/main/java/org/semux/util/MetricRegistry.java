@@ -0,0 +1,269 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A registry of the node's counters, gauges and histograms, exported in the
+ * Prometheus text format.
+ * <p>
+ * Updating a counter or a histogram only touches a {@link LongAdder}; gauges
+ * are computed when the metrics are exported, so none of them costs anything
+ * on hot paths.
+ */
+public class MetricRegistry {
+
+    /**
+     * Histogram bounds suitable for latencies in microseconds.
+     */
+    public static final long[] MICROS_BOUNDS = {
+            10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 100_000
+    };
+
+    public enum Type {
+        COUNTER, GAUGE, HISTOGRAM
+    }
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    /**
+     * Returns a counter, registering it if absent.
+     *
+     * @param name
+     *            the metric name
+     * @param help
+     *            the metric description
+     * @param labels
+     *            the label names and values, alternately
+     * @return
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, Type.COUNTER).metrics.computeIfAbsent(labels(labels),
+                k -> new Counter());
+    }
+
+    /**
+     * Returns a histogram with the default bounds, registering it if absent.
+     *
+     * @param name
+     *            the metric name
+     * @param help
+     *            the metric description
+     * @param labels
+     *            the label names and values, alternately
+     * @return
+     */
+    public Histogram histogram(String name, String help, String... labels) {
+        return histogram(name, help, Histogram.DEFAULT_BOUNDS, labels);
+    }
+
+    /**
+     * Returns a histogram, registering it if absent.
+     *
+     * @param name
+     *            the metric name
+     * @param help
+     *            the metric description
+     * @param bounds
+     *            the bucket bounds
+     * @param labels
+     *            the label names and values, alternately
+     * @return
+     */
+    public Histogram histogram(String name, String help, long[] bounds, String... labels) {
+        return (Histogram) family(name, help, Type.HISTOGRAM).metrics.computeIfAbsent(labels(labels),
+                k -> new Histogram(bounds));
+    }
+
+    /**
+     * Registers a gauge, whose value is computed on export.
+     *
+     * @param name
+     *            the metric name
+     * @param help
+     *            the metric description
+     * @param value
+     *            the value supplier
+     * @param labels
+     *            the label names and values, alternately
+     */
+    public void gauge(String name, String help, LongSupplier value, String... labels) {
+        family(name, help, Type.GAUGE).metrics.put(labels(labels), value);
+    }
+
+    /**
+     * Registers a set of gauges distinguished by a label, e.g. one per peer,
+     * which is computed on export.
+     *
+     * @param name
+     *            the metric name
+     * @param help
+     *            the metric description
+     * @param label
+     *            the label name
+     * @param values
+     *            the supplier of values by label value
+     */
+    public void gauges(String name, String help, String label, Supplier<Map<String, Long>> values) {
+        family(name, help, Type.GAUGE).dynamic = () -> relabel(label, values.get());
+    }
+
+    /**
+     * Registers a set of histograms distinguished by a label, e.g. one per API
+     * route, which is owned by another component.
+     *
+     * @param name
+     *            the metric name
+     * @param help
+     *            the metric description
+     * @param label
+     *            the label name
+     * @param values
+     *            the supplier of histograms by label value
+     */
+    public void histograms(String name, String help, String label, Supplier<Map<String, Histogram>> values) {
+        family(name, help, Type.HISTOGRAM).dynamic = () -> relabel(label, values.get());
+    }
+
+    /**
+     * Exports all metrics in the Prometheus text format, version 0.0.4.
+     *
+     * @return
+     */
+    public String export() {
+        StringBuilder sb = new StringBuilder();
+        for (Family f : families.values()) {
+            Map<String, Object> metrics = new TreeMap<>(f.metrics);
+            if (f.dynamic != null) {
+                metrics.putAll(f.dynamic.get());
+            }
+            if (metrics.isEmpty()) {
+                continue;
+            }
+
+            sb.append("# HELP ").append(f.name).append(' ').append(f.help).append('\n');
+            sb.append("# TYPE ").append(f.name).append(' ').append(f.type.name().toLowerCase(Locale.ROOT))
+                    .append('\n');
+            for (Map.Entry<String, Object> e : metrics.entrySet()) {
+                write(sb, f.name, e.getKey(), e.getValue());
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void write(StringBuilder sb, String name, String labels, Object metric) {
+        if (metric instanceof Counter) {
+            sample(sb, name, labels, ((Counter) metric).get());
+        } else if (metric instanceof LongSupplier) {
+            sample(sb, name, labels, ((LongSupplier) metric).getAsLong());
+        } else if (metric instanceof Number) {
+            sample(sb, name, labels, ((Number) metric).longValue());
+        } else if (metric instanceof Histogram) {
+            Histogram h = (Histogram) metric;
+            long[] bounds = h.getBounds();
+            long[] counts = h.getCounts();
+            String prefix = labels.isEmpty() ? "" : labels + ",";
+
+            long cumulative = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                cumulative += counts[i];
+                sample(sb, name + "_bucket", prefix + "le=\"" + bounds[i] + "\"", cumulative);
+            }
+            cumulative += counts[bounds.length];
+            sample(sb, name + "_bucket", prefix + "le=\"+Inf\"", cumulative);
+            sample(sb, name + "_sum", labels, h.getSum());
+            sample(sb, name + "_count", labels, cumulative);
+        }
+    }
+
+    private static void sample(StringBuilder sb, String name, String labels, long value) {
+        sb.append(name);
+        if (!labels.isEmpty()) {
+            sb.append('{').append(labels).append('}');
+        }
+        sb.append(' ').append(value).append('\n');
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family f = families.computeIfAbsent(name, k -> new Family(name, help, type));
+        if (f.type != type) {
+            throw new IllegalArgumentException("Metric " + name + " is a " + f.type);
+        }
+        return f;
+    }
+
+    private static Map<String, Object> relabel(String label, Map<String, ?> values) {
+        if (values == null || values.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        values.forEach((k, v) -> result.put(labels(label, k), v));
+        return result;
+    }
+
+    private static String labels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < labels.length; i += 2) {
+            list.add(labels[i] + "=\"" + escape(labels[i + 1]) + "\"");
+        }
+        return String.join(",", list);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * A monotonically increasing counter.
+     */
+    public static class Counter {
+        private final LongAdder value = new LongAdder();
+
+        public void inc() {
+            value.increment();
+        }
+
+        public void add(long n) {
+            value.add(n);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    private static class Family {
+        final String name;
+        final String help;
+        final Type type;
+        final Map<String, Object> metrics = new ConcurrentHashMap<>();
+        volatile Supplier<Map<String, Object>> dynamic;
+
+        Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
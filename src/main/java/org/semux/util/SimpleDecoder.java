@@ -6,13 +6,17 @@
  */
 package org.semux.util;
 
-import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import org.semux.core.Amount;
-import org.semux.util.exception.SimpleCodecException;
 
+/**
+ * A decoder reading from a byte array, or a range of it. It is not
+ * thread-safe.
+ */
 public class SimpleDecoder {
-    private static final String ENCODING = "UTF-8";
 
     private final byte[] in;
     private final int from;
@@ -20,6 +24,9 @@ public class SimpleDecoder {
 
     private int index;
 
+    // whether every size read so far is in its shortest encoding
+    private boolean minimal = true;
+
     public SimpleDecoder(byte[] in) {
         this(in, 0, in.length);
     }
@@ -56,10 +63,12 @@ public class SimpleDecoder {
     }
 
     public long readLong() {
-        int i1 = readInt();
-        int i2 = readInt();
-
-        return (unsignedInt(i1) << 32) | unsignedInt(i2);
+        require(8);
+        long l = 0;
+        for (int i = 0; i < 8; i++) {
+            l = (l << 8) | (in[index++] & 0xFF);
+        }
+        return l;
     }
 
     public Amount readAmount() {
@@ -87,18 +96,74 @@ public class SimpleDecoder {
         return readBytes(true);
     }
 
+    /**
+     * Returns a decoder over the next byte array, without copying it. It shares
+     * the input of this decoder, which must not be modified.
+     *
+     * @return
+     */
+    public SimpleDecoder readDecoder() {
+        int len = readSize();
+
+        require(len);
+        SimpleDecoder dec = new SimpleDecoder(in, index, index + len);
+        index += len;
+
+        return dec;
+    }
+
+    /**
+     * Returns a read-only view of the next byte array, without copying it.
+     *
+     * @return
+     */
+    public ByteBuffer readBuffer() {
+        int len = readSize();
+
+        require(len);
+        ByteBuffer buf = ByteBuffer.wrap(in, index, len).slice().asReadOnlyBuffer();
+        index += len;
+
+        return buf;
+    }
+
     public String readString() {
-        try {
-            return new String(readBytes(), ENCODING);
-        } catch (UnsupportedEncodingException e) {
-            throw new SimpleCodecException(e);
-        }
+        int len = readSize();
+
+        require(len);
+        String s = new String(in, index, len, StandardCharsets.UTF_8);
+        index += len;
+
+        return s;
+    }
+
+    /**
+     * Returns the whole input of this decoder, regardless of the read index. The
+     * input array is returned as is if this decoder covers all of it, otherwise
+     * the covered range is copied.
+     *
+     * @return
+     */
+    public byte[] toBytes() {
+        return (from == 0 && to == in.length) ? in : Arrays.copyOfRange(in, from, to);
     }
 
     public int getReadIndex() {
         return index;
     }
 
+    /**
+     * Returns whether the input has been read to the end, and every size read is
+     * in its shortest encoding, i.e. whether {@link SimpleEncoder} would write the
+     * same bytes. Non-canonical input, e.g. with trailing bytes, must not be kept
+     * in place of re-encoding.
+     *
+     * @return
+     */
+    public boolean isCanonical() {
+        return index == to && minimal;
+    }
+
     /**
      * Reads size from the input.
      * 
@@ -109,6 +174,9 @@ public class SimpleDecoder {
         for (int i = 0; i < 4; i++) {
             require(1);
             byte b = in[index++];
+            if (i == 0 && b == (byte) 0x80) {
+                minimal = false;
+            }
 
             size = (size << 7) | (b & 0x7F);
             if ((b & 0x80) == 0) {
@@ -6,58 +6,69 @@
  */
 package org.semux.util;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import org.semux.core.Amount;
-import org.semux.util.exception.SimpleCodecException;
 
+/**
+ * An encoder writing into a growable byte array. It is not thread-safe.
+ */
 public class SimpleEncoder {
-    private final ByteArrayOutputStream out;
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private byte[] buf;
+    private int size;
 
     public SimpleEncoder(byte[] toAppend) {
-        this.out = new ByteArrayOutputStream();
-        try {
-            out.write(toAppend);
-        } catch (IOException e) {
-            throw new SimpleCodecException(e);
-        }
+        this.buf = Arrays.copyOf(toAppend, Math.max(DEFAULT_CAPACITY, toAppend.length * 2));
+        this.size = toAppend.length;
     }
 
     public SimpleEncoder() {
-        this(Bytes.EMPTY_BYTES);
+        this(DEFAULT_CAPACITY);
     }
 
+    /**
+     * Creates an encoder with the given initial capacity. If exactly that many
+     * bytes are written, {@link #toBytes()} returns the buffer without copying.
+     *
+     * @param size
+     */
     public SimpleEncoder(int size) {
-        out = new ByteArrayOutputStream(size);
+        this.buf = new byte[size];
+        this.size = 0;
     }
 
     public void writeBoolean(boolean b) {
-        out.write(b ? 1 : 0);
+        ensureCapacity(1);
+        buf[size++] = (byte) (b ? 1 : 0);
     }
 
     public void writeByte(byte b) {
-        out.write(b);
+        ensureCapacity(1);
+        buf[size++] = b;
     }
 
     public void writeShort(short s) {
-        out.write(0xFF & (s >>> 8));
-        out.write(0xFF & s);
+        ensureCapacity(2);
+        buf[size++] = (byte) (s >>> 8);
+        buf[size++] = (byte) s;
     }
 
     public void writeInt(int i) {
-        out.write(0xFF & (i >>> 24));
-        out.write(0xFF & (i >>> 16));
-        out.write(0xFF & (i >>> 8));
-        out.write(0xFF & i);
+        ensureCapacity(4);
+        buf[size++] = (byte) (i >>> 24);
+        buf[size++] = (byte) (i >>> 16);
+        buf[size++] = (byte) (i >>> 8);
+        buf[size++] = (byte) i;
     }
 
     public void writeLong(long l) {
-        int i1 = (int) (l >>> 32);
-        int i2 = (int) l;
-
-        writeInt(i1);
-        writeInt(i2);
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buf[size++] = (byte) (l >>> shift);
+        }
     }
 
     public void writeAmount(Amount a) {
@@ -79,27 +90,51 @@ public class SimpleEncoder {
             writeInt(bytes.length);
         }
 
-        try {
-            out.write(bytes);
-        } catch (IOException e) {
-            throw new SimpleCodecException(e);
-        }
+        writeRaw(bytes, 0, bytes.length);
     }
 
     public void writeBytes(byte[] bytes) {
         writeBytes(bytes, true);
     }
 
+    /**
+     * Encodes a slice of a byte array, the same as {@link #writeBytes(byte[])}
+     * with a copy of the slice.
+     *
+     * @param bytes
+     * @param offset
+     * @param length
+     */
+    public void writeBytes(byte[] bytes, int offset, int length) {
+        writeSize(length);
+        writeRaw(bytes, offset, length);
+    }
+
     public void writeString(String s) {
         writeBytes(Bytes.of(s));
     }
 
+    /**
+     * Returns the encoded bytes. The buffer is returned without copying if it is
+     * full, which is safe since any further write reallocates it.
+     *
+     * @return
+     */
     public byte[] toBytes() {
-        return out.toByteArray();
+        return size == buf.length ? buf : Arrays.copyOf(buf, size);
+    }
+
+    /**
+     * Returns a read-only view of the encoded bytes, without copying.
+     *
+     * @return
+     */
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(buf, 0, size).asReadOnlyBuffer();
     }
 
     public int getWriteIndex() {
-        return out.size();
+        return size;
     }
 
     /**
@@ -116,19 +151,27 @@ public class SimpleEncoder {
             throw new IllegalArgumentException("Size can't be larger than 0x0FFFFFFF: " + size);
         }
 
-        int[] buf = new int[4];
-        int i = buf.length;
-        do {
-            buf[--i] = size & 0x7f;
-            size >>>= 7;
-        } while (size > 0);
-
-        while (i < buf.length) {
-            if (i != buf.length - 1) {
-                out.write((byte) (buf[i++] | 0x80));
-            } else {
-                out.write((byte) buf[i++]);
-            }
+        int groups = 1;
+        while (groups < 4 && (size >>> (7 * groups)) != 0) {
+            groups++;
+        }
+
+        ensureCapacity(groups);
+        for (int i = groups - 1; i > 0; i--) {
+            buf[this.size++] = (byte) (((size >>> (7 * i)) & 0x7f) | 0x80);
+        }
+        buf[this.size++] = (byte) (size & 0x7f);
+    }
+
+    private void writeRaw(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buf, size, length);
+        size += length;
+    }
+
+    private void ensureCapacity(int n) {
+        if (buf.length - size < n) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + n));
         }
     }
 }
@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.api;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import javax.ws.rs.core.Response;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.semux.config.Config;
+
+public class ApiExecutorTest {
+
+    private ApiExecutor executor;
+
+    @Before
+    public void setUp() {
+        Config config = mock(Config.class);
+        when(config.apiMaxThreads()).thenReturn(2);
+        when(config.apiMaxQueueSize()).thenReturn(1);
+        when(config.apiMaxRouteConcurrency()).thenReturn(1);
+        when(config.apiRouteConcurrency()).thenReturn(Collections.singletonMap("/b", 2));
+        executor = new ApiExecutor(config, 200);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testSubmit() {
+        AtomicReference<Response> result = new AtomicReference<>();
+        assertTrue(executor.submit("/a", () -> Response.ok().entity("OK").build(), result::set));
+
+        await().until(() -> result.get() != null);
+        assertEquals("OK", result.get().getEntity());
+        await().until(() -> executor.getRouteStats().get("/a").getExecTime().getCount() == 1);
+    }
+
+    @Test
+    public void testRouteLimit() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        try {
+            assertTrue(executor.submit("/a", () -> block(latch), r -> {
+            }));
+            assertFalse(executor.submit("/a", () -> Response.ok().build(), r -> {
+            }));
+            assertEquals(1, executor.getRouteStats().get("/a").getRejected());
+
+            // other routes are not affected
+            assertTrue(executor.submit("/b", () -> Response.ok().build(), r -> {
+            }));
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    @Test
+    public void testInvoke() throws InterruptedException {
+        assertEquals("OK", executor.invoke("/a", () -> Response.ok().entity("OK").build()).getEntity());
+        assertEquals(1, executor.getRouteStats().get("/a").getExecTime().getCount());
+
+        CountDownLatch latch = new CountDownLatch(1);
+        try {
+            assertTrue(executor.submit("/a", () -> block(latch), r -> {
+            }));
+            // no permit frees up in time
+            assertNull(executor.invoke("/a", () -> Response.ok().build()));
+            assertEquals(1, executor.getRouteStats().get("/a").getRejected());
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    @Test
+    public void testInvokeAll() {
+        // both run only if they run at the same time
+        CountDownLatch latch = new CountDownLatch(2);
+        Supplier<Response> task = () -> {
+            latch.countDown();
+            try {
+                return Response.status(latch.await(5, TimeUnit.SECONDS) ? 200 : 500).build();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Response.status(500).build();
+            }
+        };
+
+        List<Response> responses = executor.invokeAll(Arrays.asList("/b", "/b", "/a", "/a"),
+                Arrays.asList(task, task, () -> Response.ok().build(), () -> Response.ok().build()));
+        assertEquals(4, responses.size());
+        assertEquals(200, responses.get(0).getStatus());
+        assertEquals(200, responses.get(1).getStatus());
+        assertEquals(200, responses.get(2).getStatus());
+
+        // beyond the route limit, waits for the permit
+        assertEquals(200, responses.get(3).getStatus());
+        assertEquals(0, executor.getRouteStats().get("/a").getRejected());
+    }
+
+    @Test
+    public void testInvokeAllLargeBatch() {
+        int n = 100;
+        List<Response> responses = executor.invokeAll(Collections.nCopies(n, "/a"),
+                Collections.nCopies(n, () -> Response.ok().build()));
+
+        assertEquals(n, responses.size());
+        assertTrue(responses.stream().allMatch(r -> r != null && r.getStatus() == 200));
+        assertEquals(0, executor.getRouteStats().get("/a").getRejected());
+        assertEquals(n, executor.getRouteStats().get("/a").getExecTime().getCount());
+    }
+
+    @Test
+    public void testInvokeAllTimeout() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        try {
+            assertTrue(executor.submit("/a", () -> block(latch), r -> {
+            }));
+
+            List<Response> responses = executor.invokeAll(Arrays.asList("/a", "/b"),
+                    Arrays.asList(() -> Response.ok().build(), () -> Response.ok().build()));
+            assertNull(responses.get(0));
+            assertEquals(200, responses.get(1).getStatus());
+            assertEquals(1, executor.getRouteStats().get("/a").getRejected());
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    @Test
+    public void testException() {
+        AtomicReference<Response> result = new AtomicReference<>();
+        assertTrue(executor.submit("/a", () -> {
+            throw new IllegalStateException();
+        }, result::set));
+
+        await().until(() -> result.get() != null);
+        assertEquals(500, result.get().getStatus());
+    }
+
+    private static Response block(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Response.ok().build();
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.Response;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.semux.api.v2.model.GetBlockResponse;
+import org.semux.api.v2.model.GetLatestBlockNumberResponse;
+import org.semux.config.Config;
+import org.semux.crypto.Hex;
+
+import com.fasterxml.jackson.databind.util.RawValue;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+
+public class ApiHandlerImplTest extends SemuxApiTestBase {
+
+    private static final String BATCH = "/" + ApiVersion.DEFAULT.prefix + ApiHandlerImpl.BATCH_PATH;
+
+    private ApiHandlerImpl handler;
+
+    @Before
+    public void setUp() {
+        super.setUp();
+        handler = new ApiHandlerImpl(apiMock.getKernel());
+    }
+
+    @Test
+    public void testBatch() {
+        String requests = "[{\"path\":\"/latest-block-number\"},"
+                + "{\"method\":\"GET\",\"path\":\"/block-by-number\",\"params\":{\"number\":\"0\"}},"
+                + "{\"path\":\"/no-such-route\"},"
+                + "{\"path\":\"/accounts\"}]";
+
+        List<Map<String, Object>> result = batch(requests);
+        assertEquals(4, result.size());
+
+        assertEquals(200, result.get(0).get("status"));
+        assertEquals("0", ((GetLatestBlockNumberResponse) result.get(0).get("body")).getResult());
+
+        assertEquals(200, result.get(1).get("status"));
+        assertEquals(Hex.encode0x(chain.getGenesis().getHash()),
+                ((GetBlockResponse) result.get(1).get("body")).getResult().getHash());
+
+        assertEquals(404, result.get(2).get("status"));
+        assertEquals(RawValue.class, result.get(2).get("body").getClass());
+
+        // private routes can't be batched
+        assertEquals(403, result.get(3).get("status"));
+    }
+
+    @Test
+    public void testBatchRouteLimit() {
+        Config config = mock(Config.class);
+        when(config.apiMaxThreads()).thenReturn(2);
+        when(config.apiMaxQueueSize()).thenReturn(1);
+        when(config.apiMaxRouteConcurrency()).thenReturn(1);
+        when(config.apiRouteConcurrency()).thenReturn(Collections.singletonMap("/latest-block-number", 0));
+        ApiExecutor executor = new ApiExecutor(config, 100);
+        handler.setExecutor(executor);
+
+        try {
+            List<Map<String, Object>> result = batch("[{\"path\":\"/latest-block-number\"},"
+                    + "{\"path\":\"/block-by-number\",\"params\":{\"number\":\"0\"}}]");
+            assertEquals(2, result.size());
+
+            // the route without permits is answered with 503, the others are served
+            assertEquals(503, result.get(0).get("status"));
+            assertEquals(200, result.get(1).get("status"));
+            assertEquals(1, executor.getRouteStats().get("/latest-block-number").getRejected());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testBatchInvalid() {
+        assertEquals(400, service(HttpMethod.POST, BATCH, null).getStatus());
+        assertEquals(400, service(HttpMethod.POST, BATCH, "not json").getStatus());
+        assertEquals(400, service(HttpMethod.POST, BATCH, "[]").getStatus());
+    }
+
+    @Test
+    public void testBatchRoute() {
+        assertEquals(ApiHandlerImpl.BATCH_PATH, handler.getRouteName(HttpMethod.POST, BATCH));
+        assertNull(handler.getRouteName(HttpMethod.GET, BATCH));
+    }
+
+    @Test
+    public void testParamNames() {
+        String path = "/" + ApiVersion.DEFAULT.prefix + "/block-by-number";
+        assertEquals(Collections.singletonList("number"), handler.getParamNames(HttpMethod.GET, path));
+        assertTrue(handler.getParamNames(HttpMethod.GET, "/" + ApiVersion.DEFAULT.prefix + "/unknown").isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> batch(String requests) {
+        Response response = service(HttpMethod.POST, BATCH, requests);
+        assertEquals(200, response.getStatus());
+        return (List<Map<String, Object>>) response.getEntity();
+    }
+
+    private Response service(HttpMethod method, String path, String requests) {
+        Map<String, String> params = requests == null ? Collections.emptyMap()
+                : Collections.singletonMap("requests", requests);
+        return handler.service(method, path, params, new DefaultHttpHeaders());
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.api.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.semux.Kernel;
+import org.semux.TestUtils;
+import org.semux.api.ApiHandler;
+import org.semux.config.Config;
+import org.semux.config.Constants;
+import org.semux.config.UnitTestnetConfig;
+import org.semux.core.Amount;
+import org.semux.core.Block;
+import org.semux.core.Blockchain;
+import org.semux.core.Transaction;
+import org.semux.core.TransactionResult;
+import org.semux.crypto.Hex;
+import org.semux.crypto.Key;
+import org.semux.util.BasicAuth;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+
+public class EventStreamHubTest {
+
+    private Config config;
+    private EventStreamHub hub;
+
+    @Before
+    public void setUp() {
+        config = new UnitTestnetConfig(Constants.DEFAULT_ROOT_DIR);
+
+        Kernel kernel = mock(Kernel.class);
+        when(kernel.getConfig()).thenReturn(config);
+        when(kernel.getBlockchain()).thenReturn(mock(Blockchain.class));
+
+        hub = new EventStreamHub(kernel);
+        hub.start();
+    }
+
+    @After
+    public void tearDown() {
+        hub.stop();
+    }
+
+    @Test
+    public void testSubscribe() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        assertTrue(hub.subscribe(context(channel), params("blocks", null)));
+        assertEquals(1, hub.getSubscriberCount());
+
+        HttpResponse resp = channel.readOutbound();
+        assertEquals(HttpResponseStatus.OK, resp.status());
+        assertTrue(resp.headers().get(HttpHeaderNames.CONTENT_TYPE).startsWith("text/event-stream"));
+
+        channel.close();
+        assertEquals(0, hub.getSubscriberCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTopic() {
+        hub.subscribe(context(new EmbeddedChannel(new ChannelInboundHandlerAdapter())), params("foo", null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidAddress() {
+        hub.subscribe(context(new EmbeddedChannel(new ChannelInboundHandlerAdapter())), params(null, "0x1234"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAccountsWithoutAddress() {
+        hub.subscribe(context(new EmbeddedChannel(new ChannelInboundHandlerAdapter())), params("accounts", null));
+    }
+
+    @Test
+    public void testBlockEvent() {
+        EmbeddedChannel blocks = subscribe(params("blocks", null));
+        EmbeddedChannel txs = subscribe(params("transactions", null));
+
+        Block block = TestUtils.createEmptyBlock(7);
+        hub.publishBlock(block);
+
+        String event = readEvent(blocks);
+        assertTrue(event.startsWith("event: block\ndata: {\"number\":\"7\""));
+        assertTrue(event.contains(Hex.encode0x(block.getHash())));
+        assertTrue(event.endsWith("\n\n"));
+        assertNull(txs.readOutbound());
+    }
+
+    @Test
+    public void testTransactionEvent() {
+        EmbeddedChannel blocks = subscribe(params("blocks", null));
+        EmbeddedChannel txs = subscribe(params("transactions", null));
+
+        Transaction tx = TestUtils.createTransaction(config);
+        hub.publishTransaction(tx);
+
+        String event = readEvent(txs);
+        assertTrue(event.startsWith("event: transaction\ndata: "));
+        assertTrue(event.contains(Hex.encode0x(tx.getHash())));
+        assertNull(blocks.readOutbound());
+    }
+
+    @Test
+    public void testAccountEvent() {
+        Key from = new Key();
+        Key to = new Key();
+        Key other = new Key();
+        EmbeddedChannel matched = subscribe(params(null, to.toAddressString()));
+        EmbeddedChannel unmatched = subscribe(params(null, other.toAddressString()));
+
+        Transaction tx = TestUtils.createTransaction(config, from, to, Amount.ZERO);
+        hub.publishTransaction(tx);
+
+        String event = readEvent(matched);
+        assertTrue(event.startsWith("event: account\ndata: "));
+        assertTrue(event.contains("\"pending\":true"));
+        assertNull(unmatched.readOutbound());
+
+        Block block = TestUtils.createBlock(8, Collections.singletonList(tx),
+                Collections.singletonList(new TransactionResult()));
+        hub.publishBlock(block);
+
+        event = readEvent(matched);
+        assertTrue(event.contains("\"pending\":false,\"blockNumber\":\"8\""));
+        assertNull(unmatched.readOutbound());
+    }
+
+    @Test
+    public void testPipelinedRequestAfterSubscribe() {
+        HttpHandler handler = new HttpHandler(config, mock(ApiHandler.class), null, null, hub);
+        EmbeddedChannel channel = new EmbeddedChannel(handler);
+        String auth = BasicAuth.generateAuth(config.apiUsername(), config.apiPassword());
+
+        FullHttpRequest events = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET,
+                "/events?topics=blocks");
+        events.headers().set(HttpHeaderNames.AUTHORIZATION, auth);
+        channel.writeInbound(events);
+        HttpResponse resp = channel.readOutbound();
+        assertEquals(HttpResponseStatus.OK, resp.status());
+        while (channel.readOutbound() != null) {
+            // drain the stream preamble
+        }
+
+        // the stream owns the connection, so nothing is written for the next request
+        FullHttpRequest next = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        next.headers().set(HttpHeaderNames.AUTHORIZATION, auth);
+        channel.writeInbound(next);
+        assertNull(channel.readOutbound());
+        assertEquals(1, hub.getSubscriberCount());
+    }
+
+    @Test
+    public void testMaxSubscribers() {
+        for (int i = 0; i < config.apiMaxEventSubscribers(); i++) {
+            subscribe(params("blocks", null));
+        }
+        assertFalse(hub.subscribe(context(new EmbeddedChannel(new ChannelInboundHandlerAdapter())),
+                params("blocks", null)));
+    }
+
+    private EmbeddedChannel subscribe(Map<String, String> params) {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        assertTrue(hub.subscribe(context(channel), params));
+        HttpResponse resp = channel.readOutbound();
+        assertEquals(HttpResponseStatus.OK, resp.status());
+        return channel;
+    }
+
+    private static ChannelHandlerContext context(EmbeddedChannel channel) {
+        return channel.pipeline().firstContext();
+    }
+
+    private static Map<String, String> params(String topics, String address) {
+        Map<String, String> params = new HashMap<>();
+        if (topics != null) {
+            params.put("topics", topics);
+        }
+        if (address != null) {
+            params.put("address", address);
+        }
+        return params;
+    }
+
+    private static String readEvent(EmbeddedChannel channel) {
+        HttpContent content = channel.readOutbound();
+        try {
+            return content.content().toString(StandardCharsets.UTF_8);
+        } finally {
+            content.release();
+        }
+    }
+}
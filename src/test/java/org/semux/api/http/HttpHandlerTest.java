@@ -14,14 +14,19 @@ import static org.awaitility.Awaitility.await;
 import static org.junit.Assert.assertEquals;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
+import java.net.Socket;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Scanner;
 
 import javax.ws.rs.core.Response;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -80,6 +85,18 @@ public class HttpHandlerTest {
                 params = p;
                 headers = h;
 
+                if (u.startsWith("/pipeline/")) {
+                    // the first request completes last
+                    if (u.endsWith("/1")) {
+                        try {
+                            Thread.sleep(300);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    return Response.ok().entity(u).build();
+                }
+
                 return Response.ok().entity("OK").build();
             }
 
@@ -176,6 +193,28 @@ public class HttpHandlerTest {
         assertEquals("d", headers.get("c"));
     }
 
+    @Test
+    public void testMetrics() throws IOException {
+        kernel.getMetrics().counter("semux_test_total", "A test counter").inc();
+
+        URL url = new URL("http://" + ip + ":" + port + "/metrics");
+        HttpURLConnection con = (HttpURLConnection) url.openConnection();
+        assertEquals(401, con.getResponseCode());
+
+        con = (HttpURLConnection) url.openConnection();
+        con.setRequestProperty("Authorization", auth);
+        assertEquals(200, con.getResponseCode());
+        assertTrue(con.getContentType().startsWith("text/plain; version=0.0.4"));
+
+        StringBuilder lines = new StringBuilder();
+        Scanner s = new Scanner(con.getInputStream());
+        while (s.hasNextLine()) {
+            lines.append(s.nextLine()).append('\n');
+        }
+        s.close();
+        assertTrue(lines.toString().contains("# TYPE semux_test_total counter\nsemux_test_total 1\n"));
+    }
+
     @Test
     public void testGetStaticFiles() throws IOException {
         Map<String, String> testCases = new HashMap<>();
@@ -233,4 +272,33 @@ public class HttpHandlerTest {
             assertEquals("keep-alive", con.getHeaderField("connection"));
         }
     }
+
+    @Test
+    public void testPipelining() throws IOException {
+        try (Socket socket = new Socket(ip, port)) {
+            socket.setSoTimeout(5000);
+
+            StringBuilder requests = new StringBuilder();
+            for (int i = 1; i <= 3; i++) {
+                requests.append("GET /pipeline/").append(i).append(" HTTP/1.1\r\n")
+                        .append("Host: ").append(ip).append("\r\n")
+                        .append("Authorization: ").append(auth).append("\r\n")
+                        .append(i == 3 ? "Connection: close\r\n" : "")
+                        .append("\r\n");
+            }
+            OutputStream out = socket.getOutputStream();
+            out.write(Bytes.of(requests.toString()));
+            out.flush();
+
+            // the responses come in request order, the last one closing the connection
+            String responses = IOUtils.toString(socket.getInputStream(), StandardCharsets.UTF_8);
+            int first = responses.indexOf("/pipeline/1");
+            int second = responses.indexOf("/pipeline/2");
+            int third = responses.indexOf("/pipeline/3");
+            assertTrue(first >= 0 && first < second && second < third);
+            assertEquals(3, StringUtils.countMatches(responses, "HTTP/1.1 200 OK"));
+            assertTrue(responses.substring(0, first).toLowerCase().contains("connection: keep-alive"));
+            assertTrue(responses.substring(second).toLowerCase().contains("connection: close"));
+        }
+    }
 }
@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.api.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.semux.util.Bytes;
+
+public class ResponseCacheTest {
+
+    @Test
+    public void testKey() {
+        Map<String, String> p1 = new LinkedHashMap<>();
+        p1.put("a", "1");
+        p1.put("b", "2");
+        Map<String, String> p2 = new LinkedHashMap<>();
+        p2.put("b", "2");
+        p2.put("a", "1");
+
+        List<String> names = Arrays.asList("a", "b");
+
+        assertEquals(ResponseCache.key("/x", names, p1, false), ResponseCache.key("/x", names, p2, false));
+        assertNotEquals(ResponseCache.key("/x", names, p1, false), ResponseCache.key("/y", names, p1, false));
+        assertNotEquals(ResponseCache.key("/x", names, p1, false),
+                ResponseCache.key("/x", names, new HashMap<>(), false));
+        assertNotEquals(ResponseCache.key("/x", names, p1, false), ResponseCache.key("/x", names, p1, true));
+    }
+
+    @Test
+    public void testKeyIgnoresUndeclaredParams() {
+        Map<String, String> p1 = new HashMap<>();
+        p1.put("a", "1");
+        Map<String, String> p2 = new HashMap<>(p1);
+        p2.put("nonce", "12345");
+
+        List<String> names = Collections.singletonList("a");
+        assertEquals(ResponseCache.key("/x", names, p1, false), ResponseCache.key("/x", names, p2, false));
+    }
+
+    @Test
+    public void testPutAndGet() {
+        ResponseCache cache = new ResponseCache(1024);
+        assertNull(cache.get("k"));
+
+        byte[] body = Bytes.of("{\"success\":true}");
+        ResponseCache.Entry entry = cache.put("k", body);
+        assertArrayEquals(body, cache.get("k").getBody());
+        assertEquals(entry.getEtag(), cache.get("k").getEtag());
+        assertTrue(entry.getEtag().startsWith("\"") && entry.getEtag().endsWith("\""));
+    }
+
+    @Test
+    public void testMatches() {
+        ResponseCache.Entry entry = new ResponseCache(1024).put("k", Bytes.of("body"));
+        String etag = entry.getEtag();
+
+        assertTrue(entry.matches(etag));
+        assertTrue(entry.matches("W/" + etag));
+        assertTrue(entry.matches("\"other\", " + etag));
+        assertTrue(entry.matches("*"));
+        assertTrue(entry.matches(etag.substring(0, etag.length() - 1) + "-gzip\""));
+        assertFalse(entry.matches("\"other\""));
+        assertFalse(entry.matches(null));
+    }
+}
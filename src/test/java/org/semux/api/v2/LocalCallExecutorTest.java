@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.api.v2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.semux.TestUtils;
+import org.semux.api.SemuxApiTestBase;
+import org.semux.api.v2.model.TransactionResultType;
+import org.semux.core.Amount;
+import org.semux.core.TransactionType;
+import org.semux.crypto.Hex;
+import org.semux.util.Bytes;
+
+public class LocalCallExecutorTest extends SemuxApiTestBase {
+
+    private LocalCallExecutor executor;
+
+    @Before
+    public void setUp() {
+        super.setUp();
+        executor = new LocalCallExecutor(apiMock.getKernel());
+    }
+
+    @Test
+    public void testCall() {
+        String to = Hex.encode0x(Bytes.random(20));
+        TransactionResultType result = executor.call(TransactionType.CALL, to, "100", "0xff", "1000000", "1");
+        assertEquals("SUCCESS", result.getCode());
+        assertEquals(Long.toString(21_000 + 68), result.getGasUsed());
+
+        // identical calls on the same block are memoized
+        assertSame(result, executor.call(TransactionType.CALL, to, "100", "0xff", "1000000", "1"));
+        assertNotSame(result, executor.call(TransactionType.CALL, to, "101", "0xff", "1000000", "1"));
+    }
+
+    @Test
+    public void testEstimateGas() {
+        String to = Hex.encode0x(Bytes.random(20));
+        LocalCallExecutor.GasEstimate estimate = executor.estimateGas(to, "100", "0xff", null, "1");
+        assertEquals(21_000 + 68, estimate.getGas());
+        assertEquals("SUCCESS", estimate.getResult().getCode());
+
+        // the gas used is tried right after the upper bound
+        assertEquals(2, estimate.getIterations());
+
+        // the upper bound is the answer
+        estimate = executor.estimateGas(to, "100", "0xff", Long.toString(21_000 + 68), "1");
+        assertEquals(21_000 + 68, estimate.getGas());
+        assertEquals(1, estimate.getIterations());
+    }
+
+    @Test
+    public void testEstimateGasFailure() {
+        LocalCallExecutor.GasEstimate estimate = executor.estimateGas(Hex.encode0x(Bytes.random(20)), "100",
+                "0xff", "20000", "1");
+        assertEquals("INVALID_FEE", estimate.getResult().getCode());
+        assertEquals(1, estimate.getIterations());
+    }
+
+    @Test
+    public void testCallDoesNotChangeState() {
+        byte[] coinbase = apiMock.getKernel().getCoinbase().toAddress();
+        Amount available = accountState.getAccount(coinbase).getAvailable();
+
+        executor.call(TransactionType.CALL, Hex.encode0x(Bytes.random(20)), "100", null, "1000000", "1");
+
+        assertEquals(available, accountState.getAccount(coinbase).getAvailable());
+    }
+
+    @Test
+    public void testSnapshotRefresh() {
+        LocalCallExecutor.Snapshot snapshot = executor.getSnapshot();
+        assertSame(snapshot, executor.getSnapshot());
+
+        chain.addBlock(TestUtils.createBlock(chain.getLatestBlockNumber() + 1, Collections.emptyList(),
+                Collections.emptyList()));
+        assertNotSame(snapshot, executor.getSnapshot());
+    }
+
+    @Test
+    public void testSnapshotIsolation() {
+        byte[] address = Bytes.random(20);
+        LocalCallExecutor.Snapshot snapshot = executor.getSnapshot();
+
+        // state flushed to disk after the snapshot is taken
+        accountState.adjustAvailable(address, Amount.of(1));
+        accountState.commit();
+
+        assertEquals(Amount.ZERO, snapshot.state.getAccountState().getAccount(address).getAvailable());
+        assertEquals(Amount.of(1), accountState.getAccount(address).getAvailable());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidParameter() {
+        executor.call(TransactionType.CALL, "0x1234", null, null, null, null);
+    }
+}
@@ -87,6 +87,7 @@ import org.semux.api.v2.model.GetAccountTransactionsResponse;
 import org.semux.api.v2.model.GetAccountVotesResponse;
 import org.semux.api.v2.model.GetAccountsResponse;
 import org.semux.api.v2.model.GetBlockResponse;
+import org.semux.api.v2.model.GetBlocksResponse;
 import org.semux.api.v2.model.GetDelegateResponse;
 import org.semux.api.v2.model.GetDelegatesResponse;
 import org.semux.api.v2.model.GetInfoResponse;
@@ -334,6 +335,30 @@ public class SemuxApiTest extends SemuxApiTestBase {
         assertNotNull(response.getResult().getTransactions());
     }
 
+    @Test
+    public void getBlocksTest() {
+        Block block1 = TestUtils.createBlock(1, Collections.emptyList(), Collections.emptyList());
+        chain.addBlock(block1);
+        Block block2 = TestUtils.createBlock(block1.getHash(), new Key(), 2, Collections.emptyList(),
+                Collections.emptyList());
+        chain.addBlock(block2);
+
+        GetBlocksResponse response = api.getBlocks("0", "3");
+        assertTrue(response.isSuccess());
+        assertEquals(3, response.getResult().size());
+        assertEquals(Hex.encode0x(chain.getGenesis().getHash()), response.getResult().get(0).getHash());
+        assertEquals(Hex.encode0x(block2.getHash()), response.getResult().get(2).getHash());
+        assertEquals(1, response.getResult().get(2).getTransactions().size()); // coinbase tx
+
+        // stops at the latest block
+        assertEquals(1, api.getBlocks("2", "10").getResult().size());
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void getBlocksTooManyTest() {
+        api.getBlocks("0", "1000");
+    }
+
     @Test
     public void getDelegateTest() {
         Genesis gen = chain.getGenesis();
@@ -1004,6 +1029,7 @@ public class SemuxApiTest extends SemuxApiTestBase {
         assertEquals("1", result.getStartingHeight());
         assertEquals("10", result.getCurrentHeight());
         assertEquals("100", result.getTargetHeight());
+        assertTrue(result.getPeers().isEmpty());
     }
 
     @Test
@@ -1042,5 +1068,6 @@ public class SemuxApiTest extends SemuxApiTestBase {
         assertTrue(response.isSuccess());
 
         assertEquals(Long.toString(21_000 + 68), response.getResult());
+        assertEquals(Integer.valueOf(2), response.getIterations());
     }
 }
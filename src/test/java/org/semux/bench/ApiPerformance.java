@@ -7,16 +7,32 @@
 package org.semux.bench;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.junit.Rule;
 import org.junit.Test;
+import org.semux.api.ApiHandler;
+import org.semux.api.ApiHandlerImpl;
+import org.semux.api.ApiVersion;
 import org.semux.api.SemuxApiMock;
 import org.semux.config.Config;
 import org.semux.rules.KernelRule;
+import org.semux.util.BasicAuth;
+import org.semux.util.IOUtil;
 import org.semux.util.SimpleApiClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+
 /**
  * TODO: investigate, significant performance decrease noticed.
  */
@@ -47,4 +63,117 @@ public class ApiPerformance {
             api.stop();
         }
     }
+
+    @Test
+    public void testAllocation() throws IOException {
+        SemuxApiMock api = new SemuxApiMock(kernelRule.getKernel());
+        api.start();
+
+        try {
+            int repeat = 1000;
+
+            Config c = api.getKernel().getConfig();
+            SimpleApiClient a = new SimpleApiClient(c.apiListenIp(), c.apiListenPort(), c.apiUsername(),
+                    c.apiPassword());
+            for (String uri : Arrays.asList("/info", "/latest-block", "/delegates", "/pending-transactions")) {
+                // warm up
+                for (int i = 0; i < 100; i++) {
+                    a.get(uri);
+                }
+
+                long b1 = getAllocatedBytes();
+                long t1 = System.nanoTime();
+                for (int i = 0; i < repeat; i++) {
+                    a.get(uri);
+                }
+                long t2 = System.nanoTime();
+                long b2 = getAllocatedBytes();
+                logger.info("Perf_api_allocation {}: {} bytes/request, {} μs/request", uri, (b2 - b1) / repeat,
+                        (t2 - t1) / 1_000 / repeat);
+            }
+        } finally {
+            api.stop();
+        }
+    }
+
+    @Test
+    public void testCompression() throws IOException {
+        SemuxApiMock api = new SemuxApiMock(kernelRule.getKernel());
+        api.start();
+
+        try {
+            int repeat = 200;
+
+            Config c = api.getKernel().getConfig();
+            String auth = BasicAuth.generateAuth(c.apiUsername(), c.apiPassword());
+            for (String uri : Arrays.asList("/delegates", "/latest-block", "/pending-transactions")) {
+                for (String encoding : Arrays.asList("identity", "gzip", "deflate")) {
+                    URL url = new URL("http://" + c.apiListenIp() + ":" + c.apiListenPort() + "/"
+                            + ApiVersion.DEFAULT.prefix + uri);
+
+                    long bytes = 0;
+                    long t1 = System.nanoTime();
+                    for (int i = 0; i < repeat; i++) {
+                        HttpURLConnection con = (HttpURLConnection) url.openConnection();
+                        con.setRequestProperty("Authorization", auth);
+                        con.setRequestProperty("Accept-Encoding", encoding);
+                        try (InputStream in = con.getInputStream()) {
+                            bytes += IOUtil.readStream(in).length;
+                        }
+                    }
+                    long t2 = System.nanoTime();
+                    logger.info("Perf_api_compression {} {}: {} bytes/response, {} μs/request", uri, encoding,
+                            bytes / repeat, (t2 - t1) / 1_000 / repeat);
+                }
+            }
+        } finally {
+            api.stop();
+        }
+    }
+
+    @Test
+    public void testDispatch() {
+        SemuxApiMock api = new SemuxApiMock(kernelRule.getKernel());
+        api.start();
+
+        try {
+            int repeat = 100_000;
+
+            ApiHandler handler = new ApiHandlerImpl(api.getKernel());
+            HttpHeaders headers = new DefaultHttpHeaders();
+            String prefix = "/" + ApiVersion.DEFAULT.prefix;
+            for (String uri : Arrays.asList("/latest-block-number", "/block-by-number", "/account")) {
+                Map<String, String> params = new HashMap<>();
+                params.put("number", "0");
+                params.put("address", api.getKernel().getCoinbase().toAddressString());
+
+                // warm up
+                for (int i = 0; i < repeat; i++) {
+                    handler.service(HttpMethod.GET, prefix + uri, params, headers);
+                }
+
+                long b1 = getAllocatedBytes();
+                long t1 = System.nanoTime();
+                for (int i = 0; i < repeat; i++) {
+                    handler.service(HttpMethod.GET, prefix + uri, params, headers);
+                }
+                long t2 = System.nanoTime();
+                long b2 = getAllocatedBytes();
+                logger.info("Perf_api_dispatch {}: {} bytes/request, {} ns/request", uri, (b2 - b1) / repeat,
+                        (t2 - t1) / repeat);
+            }
+        } finally {
+            api.stop();
+        }
+    }
+
+    /**
+     * Returns the bytes allocated by all live threads of this JVM, client and
+     * server included.
+     */
+    private static long getAllocatedBytes() {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        return Arrays.stream(bean.getThreadAllocatedBytes(bean.getAllThreadIds())).filter(b -> b > 0).sum();
+    }
 }
@@ -27,6 +27,7 @@ import org.semux.crypto.Key;
 import org.semux.crypto.Key.Signature;
 import org.semux.rules.TemporaryDatabaseRule;
 import org.semux.util.Bytes;
+import org.semux.util.MerkleTree;
 import org.semux.util.MerkleUtil;
 import org.semux.util.TimeUtil;
 import org.slf4j.Logger;
@@ -129,6 +130,29 @@ public class BlockchainPerformance {
         logger.info("Perf_transaction_validation: {} μs/time", (t2 - t1) / repeat / 1_000);
     }
 
+    public static void testMerkleRoot() {
+        for (int size : new int[] { 1_000, 10_000, 100_000 }) {
+            List<byte[]> hashes = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                hashes.add(Bytes.random(32));
+            }
+
+            int repeat = 100;
+            long t1 = System.nanoTime();
+            for (int i = 0; i < repeat; i++) {
+                new MerkleTree(hashes).getRootHash();
+            }
+            long t2 = System.nanoTime();
+            for (int i = 0; i < repeat; i++) {
+                MerkleUtil.computeRoot(hashes);
+            }
+            long t3 = System.nanoTime();
+
+            logger.info("Perf_merkle_tree_{}: {} μs/time", size, (t2 - t1) / repeat / 1_000);
+            logger.info("Perf_merkle_root_{}: {} μs/time", size, (t3 - t2) / repeat / 1_000);
+        }
+    }
+
     public static void testAddBlock() throws Throwable {
         final int repeat = 10000;
         Block[] blocks = new Block[repeat];
@@ -152,6 +176,7 @@ public class BlockchainPerformance {
         Block block = testBlockCreation();
         testBlockValidation(block);
         testTransactionValidation();
+        testMerkleRoot();
         testAddBlock();
 
         System.exit(0);
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.semux.TestUtils;
+import org.semux.config.Config;
+import org.semux.config.Constants;
+import org.semux.config.UnitTestnetConfig;
+import org.semux.core.Amount;
+import org.semux.core.Block;
+import org.semux.core.Transaction;
+import org.semux.core.TransactionResult;
+import org.semux.core.state.Account;
+import org.semux.crypto.Key;
+import org.semux.util.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class CodecPerformance {
+    private static final Logger logger = LoggerFactory.getLogger(CodecPerformance.class);
+
+    private static Config config = new UnitTestnetConfig(Constants.DEFAULT_ROOT_DIR);
+    private static int REPEAT = 100_000;
+
+    public static void testTransaction() {
+        Transaction tx = TestUtils.createTransaction(config);
+
+        long t1 = System.nanoTime();
+        for (int i = 0; i < REPEAT; i++) {
+            Transaction.fromBytes(tx.toBytes());
+        }
+        long t2 = System.nanoTime();
+
+        logger.info("Perf_codec_transaction: {} ns/time", (t2 - t1) / REPEAT);
+    }
+
+    public static void testAccount() {
+        byte[] address = Bytes.random(20);
+        Account account = new Account(address, Amount.of(1), Amount.of(2), 3);
+
+        long t1 = System.nanoTime();
+        for (int i = 0; i < REPEAT; i++) {
+            Account.fromBytes(address, account.toBytes());
+        }
+        long t2 = System.nanoTime();
+
+        logger.info("Perf_codec_account: {} ns/time", (t2 - t1) / REPEAT);
+    }
+
+    public static void testBlock() {
+        Key key = new Key();
+        List<Transaction> txs = new ArrayList<>();
+        List<TransactionResult> res = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            txs.add(TestUtils.createTransaction(config, key, key, Amount.of(1), i));
+            res.add(new TransactionResult());
+        }
+        Block block = TestUtils.createBlock(1, txs, res);
+        int repeat = 100;
+
+        long t1 = System.nanoTime();
+        for (int i = 0; i < repeat; i++) {
+            block.getEncodedTransactionsAndIndices();
+        }
+        long t2 = System.nanoTime();
+        byte[] bytes = block.toBytes();
+        for (int i = 0; i < repeat; i++) {
+            Block.fromBytes(bytes);
+        }
+        long t3 = System.nanoTime();
+
+        logger.info("Perf_codec_block_encode_transactions: {} μs/time", (t2 - t1) / repeat / 1_000);
+        logger.info("Perf_codec_block_decode: {} μs/time", (t3 - t2) / repeat / 1_000);
+    }
+
+    public static void main(String[] args) {
+        // warm up
+        testTransaction();
+        testAccount();
+
+        testTransaction();
+        testAccount();
+        testBlock();
+    }
+}
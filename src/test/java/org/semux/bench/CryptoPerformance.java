@@ -6,8 +6,13 @@
  */
 package org.semux.bench;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.semux.crypto.Hash;
 import org.semux.crypto.Key;
+import org.semux.crypto.Key.Signature;
+import org.semux.util.Bytes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,6 +21,7 @@ public class CryptoPerformance {
 
     private static int[] DATA_SIZES = { 1024, 1024 * 1024 };
     private static int REPEAT = 1000;
+    private static int[] BATCH_SIZES = { 16, 64, 256, 1024 };
 
     public static void testH256() {
         for (int size : DATA_SIZES) {
@@ -45,6 +51,27 @@ public class CryptoPerformance {
         }
     }
 
+    public static void testH256Small() {
+        // Merkle nodes and transactions are small, so the per-call overhead dominates
+        byte[] left = Bytes.random(32);
+        byte[] right = Bytes.random(32);
+        byte[] out = new byte[Hash.HASH_LEN];
+        int repeat = REPEAT * 1000;
+
+        long t1 = System.nanoTime();
+        for (int i = 0; i < repeat; i++) {
+            Hash.h256(left, right);
+        }
+        long t2 = System.nanoTime();
+        for (int i = 0; i < repeat; i++) {
+            Hash.h256(left, right, out, 0);
+        }
+        long t3 = System.nanoTime();
+
+        logger.info("Perf_h256_pair: {} ns/time", (t2 - t1) / repeat);
+        logger.info("Perf_h256_pair_into: {} ns/time", (t3 - t2) / repeat);
+    }
+
     public static void testSign() {
         for (int size : DATA_SIZES) {
             Key eckey = new Key();
@@ -78,10 +105,45 @@ public class CryptoPerformance {
         }
     }
 
+    public static void testVerifyBatch() {
+        if (!Key.isVerifyBatchSupported()) {
+            logger.info("Perf_verify_batch: skipped, the native library is not enabled");
+            return;
+        }
+
+        for (int size : BATCH_SIZES) {
+            List<byte[]> messages = new ArrayList<>();
+            List<Signature> signatures = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                byte[] hash = Hash.h256(Bytes.of(i));
+                messages.add(hash);
+                signatures.add(new Key().sign(hash));
+            }
+            int repeat = Math.max(1, REPEAT / size);
+
+            long t1 = System.nanoTime();
+            for (int i = 0; i < repeat; i++) {
+                for (int j = 0; j < size; j++) {
+                    Key.verify(messages.get(j), signatures.get(j));
+                }
+            }
+            long t2 = System.nanoTime();
+            for (int i = 0; i < repeat; i++) {
+                Key.verifyBatch(messages, signatures);
+            }
+            long t3 = System.nanoTime();
+
+            logger.info("Perf_verify_single_native_{}: {} μs/sig", size, (t2 - t1) / 1_000 / repeat / size);
+            logger.info("Perf_verify_batch_native_{}: {} μs/sig", size, (t3 - t2) / 1_000 / repeat / size);
+        }
+    }
+
     public static void main(String[] args) throws Exception {
         testH256();
         testH160();
+        testH256Small();
         testSign();
         testVerify();
+        testVerifyBatch();
     }
 }
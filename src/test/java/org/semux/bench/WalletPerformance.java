@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.semux.Network;
+import org.semux.core.Amount;
+import org.semux.core.Wallet;
+import org.semux.core.state.AccountState;
+import org.semux.core.state.AccountStateImpl;
+import org.semux.crypto.Key;
+import org.semux.crypto.bip32.HdKeyPair;
+import org.semux.crypto.bip39.MnemonicGenerator;
+import org.semux.crypto.bip44.Bip44;
+import org.semux.db.LeveldbDatabase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class WalletPerformance {
+    private static final Logger logger = LoggerFactory.getLogger(WalletPerformance.class);
+
+    private static final int[] WALLET_SIZES = { 10_000, 100_000 };
+    private static final String PASSWORD = "password";
+
+    public static void testUnlock() throws IOException {
+        for (int size : WALLET_SIZES) {
+            File file = File.createTempFile("wallet", ".data");
+            try {
+                Wallet wallet = new Wallet(file, Network.DEVNET);
+                wallet.unlock(PASSWORD);
+                for (int i = 0; i < size; i++) {
+                    wallet.addAccount(new Key());
+                }
+                wallet.compact();
+
+                long t1 = System.nanoTime();
+                Wallet w = new Wallet(file, Network.DEVNET);
+                w.unlock(PASSWORD);
+                long t2 = System.nanoTime();
+
+                logger.info("Perf_wallet_unlock_{}k: {} ms, {} accounts", size / 1000, (t2 - t1) / 1_000_000,
+                        w.size());
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    public static void testScanForHdKeys() throws IOException {
+        Bip44 bip44 = new Bip44();
+
+        for (int size : WALLET_SIZES) {
+            File file = File.createTempFile("wallet", ".data");
+            File dbDir = Files.createTempDirectory("state").toFile();
+            LeveldbDatabase db = new LeveldbDatabase(dbDir);
+            try {
+                Wallet wallet = new Wallet(file, Network.DEVNET);
+                wallet.unlock(PASSWORD);
+                wallet.initializeHdWallet(new MnemonicGenerator().getWordlist(Wallet.MNEMONIC_ENTROPY_LENGTH,
+                        Wallet.MNEMONIC_LANGUAGE));
+
+                // fund the first HD accounts
+                AccountState state = new AccountStateImpl(db);
+                HdKeyPair root = bip44.getRootKeyPairFromSeed(wallet.getSeed(), Wallet.KEY_VERSION, Wallet.COIN_TYPE);
+                for (int i = 0; i < size; i++) {
+                    Key key = Key.fromRawPrivateKey(bip44.getChildKeyPair(root, i).getPrivateKey().getKeyData());
+                    state.adjustAvailable(key.toAddress(), Amount.ONE);
+                }
+                state.commit();
+
+                long t1 = System.nanoTime();
+                int found = wallet.scanForHdKeys(state);
+                long t2 = System.nanoTime();
+
+                logger.info("Perf_wallet_hd_scan_{}k: {} ms, {} accounts", size / 1000, (t2 - t1) / 1_000_000,
+                        found);
+            } finally {
+                db.close();
+                FileUtils.deleteDirectory(dbDir);
+                file.delete();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        testUnlock();
+        testScanForHdKeys();
+    }
+}
@@ -14,12 +14,15 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.semux.core.Fork.UNIFORM_DISTRIBUTION;
 import static org.semux.core.Unit.SEM;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
@@ -40,6 +43,8 @@ import org.semux.core.Transaction;
 import org.semux.core.TransactionResult;
 import org.semux.core.TransactionType;
 import org.semux.crypto.Key;
+import org.semux.net.Channel;
+import org.semux.net.msg.ReasonCode;
 import org.semux.rules.KernelRule;
 import org.semux.rules.TemporaryDatabaseRule;
 import org.semux.util.Bytes;
@@ -260,6 +265,32 @@ public class SemuxBftTest {
         assertEquals(timestamp + 1, block.getTimestamp());
     }
 
+    @Test
+    public void testVerifyVotes() {
+        SemuxBft bft = new SemuxBft(kernelRule.getKernel());
+        bft.height = 5;
+
+        Channel channel = mock(Channel.class, RETURNS_DEEP_STUBS);
+        List<SemuxBft.PendingVote> batch = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Vote vote = Vote.newApprove(VoteType.VALIDATE, 5, 0, Bytes.random(32)).sign(new Key());
+            batch.add(new SemuxBft.PendingVote(channel, vote, System.nanoTime()));
+        }
+        Vote signed = Vote.newApprove(VoteType.VALIDATE, 5, 0, Bytes.random(32)).sign(new Key());
+        Vote forged = new Vote(Vote.newReject(VoteType.VALIDATE, 5, 0).getEncoded(),
+                signed.getSignature().toBytes());
+        batch.add(new SemuxBft.PendingVote(channel, forged, System.nanoTime()));
+        Vote stale = Vote.newApprove(VoteType.VALIDATE, 4, 0, Bytes.random(32)).sign(new Key());
+        batch.add(new SemuxBft.PendingVote(channel, stale, System.nanoTime()));
+
+        bft.voteVerifier.verify(batch);
+
+        assertEquals(3, bft.events.size());
+        assertTrue(bft.events.stream().allMatch(e -> e.getType() == SemuxBft.Event.Type.VOTE
+                && ((Vote) e.getData()).validate()));
+        verify(channel.getMessageQueue()).disconnect(ReasonCode.BAD_PEER);
+    }
+
     private Transaction createTransaction(Key to, Key from, long time, long nonce) {
         return new Transaction(
                 kernelRule.getKernel().getConfig().network(),
@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.consensus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.semux.consensus.SemuxSync.SemuxSyncPeerStats;
+
+public class SemuxSyncPeerStatsTest {
+
+    @Test
+    public void testFirstResponse() {
+        SemuxSyncPeerStats stats = new SemuxSyncPeerStats("peer");
+        stats.onRequest(4);
+        stats.onResponse(4, 4000, 2000);
+
+        assertEquals("peer", stats.getPeerId());
+        assertEquals(4, stats.getBlocksRequested());
+        assertEquals(4, stats.getBlocksReceived());
+        assertEquals(2000.0, stats.getLatency(), 1e-9);
+        assertEquals(2000.0, stats.getBytesPerSecond(), 1e-9);
+        assertEquals(2.0, stats.getBlocksPerSecond(), 1e-9);
+        assertEquals(0.0, stats.getTimeoutRate(), 1e-9);
+    }
+
+    @Test
+    public void testMovingAverage() {
+        SemuxSyncPeerStats stats = new SemuxSyncPeerStats("peer");
+        stats.onRequest(2);
+        stats.onResponse(1, 1000, 1000);
+        stats.onResponse(1, 1000, 100);
+
+        assertTrue(stats.getLatency() < 1000.0);
+        assertTrue(stats.getLatency() > 100.0);
+        assertTrue(stats.getBlocksPerSecond() > 1.0);
+    }
+
+    @Test
+    public void testTimeoutRate() {
+        SemuxSyncPeerStats stats = new SemuxSyncPeerStats("peer");
+        stats.onRequest(4);
+        stats.onTimeout();
+
+        assertEquals(1, stats.getTimeouts());
+        assertEquals(0.25, stats.getTimeoutRate(), 1e-9);
+    }
+}
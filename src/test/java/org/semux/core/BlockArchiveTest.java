@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semux.config.Config;
+import org.semux.rules.KernelRule;
+import org.semux.rules.TemporaryDatabaseRule;
+
+public class BlockArchiveTest {
+
+    @Rule
+    public KernelRule kernelRule = new KernelRule(51610, 51710);
+
+    @Rule
+    public TemporaryDatabaseRule temporaryDBRule = new TemporaryDatabaseRule();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Config config;
+    private BlockchainImpl chain;
+    private List<Block> blocks = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        config = kernelRule.getKernel().getConfig();
+        chain = new BlockchainImpl(config, temporaryDBRule);
+        kernelRule.getKernel().setBlockchain(chain);
+
+        for (int i = 0; i < 10; i++) {
+            Block block = kernelRule.createBlock(Collections.emptyList());
+            chain.addBlock(block);
+            blocks.add(block);
+        }
+    }
+
+    @Test
+    public void testExportAndRead() throws IOException {
+        File file = temporaryFolder.newFile();
+        file.delete();
+
+        assertEquals(10, BlockArchive.exportBlocks(config, temporaryDBRule, file, 1, Long.MAX_VALUE));
+
+        try (BlockArchive.Reader reader = new BlockArchive.Reader(file)) {
+            assertEquals(config.network(), reader.getNetwork());
+            for (Block block : blocks) {
+                BlockArchive.Entry entry = reader.read();
+                assertEquals(block.getNumber(), entry.getNumber());
+                assertArrayEquals(block.getHash(), entry.toBlock().getHash());
+            }
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    public void testExportAppend() throws IOException {
+        File file = temporaryFolder.newFile();
+        file.delete();
+
+        assertEquals(4, BlockArchive.exportBlocks(config, temporaryDBRule, file, 1, 4));
+
+        // simulate an interrupted export
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length());
+            raf.writeInt(1000);
+            raf.write(new byte[10]);
+        }
+
+        assertEquals(6, BlockArchive.exportBlocks(config, temporaryDBRule, file, 1, Long.MAX_VALUE));
+
+        try (BlockArchive.Reader reader = new BlockArchive.Reader(file)) {
+            for (Block block : blocks) {
+                assertEquals(block.getNumber(), reader.read().getNumber());
+            }
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    public void testImportInOrder() throws IOException {
+        File file = temporaryFolder.newFile();
+        file.delete();
+        BlockArchive.exportBlocks(config, temporaryDBRule, file, 1, Long.MAX_VALUE);
+
+        List<Long> imported = new ArrayList<>();
+        Blockchain target = mock(Blockchain.class);
+        when(target.getLatestBlockNumber()).thenReturn(2L);
+        when(target.importBlock(any(Block.class), anyBoolean())).then(invocation -> {
+            Block block = invocation.getArgument(0);
+            imported.add(block.getNumber());
+            return block.isPreValidated();
+        });
+
+        assertEquals(8, BlockArchive.importBlocks(config, target, file));
+        for (int i = 0; i < imported.size(); i++) {
+            assertEquals(i + 3L, (long) imported.get(i));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testImportFailure() throws IOException {
+        File file = temporaryFolder.newFile();
+        file.delete();
+        BlockArchive.exportBlocks(config, temporaryDBRule, file, 1, Long.MAX_VALUE);
+
+        Blockchain target = mock(Blockchain.class);
+        when(target.getLatestBlockNumber()).thenReturn(2L);
+        when(target.importBlock(any(Block.class), anyBoolean())).thenReturn(false);
+
+        BlockArchive.importBlocks(config, target, file);
+    }
+}
@@ -8,6 +8,9 @@ package org.semux.core;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.semux.core.Amount.ZERO;
 
@@ -21,11 +24,14 @@ import org.semux.Network;
 import org.semux.config.Config;
 import org.semux.config.Constants;
 import org.semux.config.UnitTestnetConfig;
+import org.semux.consensus.Vote;
+import org.semux.consensus.VoteType;
 import org.semux.crypto.Key;
 import org.semux.crypto.Key.Signature;
 import org.semux.util.Bytes;
 import org.semux.util.MerkleUtil;
 import org.semux.util.SimpleDecoder;
+import org.semux.util.SimpleEncoder;
 import org.semux.util.TimeUtil;
 
 public class BlockTest {
@@ -110,6 +116,86 @@ public class BlockTest {
         assertArrayEquals(tx.getHash(), tx2.getHash());
     }
 
+    @Test
+    public void testDecodedIndexes() {
+        BlockHeader header = new BlockHeader(number, coinbase, prevHash, timestamp, transactionsRoot, resultsRoot,
+                stateRoot, data);
+        Block block = new Block(header, transactions, results, view, votes);
+        Block block2 = Block.fromBytes(block.toBytes());
+
+        Pair<byte[], List<Integer>> expected = block.getEncodedTransactionsAndIndices();
+        Pair<byte[], List<Integer>> actual = block2.getEncodedTransactionsAndIndices();
+        assertArrayEquals(expected.getLeft(), actual.getLeft());
+        assertEquals(expected.getRight(), actual.getRight());
+
+        expected = block.getEncodedResultsAndIndices();
+        actual = block2.getEncodedResultsAndIndices();
+        assertArrayEquals(expected.getLeft(), actual.getLeft());
+        assertEquals(expected.getRight(), actual.getRight());
+    }
+
+    @Test
+    public void testEncodingCache() {
+        BlockHeader header = new BlockHeader(number, coinbase, prevHash, timestamp, transactionsRoot, resultsRoot,
+                stateRoot, data);
+        Block block = new Block(header, transactions, new ArrayList<>(), view, votes);
+
+        byte[] bytes = block.toBytes();
+        assertSame(bytes, block.toBytes());
+        assertSame(block.getEncodedTransactions(), block.getEncodedTransactions());
+        assertSame(tx.toBytes(), tx.toBytes());
+
+        // blocks received from peers keep their bytes
+        assertSame(bytes, Block.fromBytes(bytes).toBytes());
+
+        block.setResults(results);
+        byte[] bytes2 = block.toBytes();
+        assertNotSame(bytes, bytes2);
+        assertEquals(1, Block.fromBytes(bytes2).getResults().size());
+
+        Vote vote = new Vote(VoteType.PRECOMMIT, Vote.VALUE_APPROVE, number, view, block.getHash())
+                .sign(new Key());
+        block.setVotes(Collections.singletonList(vote.getSignature()));
+        assertNotSame(bytes2, block.toBytes());
+        assertEquals(1, Block.fromBytes(block.toBytes()).getVotes().size());
+
+        block.setView(view + 1);
+        assertEquals(view + 1, Block.fromBytes(block.toBytes()).getView());
+    }
+
+    @Test
+    public void testPaddedEncoding() {
+        BlockHeader header = new BlockHeader(number, coinbase, prevHash, timestamp, transactionsRoot, resultsRoot,
+                stateRoot, data);
+        Block block = new Block(header, transactions, new ArrayList<>(), view, votes);
+        byte[] bytes = block.toBytes();
+
+        // trailing bytes after the block
+        Block block2 = Block.fromBytes(Bytes.merge(bytes, new byte[3]));
+        assertArrayEquals(bytes, block2.toBytes());
+        assertEquals(block.size(), block2.size());
+
+        // trailing bytes after a transaction
+        SimpleEncoder enc = new SimpleEncoder();
+        enc.writeInt(1);
+        enc.writeBytes(Bytes.merge(tx.toBytes(), new byte[3]));
+        block2 = Block.fromComponents(block.getEncodedHeader(), enc.toBytes(), block.getEncodedResults(),
+                block.getEncodedVotes());
+        assertArrayEquals(block.getEncodedTransactions(), block2.getEncodedTransactions());
+        assertEquals(block.getEncodedTransactionsAndIndices().getRight(),
+                block2.getEncodedTransactionsAndIndices().getRight());
+        assertArrayEquals(bytes, block2.toBytes());
+
+        // trailing bytes after the header
+        enc = new SimpleEncoder();
+        enc.writeBytes(Bytes.merge(block.getEncodedHeader(), new byte[3]));
+        enc.writeBytes(block.getEncodedTransactions());
+        enc.writeBytes(block.getEncodedResults());
+        enc.writeBytes(block.getEncodedVotes());
+        block2 = Block.fromBytes(enc.toBytes());
+        assertArrayEquals(bytes, block2.toBytes());
+    }
+
     @Test
     public void testValidateTransactions() {
         BlockHeader previousHeader = new BlockHeader(number - 1, coinbase, prevHash, timestamp - 1, transactionsRoot,
@@ -136,4 +222,25 @@ public class BlockTest {
                 Network.DEVNET));
         assertTrue(block.validateResults(previousHeader, results));
     }
+
+    @Test
+    public void testPreValidate() {
+        BlockHeader header = new BlockHeader(number, coinbase, prevHash, timestamp, transactionsRoot, resultsRoot,
+                stateRoot, data);
+        Block block = new Block(header, transactions, results, view, votes);
+
+        Vote vote = Vote.newApprove(VoteType.PRECOMMIT, number, view, block.getHash()).sign(new Key());
+        block.setVotes(Collections.singletonList(vote.getSignature()));
+
+        assertFalse(block.isPreValidated());
+        assertTrue(block.preValidate(Network.DEVNET));
+        assertTrue(block.isPreValidated());
+
+        // replacing the votes invalidates the flag
+        Vote badVote = Vote.newApprove(VoteType.PRECOMMIT, number + 1, view, block.getHash()).sign(new Key());
+        block.setVotes(Collections.singletonList(badVote.getSignature()));
+        assertFalse(block.isPreValidated());
+        assertFalse(block.preValidate(Network.DEVNET));
+        assertFalse(block.isPreValidated());
+    }
 }
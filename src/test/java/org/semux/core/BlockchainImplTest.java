@@ -100,6 +100,24 @@ public class BlockchainImplTest {
         assertEquals(number, chain.getBlock(newBlock.getHash()).getNumber());
     }
 
+    @Test
+    public void testGetBlocks() {
+        for (long number = 1; number <= 3; number++) {
+            chain.addBlock(createBlock(number));
+        }
+
+        List<Block> blocks = chain.getBlocks(1, 3);
+        assertEquals(2, blocks.size());
+        assertArrayEquals(chain.getBlock(1).getHash(), blocks.get(0).getHash());
+        assertArrayEquals(chain.getBlock(2).getHash(), blocks.get(1).getHash());
+        assertEquals(chain.getBlock(2).getTransactions().size(), blocks.get(1).getTransactions().size());
+
+        // stops at the latest block
+        assertEquals(2, chain.getBlocks(2, 10).size());
+        assertTrue(chain.getBlocks(4, 10).isEmpty());
+        assertTrue(chain.getBlocks(2, 2).isEmpty());
+    }
+
     @Test
     public void testHasBlock() {
         assertFalse(chain.hasBlock(-1));
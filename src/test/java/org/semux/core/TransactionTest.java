@@ -64,6 +64,17 @@ public class TransactionTest {
         testFields(Transaction.fromBytes(tx.toBytes()));
     }
 
+    @Test
+    public void testPaddedSerialization() {
+        Transaction tx = new Transaction(network, type, to, value, fee, nonce, timestamp, data).sign(key);
+
+        // trailing bytes are not kept
+        Transaction tx2 = Transaction.fromBytes(Bytes.merge(tx.toBytes(), new byte[3]));
+        assertArrayEquals(tx.toBytes(), tx2.toBytes());
+        assertEquals(tx.size(), tx2.size());
+        testFields(tx2);
+    }
+
     @Test
     public void testTransactionSize() {
         Transaction tx = new Transaction(network, type, to, value, fee, nonce, timestamp, Bytes.random(128))
@@ -12,6 +12,7 @@ import static org.hamcrest.Matchers.contains;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -20,6 +21,7 @@ import static org.junit.Assume.assumeTrue;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
@@ -272,8 +274,104 @@ public class WalletTest {
         }
     }
 
+    @Test
+    public void testJournal() {
+        long sz = file.length();
+
+        wallet.unlock(pwd);
+        Key key1 = wallet.addAccountRandom();
+        Key key2 = wallet.addAccountRandom();
+        wallet.setAddressAlias(key1.toAddress(), "alias");
+        assertTrue(wallet.flush());
+        wallet.removeAccount(key2);
+        assertTrue(wallet.flush());
+
+        // updates are appended to the journal, not to the wallet file
+        File journal = new File(file.getPath() + ".journal");
+        assertEquals(sz, file.length());
+        assertTrue(journal.length() > 0);
+
+        Wallet w = new Wallet(file, Network.DEVNET);
+        assertTrue(w.unlock(pwd));
+        assertEquals(2, w.size());
+        assertNotNull(w.getAccount(key1.toAddress()));
+        assertNull(w.getAccount(key2.toAddress()));
+        assertEquals("alias", w.getAddressAlias(key1.toAddress()).get());
+
+        // compaction folds the journal into the wallet file
+        assertTrue(w.compact());
+        assertFalse(journal.exists());
+        assertTrue(file.length() > sz);
+
+        w = new Wallet(file, Network.DEVNET);
+        assertTrue(w.unlock(pwd));
+        assertEquals(2, w.size());
+        assertEquals("alias", w.getAddressAlias(key1.toAddress()).get());
+    }
+
+    @Test
+    public void testLockCompactsJournal() {
+        wallet.unlock(pwd);
+        Key key = wallet.addAccountRandom();
+        assertTrue(wallet.flush());
+
+        File journal = new File(file.getPath() + ".journal");
+        assertTrue(journal.length() > 0);
+
+        // the wallet file alone holds all the keys once locked
+        wallet.lock();
+        assertFalse(journal.exists());
+
+        Wallet w = new Wallet(file, Network.DEVNET);
+        assertTrue(w.unlock(pwd));
+        assertEquals(2, w.size());
+        assertNotNull(w.getAccount(key.toAddress()));
+    }
+
+    @Test
+    public void testJournalTornEntry() throws IOException {
+        wallet.unlock(pwd);
+        Key key = wallet.addAccountRandom();
+        assertTrue(wallet.flush());
+
+        // simulate a crash in the middle of an append
+        File journal = new File(file.getPath() + ".journal");
+        Files.write(journal.toPath(), new byte[] { 0, 0, 1, 0, 1, 2, 3 }, StandardOpenOption.APPEND);
+
+        Wallet w = new Wallet(file, Network.DEVNET);
+        assertTrue(w.unlock(pwd));
+        assertEquals(2, w.size());
+        assertNotNull(w.getAccount(key.toAddress()));
+
+        // the torn entry is dropped by the next append
+        Key key2 = w.addAccountRandom();
+        assertTrue(w.flush());
+        w = new Wallet(file, Network.DEVNET);
+        assertTrue(w.unlock(pwd));
+        assertEquals(3, w.size());
+        assertNotNull(w.getAccount(key2.toAddress()));
+    }
+
+    @Test
+    public void testJournalPasswordChange() {
+        wallet.unlock(pwd);
+        wallet.addAccountRandom();
+        assertTrue(wallet.flush());
+
+        // a password change rewrites the wallet file, which makes the journal stale
+        wallet.changePassword("new password");
+        assertTrue(wallet.flush());
+        assertFalse(new File(file.getPath() + ".journal").exists());
+
+        Wallet w = new Wallet(file, Network.DEVNET);
+        assertFalse(w.unlock(pwd));
+        assertTrue(w.unlock("new password"));
+        assertEquals(2, w.size());
+    }
+
     @After
     public void tearDown() {
         file.delete();
+        new File(file.getPath() + ".journal").delete();
     }
 }
@@ -6,7 +6,12 @@
  */
 package org.semux.crypto;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import org.junit.Test;
 import org.semux.util.Bytes;
@@ -54,4 +59,40 @@ public class HashTest {
         assertEquals(msgH160, Hex.encode(hash));
         assertEquals(20, hash.length);
     }
+
+    @Test
+    public void testH256Slice() {
+        byte[] raw = Bytes.merge(Bytes.of("xx"), Bytes.of(msg), Bytes.of("yy"));
+        assertEquals(msgBlake2b, Hex.encode(Hash.h256(raw, 2, 4)));
+
+        byte[] out = new byte[40];
+        Hash.h256(raw, 2, 4, out, 8);
+        assertArrayEquals(Hex.decode(msgBlake2b), Arrays.copyOfRange(out, 8, 40));
+
+        Hash.h256(Bytes.of("t"), Bytes.of("est"), out, 0);
+        assertArrayEquals(Hex.decode(msgBlake2b), Arrays.copyOf(out, 32));
+    }
+
+    @Test
+    public void testH256ByteBuffer() {
+        ByteBuffer heap = ByteBuffer.wrap(Bytes.merge(Bytes.of("xx"), Bytes.of(msg)));
+        heap.position(2);
+        assertEquals(msgBlake2b, Hex.encode(Hash.h256(heap.slice())));
+        assertEquals(msgBlake2b, Hex.encode(Hash.h256(heap)));
+        assertFalse(heap.hasRemaining());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(4);
+        direct.put(Bytes.of(msg)).flip();
+        assertEquals(msgBlake2b, Hex.encode(Hash.h256(direct)));
+        assertFalse(direct.hasRemaining());
+    }
+
+    @Test
+    public void testH160Slice() {
+        byte[] raw = Bytes.merge(Bytes.of("xx"), Bytes.of(msg));
+        byte[] out = new byte[20];
+        Hash.h160(raw, 2, 4, out, 0);
+
+        assertEquals(msgH160, Hex.encode(out));
+    }
 }
@@ -15,9 +15,13 @@ import java.math.BigInteger;
 import java.security.KeyPair;
 import java.security.SignatureException;
 import java.security.spec.InvalidKeySpecException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.bouncycastle.util.Arrays;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 import org.semux.config.Constants;
 import org.semux.crypto.Key.Signature;
@@ -68,6 +72,41 @@ public class KeyTest {
         assertFalse(Key.verify(hash, sig2));
     }
 
+    @Test
+    public void testVerifyBatch() {
+        List<byte[]> messages = new ArrayList<>();
+        List<Signature> signatures = new ArrayList<>();
+        Key repeated = new Key();
+        for (int i = 0; i < 100; i++) {
+            Key key = i % 3 == 0 ? repeated : new Key();
+            byte[] hash = Hash.h256(Bytes.of(i));
+            messages.add(hash);
+            signatures.add(key.sign(hash));
+        }
+
+        assertEquals(Native.isEnabled(), Key.isVerifyBatchSupported());
+        Assume.assumeTrue(Key.isVerifyBatchSupported());
+        assertTrue(Key.verifyBatch(messages, signatures));
+
+        // a signature on another message
+        messages.set(42, Hash.h256(Bytes.of("test")));
+        assertFalse(Key.verifyBatch(messages, signatures));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testVerifyBatchWithoutNative() {
+        boolean nativeEnabled = Native.isEnabled();
+        try {
+            Native.disable();
+            byte[] hash = Hash.h256(Bytes.of("test"));
+            Key.verifyBatch(Collections.singletonList(hash), Collections.singletonList(new Key().sign(hash)));
+        } finally {
+            if (nativeEnabled) {
+                Native.enable();
+            }
+        }
+    }
+
     @Test
     public void testGenerateKeyPair() throws InvalidKeySpecException {
         Key key1 = new Key();
@@ -0,0 +1,46 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.crypto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import org.semux.util.MetricRegistry;
+
+public class VerificationPoolTest {
+
+    @Test
+    public void testInvoke() {
+        Set<String> threads = VerificationPool.invoke(() -> IntStream.range(0, 1000).parallel()
+                .mapToObj(i -> Thread.currentThread().getName())
+                .collect(Collectors.toSet()));
+
+        assertTrue(threads.stream().allMatch(name -> name.startsWith("crypto-verify-")));
+    }
+
+    @Test
+    public void testNestedInvoke() {
+        int sum = VerificationPool.invoke(() -> IntStream.range(0, 100).parallel()
+                .map(i -> VerificationPool.invoke(() -> i))
+                .sum());
+
+        assertEquals(4950, sum);
+    }
+
+    @Test
+    public void testMetrics() {
+        MetricRegistry metrics = new MetricRegistry();
+        VerificationPool.registerMetrics(metrics);
+
+        assertTrue(metrics.export().contains("semux_verify_pool_threads " + VerificationPool.get().getParallelism()));
+    }
+}
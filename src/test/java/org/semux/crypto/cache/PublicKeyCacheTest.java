@@ -6,6 +6,7 @@
  */
 package org.semux.crypto.cache;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 
@@ -33,6 +34,19 @@ public class PublicKeyCacheTest {
         assertSame(p1, p2);
     }
 
+    @Test
+    public void testAddressCache() {
+        Key key = new Key();
+        byte[] a1 = PublicKeyCache.computeAddressIfAbsent(key.getPublicKey().clone());
+        byte[] a2 = PublicKeyCache.computeAddressIfAbsent(key.getPublicKey().clone());
+        assertArrayEquals(key.toAddress(), a1);
+        assertSame(a1, a2);
+
+        Key.Signature sig = key.sign(new byte[32]);
+        assertSame(sig.getAddress(), sig.getAddress());
+        assertArrayEquals(key.toAddress(), sig.getAddress());
+    }
+
     @Test
     @Ignore
     public void testJvmUtilization() {
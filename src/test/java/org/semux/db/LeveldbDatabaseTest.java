@@ -88,6 +88,37 @@ public class LeveldbDatabaseTest {
         itr.close();
     }
 
+    @Test
+    public void testSnapshot() {
+        db.put(Bytes.of("a"), Bytes.of("1"));
+
+        Database snapshot = db.snapshot();
+        db.put(Bytes.of("a"), Bytes.of("2"));
+        db.put(Bytes.of("b"), Bytes.of("3"));
+
+        assertArrayEquals(Bytes.of("1"), snapshot.get(Bytes.of("a")));
+        assertNull(snapshot.get(Bytes.of("b")));
+
+        ClosableIterator<Entry<byte[], byte[]>> itr = snapshot.iterator();
+        assertTrue(itr.hasNext());
+        assertArrayEquals(Bytes.of("a"), itr.next().getKey());
+        assertFalse(itr.hasNext());
+        itr.close();
+
+        snapshot.close();
+        assertArrayEquals(Bytes.of("2"), db.get(Bytes.of("a")));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSnapshotReadOnly() {
+        Database snapshot = db.snapshot();
+        try {
+            snapshot.put(key, value);
+        } finally {
+            snapshot.close();
+        }
+    }
+
     @Test
     public void testClose() {
         db.close();
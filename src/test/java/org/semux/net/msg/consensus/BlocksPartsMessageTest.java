@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.net.msg.consensus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.semux.core.BlockPart;
+import org.semux.net.msg.MessageCode;
+import org.semux.util.Bytes;
+
+public class BlocksPartsMessageTest {
+
+    @Test
+    public void testSerialization() {
+        long from = 100;
+        int parts = BlockPart.encode(BlockPart.HEADER, BlockPart.TRANSACTIONS);
+        List<List<byte[]>> data = Arrays.asList(
+                Arrays.asList(Bytes.random(8), Bytes.random(16)),
+                Arrays.asList(Bytes.random(8), Bytes.EMPTY_BYTES));
+
+        BlocksPartsMessage m = new BlocksPartsMessage(from, parts, data);
+        assertThat(m.getCode()).isEqualTo(MessageCode.BLOCKS_PARTS);
+
+        BlocksPartsMessage m2 = new BlocksPartsMessage(m.getBody());
+        assertThat(m2.getFrom()).isEqualTo(from);
+        assertThat(m2.getParts()).isEqualTo(parts);
+        assertThat(m2.getData()).hasSize(2);
+        for (int i = 0; i < data.size(); i++) {
+            assertThat(m2.getData().get(i)).containsExactlyElementsOf(data.get(i));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.net.msg.consensus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+import org.semux.core.BlockPart;
+import org.semux.net.msg.MessageCode;
+
+public class GetBlocksPartsMessageTest {
+
+    @Test
+    public void testSerialization() {
+        long from = 100;
+        int count = 16;
+        int parts = BlockPart.encode(BlockPart.HEADER, BlockPart.TRANSACTIONS);
+
+        GetBlocksPartsMessage m = new GetBlocksPartsMessage(from, count, parts);
+        assertThat(m.getCode()).isEqualTo(MessageCode.GET_BLOCKS_PARTS);
+        assertThat(m.getResponseMessageClass()).isEqualTo(BlocksPartsMessage.class);
+
+        GetBlocksPartsMessage m2 = new GetBlocksPartsMessage(m.getBody());
+        assertThat(m2.getCode()).isEqualTo(MessageCode.GET_BLOCKS_PARTS);
+        assertThat(m2.getFrom()).isEqualTo(from);
+        assertThat(m2.getCount()).isEqualTo(count);
+        assertThat(m2.getParts()).isEqualTo(parts);
+        assertThat(m2.validate()).isTrue();
+    }
+
+    @Test
+    public void testValidate() {
+        assertThat(new GetBlocksPartsMessage(1, 0, 1).validate()).isFalse();
+        assertThat(new GetBlocksPartsMessage(1, GetBlocksPartsMessage.MAX_BLOCKS + 1, 1).validate()).isFalse();
+        assertThat(new GetBlocksPartsMessage(-1, 1, 1).validate()).isFalse();
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.net.msg.p2p;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.semux.Network;
+import org.semux.core.Amount;
+import org.semux.core.Transaction;
+import org.semux.core.TransactionType;
+import org.semux.crypto.Key;
+import org.semux.util.Bytes;
+import org.semux.util.TimeUtil;
+
+public class TransactionsMessageTest {
+
+    @Test
+    public void testSerialization() {
+        Key key = new Key();
+        List<Transaction> txs = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Transaction tx = new Transaction(Network.DEVNET, TransactionType.TRANSFER, Bytes.random(20),
+                    Amount.of(2), Amount.of(50_000_000L), i, TimeUtil.currentTimeMillis(), Bytes.of("data"));
+            txs.add(tx.sign(key));
+        }
+
+        TransactionsMessage msg = new TransactionsMessage(new TransactionsMessage(txs).getBody());
+        assertTrue(msg.validate());
+        assertEquals(txs.size(), msg.getTransactions().size());
+        for (int i = 0; i < txs.size(); i++) {
+            assertArrayEquals(txs.get(i).getHash(), msg.getTransactions().get(i).getHash());
+        }
+    }
+}
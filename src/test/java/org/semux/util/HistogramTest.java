@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class HistogramTest {
+
+    @Test
+    public void testObserve() {
+        Histogram h = new Histogram(new long[] { 1, 10, 100 });
+        h.observe(0);
+        h.observe(1);
+        h.observe(5);
+        h.observe(100);
+        h.observe(1000);
+
+        assertArrayEquals(new long[] { 2, 1, 1, 1 }, h.getCounts());
+        assertEquals(5, h.getCount());
+        assertEquals(1106, h.getSum());
+    }
+
+    @Test
+    public void testPercentile() {
+        Histogram h = new Histogram(new long[] { 1, 10, 100 });
+        assertEquals(0, h.getPercentile(50));
+
+        for (int i = 0; i < 90; i++) {
+            h.observe(1);
+        }
+        for (int i = 0; i < 9; i++) {
+            h.observe(50);
+        }
+        h.observe(500);
+
+        assertEquals(1, h.getPercentile(50));
+        assertEquals(100, h.getPercentile(99));
+        assertEquals(Long.MAX_VALUE, h.getPercentile(100));
+    }
+}
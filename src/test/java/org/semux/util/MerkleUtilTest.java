@@ -7,11 +7,15 @@
 package org.semux.util;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertThat;
 import static org.semux.core.Amount.ZERO;
 import static org.semux.core.Unit.SEM;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import org.junit.Test;
 import org.semux.Network;
@@ -59,4 +63,20 @@ public class MerkleUtilTest {
 
         assertThat(merkle, equalTo(root));
     }
+
+    @Test
+    public void testComputeRoot() {
+        for (int n : new int[] { 0, 1, 2, 3, 4, 5, 7, 8, 9, 16, 17, 100, 5000 }) {
+            List<byte[]> hashes = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                hashes.add(Bytes.random(32));
+            }
+            List<byte[]> copy = hashes.stream().map(byte[]::clone).collect(Collectors.toList());
+
+            assertThat(MerkleUtil.computeRoot(hashes), equalTo(new MerkleTree(hashes).getRootHash()));
+            for (int i = 0; i < n; i++) {
+                assertArrayEquals(copy.get(i), hashes.get(i));
+            }
+        }
+    }
 }
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2017-2020 The Semux Developers
+ *
+ * Distributed under the MIT software license, see the accompanying file
+ * LICENSE or https://opensource.org/licenses/mit-license.php
+ */
+package org.semux.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class MetricRegistryTest {
+
+    @Test
+    public void testCounter() {
+        MetricRegistry metrics = new MetricRegistry();
+        MetricRegistry.Counter c = metrics.counter("test_total", "A counter", "a", "b");
+        c.inc();
+        c.add(2);
+
+        assertSame(c, metrics.counter("test_total", "A counter", "a", "b"));
+        assertEquals("# HELP test_total A counter\n"
+                + "# TYPE test_total counter\n"
+                + "test_total{a=\"b\"} 3\n", metrics.export());
+    }
+
+    @Test
+    public void testGauge() {
+        MetricRegistry metrics = new MetricRegistry();
+        AtomicLong value = new AtomicLong(1);
+        metrics.gauge("test_gauge", "A gauge", value::get);
+        value.set(5);
+
+        assertEquals("# HELP test_gauge A gauge\n"
+                + "# TYPE test_gauge gauge\n"
+                + "test_gauge 5\n", metrics.export());
+    }
+
+    @Test
+    public void testDynamicGauges() {
+        MetricRegistry metrics = new MetricRegistry();
+        metrics.gauges("test_depth", "Depths", "peer", () -> Collections.singletonMap("1.2.3.4:\"x\"", 7L));
+
+        assertEquals("# HELP test_depth Depths\n"
+                + "# TYPE test_depth gauge\n"
+                + "test_depth{peer=\"1.2.3.4:\\\"x\\\"\"} 7\n", metrics.export());
+    }
+
+    @Test
+    public void testHistogram() {
+        MetricRegistry metrics = new MetricRegistry();
+        Histogram h = metrics.histogram("test_ms", "A histogram", new long[] { 1, 10 }, "db", "x");
+        h.observe(1);
+        h.observe(5);
+        h.observe(50);
+
+        assertEquals("# HELP test_ms A histogram\n"
+                + "# TYPE test_ms histogram\n"
+                + "test_ms_bucket{db=\"x\",le=\"1\"} 1\n"
+                + "test_ms_bucket{db=\"x\",le=\"10\"} 2\n"
+                + "test_ms_bucket{db=\"x\",le=\"+Inf\"} 3\n"
+                + "test_ms_sum{db=\"x\"} 56\n"
+                + "test_ms_count{db=\"x\"} 3\n", metrics.export());
+    }
+
+    @Test
+    public void testEmpty() {
+        MetricRegistry metrics = new MetricRegistry();
+        metrics.histograms("test_ms", "Histograms", "route", Collections::emptyMap);
+
+        assertEquals("", metrics.export());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTypeMismatch() {
+        MetricRegistry metrics = new MetricRegistry();
+        metrics.counter("test", "A counter");
+        metrics.gauge("test", "A gauge", () -> 0);
+    }
+}
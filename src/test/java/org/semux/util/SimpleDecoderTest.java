@@ -11,6 +11,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.nio.ByteBuffer;
+
 import org.junit.Test;
 import org.semux.crypto.Hex;
 
@@ -81,4 +83,58 @@ public class SimpleDecoderTest {
         }
         assertEquals(bytes.length, dec.getReadIndex());
     }
+
+    @Test
+    public void testReadViews() {
+        byte[] bytes = Bytes.random(300);
+        SimpleEncoder enc = new SimpleEncoder();
+        enc.writeBytes(bytes);
+        enc.writeString("semux");
+        enc.writeInt(7);
+
+        SimpleDecoder dec = new SimpleDecoder(enc.toBytes());
+        SimpleDecoder nested = dec.readDecoder();
+        assertEquals(bytes[0], nested.readByte());
+        assertEquals("semux", dec.readString());
+        assertEquals(7, dec.readInt());
+
+        dec = new SimpleDecoder(enc.toBytes());
+        ByteBuffer buf = dec.readBuffer();
+        assertTrue(buf.isReadOnly());
+        byte[] copy = new byte[buf.remaining()];
+        buf.get(copy);
+        assertArrayEquals(bytes, copy);
+        assertEquals("semux", dec.readString());
+    }
+
+    @Test
+    public void testCanonical() {
+        SimpleEncoder enc = new SimpleEncoder();
+        enc.writeBytes(new byte[] { 5 });
+
+        SimpleDecoder dec = new SimpleDecoder(enc.toBytes());
+        assertFalse(dec.isCanonical());
+        dec.readBytes();
+        assertTrue(dec.isCanonical());
+
+        // trailing bytes
+        dec = new SimpleDecoder(Bytes.merge(enc.toBytes(), new byte[1]));
+        dec.readBytes();
+        assertFalse(dec.isCanonical());
+
+        // a size with a leading zero group
+        dec = new SimpleDecoder(new byte[] { (byte) 0x80, 0x01, 5 });
+        assertArrayEquals(new byte[] { 5 }, dec.readBytes());
+        assertFalse(dec.isCanonical());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testNestedBounds() {
+        SimpleEncoder enc = new SimpleEncoder();
+        enc.writeBytes(new byte[2]);
+        enc.writeInt(7);
+
+        SimpleDecoder nested = new SimpleDecoder(enc.toBytes()).readDecoder();
+        nested.readInt();
+    }
 }
@@ -9,6 +9,8 @@ package org.semux.util;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
 
+import java.util.Arrays;
+
 import org.junit.Test;
 
 public class SimpleEncoderTest {
@@ -22,4 +24,39 @@ public class SimpleEncoderTest {
 
         assertThat(enc.toBytes(), equalTo(Bytes.merge(append, Bytes.of((byte) 1), Bytes.of("s"))));
     }
+
+    @Test
+    public void testGrow() {
+        SimpleEncoder enc = new SimpleEncoder(2);
+        enc.writeLong(Long.MIN_VALUE);
+        enc.writeBytes(new byte[1000]);
+
+        assertThat(enc.getWriteIndex(), equalTo(8 + 2 + 1000));
+        assertThat(enc.toBytes().length, equalTo(8 + 2 + 1000));
+    }
+
+    @Test
+    public void testPresized() {
+        SimpleEncoder enc = new SimpleEncoder(4);
+        enc.writeInt(1);
+        byte[] bytes = enc.toBytes();
+        assertThat(bytes, equalTo(Bytes.of(1)));
+
+        // the returned array is not modified by further writes
+        enc.writeInt(2);
+        assertThat(bytes, equalTo(Bytes.of(1)));
+        assertThat(enc.toBytes(), equalTo(Bytes.merge(Bytes.of(1), Bytes.of(2))));
+        assertThat(enc.toByteBuffer().remaining(), equalTo(8));
+    }
+
+    @Test
+    public void testWriteSlice() {
+        byte[] bytes = Bytes.random(10);
+        SimpleEncoder enc1 = new SimpleEncoder();
+        enc1.writeBytes(bytes, 2, 5);
+        SimpleEncoder enc2 = new SimpleEncoder();
+        enc2.writeBytes(Arrays.copyOfRange(bytes, 2, 7));
+
+        assertThat(enc1.toBytes(), equalTo(enc2.toBytes()));
+    }
 }